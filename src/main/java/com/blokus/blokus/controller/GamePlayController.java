@@ -5,13 +5,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -29,11 +26,13 @@ import com.blokus.blokus.model.GameUser;
 import com.blokus.blokus.model.Piece;
 import com.blokus.blokus.model.PieceFactory;
 import com.blokus.blokus.model.User;
-import com.blokus.blokus.service.AiPlayerService;
 import com.blokus.blokus.service.GameLogicService;
 import com.blokus.blokus.service.GameService;
 import com.blokus.blokus.service.GameWebSocketService;
+import com.blokus.blokus.service.MoveResult;
 import com.blokus.blokus.service.UserService;
+import com.blokus.blokus.service.ai.AiTurnRunner;
+import com.blokus.blokus.service.session.GameSessionManager;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -53,17 +52,19 @@ public class GamePlayController {
     private final UserService userService;
     private final GameLogicService gameLogicService;
     private final GameWebSocketService gameWebSocketService;
-    private final AiPlayerService aiPlayerService;
+    private final GameSessionManager gameSessionManager;
+    private final AiTurnRunner aiTurnRunner;
 
     // Constructor Injection
     public GamePlayController(GameService gameService, UserService userService, 
                              GameLogicService gameLogicService, GameWebSocketService gameWebSocketService,
-                             AiPlayerService aiPlayerService) {
+                             GameSessionManager gameSessionManager, AiTurnRunner aiTurnRunner) {
         this.gameService = gameService;
         this.userService = userService;
         this.gameLogicService = gameLogicService;
         this.gameWebSocketService = gameWebSocketService;
-        this.aiPlayerService = aiPlayerService;
+        this.gameSessionManager = gameSessionManager;
+        this.aiTurnRunner = aiTurnRunner;
     }
 
     @GetMapping("/play")
@@ -299,88 +300,34 @@ public class GamePlayController {
             if (rotation == null) rotation = 0;
             if (flipped == null) flipped = false;
             
-            // Call game logic service to attempt to place the piece
-            boolean placementSuccess = gameLogicService.placePiece(gameId, currentUser.getId(), 
-                                                           selectedPieceId, selectedPieceColor, 
-                                                     x, y, rotation, flipped);
+            // Validation, placement, turn advance and scoring run as one atomic command of the game's
+            // session, and the whole outcome is published to clients in a single message
+            final String pieceId = selectedPieceId;
+            final String pieceColor = selectedPieceColor;
+            final int finalRotation = rotation;
+            final boolean finalFlipped = flipped;
+            MoveResult result = gameSessionManager.call(gameId, () -> {
+                MoveResult moveResult = gameLogicService.submitMove(gameId, currentUser.getUsername(),
+                        pieceId, pieceColor, x, y, finalRotation, finalFlipped);
+                if (moveResult.isAccepted()) {
+                    gameWebSocketService.sendMoveResult(gameId, moveResult);
+                }
+                return moveResult;
+            });
             
-            if (!placementSuccess) {
+            if (!result.isAccepted()) {
                 if (isAjaxRequest(request)) {
                     response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     return null;
                 }
-                redirectAttributes.addFlashAttribute("errorMessage", "Invalid piece placement.");
+                redirectAttributes.addFlashAttribute("errorMessage", "Invalid piece placement: " + result.getError());
                 return "redirect:/games/" + gameId + "/play";
             }
            
-            // Send real-time update to all clients
-            gameWebSocketService.sendPiecePlacedUpdate(
-                gameId, 
-                selectedPieceId, 
-                selectedPieceColor, 
-                x, y, rotation, flipped,
-                currentUser.getUsername()
-            );
-           
-            // Move to next player's turn
-            GameUser nextPlayer = gameLogicService.nextTurn(gameId);
-           
-            // Send next turn update if the game hasn't ended
-            if (nextPlayer != null) {
-                String nextPlayerName;
-                if (nextPlayer.isBot()) {
-                    // Bot player - use color-based name
-                    String colorName = nextPlayer.getColor().name().toLowerCase();
-                    nextPlayerName = "Bot " + colorName.substring(0, 1).toUpperCase() + colorName.substring(1);
-                } else if (nextPlayer.getUser() != null) {
-                    // Human player - use username
-                    nextPlayerName = nextPlayer.getUser().getUsername();
-                } else {
-                    nextPlayerName = "Unknown Player";
-                }
-                
-                gameWebSocketService.sendNextTurnUpdate(gameId, nextPlayer.getColor().name().toLowerCase(), nextPlayerName);
-                
-                // If next player is a bot, trigger AI move asynchronously
-                if (nextPlayer.isBot()) {
-                    // Process AI moves in a chain (handles multiple consecutive AI players)
-                    processAiMoves(gameId);
-                }
-            }
-           
-            // Check if game is over
-            if (gameLogicService.isGameOver(gameId)) {
-                // Calculate final scores
-                game = gameLogicService.calculateScores(gameId);
-               
-                // Find the winner and prepare score data
-                Map<String, Integer> scores = new HashMap<>();
-                String winnerUsername = "Unknown";
-                int highestScore = -1;
-               
-                for (GameUser player : game.getPlayers()) {
-                    String playerName;
-                    if (player.isBot()) {
-                        // Bot player - use color-based name
-                        String colorName = player.getColor().name().toLowerCase();
-                        playerName = "Bot " + colorName.substring(0, 1).toUpperCase() + colorName.substring(1);
-                    } else if (player.getUser() != null) {
-                        // Human player - use username
-                        playerName = player.getUser().getUsername();
-                    } else {
-                        playerName = "Unknown Player";
-                    }
-                    
-                    scores.put(playerName, player.getScore());
-                    
-                    if (player.getScore() > highestScore) {
-                        highestScore = player.getScore();
-                        winnerUsername = playerName;
-                    }
-                }
-               
-                // Send game over update
-                gameWebSocketService.sendGameOverUpdate(gameId, winnerUsername, scores);
+            // If next player is a bot, trigger AI move asynchronously
+            if (result.isNextPlayerBot()) {
+                // Process AI moves in a chain (handles multiple consecutive AI players)
+                aiTurnRunner.startChain(gameId);
             }
             
             // Clear the session attributes after successful placement
@@ -426,10 +373,8 @@ public class GamePlayController {
                 return "redirect:/games/" + gameId + "/play";
             }
             
-            boolean aiMoved = aiPlayerService.makeAiMove(gameId);
-            if (!aiMoved) {
-                redirectAttributes.addFlashAttribute("infoMessage", "AI player couldn't make a move and skipped turn");
-            }
+            // The bots search off the game's session; their moves reach the board by WebSocket
+            aiTurnRunner.startChain(gameId);
             
             return "redirect:/games/" + gameId + "/play";
         } catch (Exception e) {
@@ -444,114 +389,4 @@ public class GamePlayController {
     private boolean isAjaxRequest(HttpServletRequest request) {
         return "XMLHttpRequest".equals(request.getHeader("X-Requested-With"));
     }
-
-    /**
-     * Process AI moves for bot players asynchronously
-     */
-    @Async
-    public void processAiMoves(Long gameId) {
-        try {
-            Game game = gameService.findById(gameId);
-            if (game == null || game.getStatus() != Game.GameStatus.PLAYING) {
-                logger.info("Cannot process AI moves: game is null or not in PLAYING state");
-                return;
-            }
-            
-            GameUser currentPlayer = game.getCurrentPlayer();
-            if (currentPlayer == null) {
-                logger.info("Cannot process AI moves: current player is null");
-                return;
-            }
-            
-            // If current player is not a bot, no AI move needed
-            if (!currentPlayer.isBot()) {
-                logger.info("Current player is human, no AI move needed");
-                return;
-            }
-            
-            String botColor = currentPlayer.getColor().name();
-            logger.info("Processing AI move for bot: {}", botColor);
-            
-            // Add a delay to simulate thinking and allow animations to complete
-            Random localRandom = new Random();
-            
-            try {
-                // Longer delay to ensure state is properly updated
-                int delay = 2000 + localRandom.nextInt(1000);
-                if (botColor.equals("GREEN")) {
-                    // Extra delay for GREEN bot which seems to need more time
-                    delay += 1000;
-                }
-                logger.info("Waiting {}ms before processing {} bot move", delay, botColor);
-                TimeUnit.MILLISECONDS.sleep(delay);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.error("Thread interrupted while waiting to process {} bot move", botColor);
-                return;
-            }
-            
-            // Execute the AI move with special attention to GREEN bot
-            logger.info("Executing AI move for {} bot", botColor);
-            boolean aiMoved = false;
-            int retries = 0;
-            final int MAX_RETRIES = 3;
-            
-            while (!aiMoved && retries < MAX_RETRIES) {
-                aiMoved = aiPlayerService.makeAiMove(gameId);
-                
-                if (!aiMoved) {
-                    retries++;
-                    logger.info("Retry {}/{} for {} bot", retries, MAX_RETRIES, botColor);
-                    // Small wait between retries
-                    try {
-                        TimeUnit.MILLISECONDS.sleep(500);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        logger.warn("Thread interrupted during retry pause", e);
-                        break;
-                    }
-                }
-            }
-            
-            // Log move result with more details
-            if (aiMoved) {
-                logger.info("SUCCESS: {} bot successfully made a move", botColor);
-                // Advance to next player's turn
-                GameUser nextPlayer = gameLogicService.nextTurn(gameId);
-                if (nextPlayer != null) {
-                    String nextPlayerName;
-                    if (nextPlayer.isBot()) {
-                        String colorName = nextPlayer.getColor().name().toLowerCase();
-                        nextPlayerName = "Bot " + colorName.substring(0, 1).toUpperCase() + colorName.substring(1);
-                    } else if (nextPlayer.getUser() != null) {
-                        nextPlayerName = nextPlayer.getUser().getUsername();
-                    } else {
-                        nextPlayerName = "Unknown Player";
-                    }
-                    gameWebSocketService.sendNextTurnUpdate(gameId, nextPlayer.getColor().name().toLowerCase(), nextPlayerName);
-                    // If next player is a bot, trigger their move after a short delay
-                    if (nextPlayer.isBot()) {
-                        try {
-                            TimeUnit.SECONDS.sleep(1);
-                            processAiMoves(gameId);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            logger.warn("Thread interrupted before processing next bot move", e);
-                        }
-                    }
-                }
-            } else {
-                logger.warn("WARNING: {} bot failed to make a move after {} retries", botColor, MAX_RETRIES);
-                
-                // Force next turn if bot failed to move after retries
-                logger.info("Forcing next turn due to bot failure");
-                gameLogicService.nextTurn(gameId);
-            }
-            
-        } catch (IllegalStateException e) {
-            logger.error("Illegal game state in processAiMoves: {}", e.getMessage());
-        } catch (RuntimeException e) {
-            logger.error("Runtime error in processAiMoves: {}", e.getMessage());
-        }
-    }
-}
\ No newline at end of file
+}
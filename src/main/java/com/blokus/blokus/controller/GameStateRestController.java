@@ -1,5 +1,7 @@
 package com.blokus.blokus.controller;
 
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +18,8 @@ import com.blokus.blokus.model.Game;
 import com.blokus.blokus.model.GameUser;
 import com.blokus.blokus.service.GameService;
 import com.blokus.blokus.service.GameLogicService;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.session.GameSessionManager;
 
 /**
  * REST controller for game state.
@@ -27,10 +31,13 @@ public class GameStateRestController {
 
     private final GameService gameService;
     private final GameLogicService gameLogicService;
+    private final GameSessionManager gameSessionManager;
 
-    public GameStateRestController(GameService gameService, GameLogicService gameLogicService) {
+    public GameStateRestController(GameService gameService, GameLogicService gameLogicService,
+                                   GameSessionManager gameSessionManager) {
         this.gameService = gameService;
         this.gameLogicService = gameLogicService;
+        this.gameSessionManager = gameSessionManager;
     }
 
     @GetMapping("/api/state")
@@ -109,6 +116,11 @@ public class GameStateRestController {
             // For now we're returning placeholder data
             gameState.put("board", new Object[0]); // Empty board for now
 
+            // Whole board in the compact BoardCodec format, Base64 encoded, read on the game's
+            // session since the board is only changed there
+            byte[] encodedBoard = gameSessionManager.call(gameId, () -> gameLogicService.encodeBoard(gameId));
+            gameState.put("encodedBoard", Base64.getEncoder().encodeToString(encodedBoard));
+
             // Add available pieces information - placeholder
             Map<String, Object> availablePieces = new HashMap<>();
             gameState.put("availablePieces", availablePieces);
@@ -119,4 +131,46 @@ public class GameStateRestController {
                 .body(Map.of("error", "Error retrieving game state: " + e.getMessage()));
         }
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/api/legal-moves")
+    public ResponseEntity<?> getLegalMoves(@PathVariable Long gameId, Authentication authentication) {
+        try {
+            if (authentication == null || !authentication.isAuthenticated()) {
+                return ResponseEntity.status(401).body(Map.of("error", "User not authenticated"));
+            }
+
+            Game game = gameService.findById(gameId);
+
+            if (game == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Game not found"));
+            }
+
+            GameUser currentPlayer = game.getCurrentPlayer();
+            if (currentPlayer == null || game.getStatus() != Game.GameStatus.PLAYING) {
+                return ResponseEntity.ok(Map.of("count", 0, "moves", List.of()));
+            }
+
+            // Legal moves of the player whose turn it is, in the same format as placed pieces
+            List<Map<String, Object>> moves = new ArrayList<>();
+            int[] legalMoves = gameSessionManager.call(gameId, () -> gameLogicService.listLegalMoves(gameId, currentPlayer));
+            for (int move : legalMoves) {
+                Map<String, Object> moveData = new HashMap<>();
+                moveData.put("pieceId", String.valueOf(Move.pieceId(move)));
+                moveData.put("x", Move.x(move));
+                moveData.put("y", Move.y(move));
+                moveData.put("rotation", Move.rotation(move));
+                moveData.put("flipped", Move.flipped(move));
+                moves.add(moveData);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("color", currentPlayer.getColor().name().toLowerCase());
+            response.put("count", moves.size());
+            response.put("moves", moves);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(500)
+                .body(Map.of("error", "Error retrieving legal moves: " + e.getMessage()));
+        }
+    }
+}
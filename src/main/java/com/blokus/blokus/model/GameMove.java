@@ -0,0 +1,137 @@
+package com.blokus.blokus.model;
+
+import java.time.LocalDateTime;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * One placed piece of a game, in placement order (ply).
+ * The move log is enough to rebuild the board of a game after a restart.
+ */
+@Entity
+@Table(name = "game_moves",
+        uniqueConstraints = @UniqueConstraint(name = "uk_game_moves_game_ply", columnNames = {"game_id", "ply"}),
+        indexes = @Index(name = "idx_game_moves_game", columnList = "game_id"))
+public class GameMove {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain column rather than a relation: moves are written in batches without loading the game
+    @Column(name = "game_id", nullable = false)
+    private Long gameId;
+
+    @Column(nullable = false)
+    private int ply;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PlayerColor color;
+
+    @Column(name = "piece_id", nullable = false)
+    private String pieceId;
+
+    // Rotation in degrees (0, 90, 180, 270), applied before the flip
+    private int rotation;
+
+    private boolean flipped;
+
+    private int x;
+
+    private int y;
+
+    @Column(name = "played_at")
+    private LocalDateTime playedAt;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public void setPly(int ply) {
+        this.ply = ply;
+    }
+
+    public PlayerColor getColor() {
+        return color;
+    }
+
+    public void setColor(PlayerColor color) {
+        this.color = color;
+    }
+
+    public String getPieceId() {
+        return pieceId;
+    }
+
+    public void setPieceId(String pieceId) {
+        this.pieceId = pieceId;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public void setRotation(int rotation) {
+        this.rotation = rotation;
+    }
+
+    public boolean isFlipped() {
+        return flipped;
+    }
+
+    public void setFlipped(boolean flipped) {
+        this.flipped = flipped;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public void setX(int x) {
+        this.x = x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public void setY(int y) {
+        this.y = y;
+    }
+
+    public LocalDateTime getPlayedAt() {
+        return playedAt;
+    }
+
+    public void setPlayedAt(LocalDateTime playedAt) {
+        this.playedAt = playedAt;
+    }
+}
@@ -0,0 +1,16 @@
+package com.blokus.blokus.repository;
+
+import com.blokus.blokus.model.GameMove;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GameMoveRepository extends JpaRepository<GameMove, Long> {
+    /**
+     * Find the moves of a game in the order they were played
+     */
+    List<GameMove> findByGameIdOrderByPly(Long gameId);
+    int countByGameId(Long gameId);
+}
@@ -1,6 +1,7 @@
 package com.blokus.blokus.repository;
 
 import com.blokus.blokus.model.Game;
+import com.blokus.blokus.model.Game.GameMode;
 import com.blokus.blokus.model.Game.GameStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -20,4 +21,16 @@ public interface GameRepository extends JpaRepository<Game, Long> {
     List<Game> findGamesByUserId(Long userId);
     
     Optional<Game> findByName(String name);
-} 
\ No newline at end of file
+    
+    /**
+     * Loads a game with its players and their users in a single query
+     */
+    @Query("SELECT g FROM Game g LEFT JOIN FETCH g.players p LEFT JOIN FETCH p.user WHERE g.id = :id ORDER BY p.id")
+    Optional<Game> findWithPlayersById(Long id);
+
+    /**
+     * Loads all games of a status and mode with their players in a single query
+     */
+    @Query("SELECT DISTINCT g FROM Game g LEFT JOIN FETCH g.players p WHERE g.status = :status AND g.mode = :mode ORDER BY g.id, p.id")
+    List<Game> findWithPlayersByStatusAndMode(GameStatus status, GameMode mode);
+}
@@ -1,54 +1,144 @@
 package com.blokus.blokus.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.blokus.blokus.model.Game;
 import com.blokus.blokus.model.GameUser;
+import com.blokus.blokus.model.GameUser.PlayerColor;
 import com.blokus.blokus.model.Piece;
 import com.blokus.blokus.model.PieceFactory;
 import com.blokus.blokus.repository.GameUserRepository;
 import com.blokus.blokus.service.ai.AiBotMoveHandler;
+import com.blokus.blokus.service.ai.AiDifficulty;
 import com.blokus.blokus.service.ai.AiMovePlacementStrategy;
 import com.blokus.blokus.service.ai.AiMoveEvaluator;
-import com.blokus.blokus.service.ai.AiPieceTransformer;
+import com.blokus.blokus.service.ai.AiStrategy;
+import com.blokus.blokus.service.ai.AiTurn;
+import com.blokus.blokus.service.ai.EndgameSolver;
+import com.blokus.blokus.service.ai.MctsSearch;
+import com.blokus.blokus.service.ai.OpeningBook;
+import com.blokus.blokus.service.ai.ParanoidSearch;
+import com.blokus.blokus.service.ai.TranspositionTable;
+import com.blokus.blokus.service.ai.SearchBudget;
+import com.blokus.blokus.service.engine.FeatureMaps;
+import com.blokus.blokus.service.engine.GamePosition;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.timer.TurnClock;
 
 /**
  * Service for handling AI player moves in the Blokus game.
  * Implements basic AI strategy for bot players.
+ * <p>
+ * A bot move is split in three steps so the search never runs in the game's session:
+ * {@link #prepareAiTurn} snapshots the turn in the session, {@link #chooseAiMove} searches the
+ * snapshot on any thread, and {@link #applyAiMove} plays the result back in the session.
+ * <p>
+ * While a human thinks, the bot playing next can ponder: {@link #preparePonderTurns} predicts
+ * the human's likeliest moves and {@link #ponder} searches the bot's reply to each of them.
+ * When the human plays one of them, {@link #chooseAiMove} answers with the pondered move
+ * right away.
  */
 @Service
 public class AiPlayerService {
     
+    private static final Logger logger = LoggerFactory.getLogger(AiPlayerService.class);
+    
     private final GameLogicService gameLogicService;
     private final GameService gameService;
-    @SuppressWarnings("unused")
     private final GameWebSocketService gameWebSocketService;
     private final GameUserRepository gameUserRepository;
+    private final TurnClock turnClock;
+    private final AiDifficulty difficulty;
+    private final AiStrategy strategy;
     private final AiBotMoveHandler aiBotMoveHandler;
     private final AiMovePlacementStrategy movePlacementStrategy;
     private final AiMoveEvaluator moveEvaluator;
-    private final AiPieceTransformer pieceTransformer;
+    private final MctsSearch mctsSearch;
+    private final ParanoidSearch paranoidSearch;
+    private final OpeningBook openingBook;
+    private final EndgameSolver endgameSolver;
+    // Pondered replies of each game, by hash of the predicted position
+    private final Map<Long, Map<Long, Integer>> ponderedMoves = new ConcurrentHashMap<>();
+    private final LongAdder ponderHits = new LongAdder();
+    private final LongAdder ponderMisses = new LongAdder();
     
     public AiPlayerService(
             GameLogicService gameLogicService,
             GameService gameService,
             GameWebSocketService gameWebSocketService,
-            GameUserRepository gameUserRepository) {
+            GameUserRepository gameUserRepository,
+            TurnClock turnClock,
+            @Value("${blokus.ai.difficulty:MEDIUM}") AiDifficulty difficulty,
+            @Value("${blokus.ai.strategy:GREEDY}") AiStrategy strategy,
+            @Value("${blokus.ai.mcts.threads:0}") int mctsThreads,
+            @Value("${blokus.ai.greedy.threads:0}") int greedyThreads,
+            @Value("${blokus.ai.seed:0}") long seed,
+            @Value("${blokus.ai.paranoid.beam-width:12}") int paranoidBeamWidth,
+            @Value("${blokus.ai.transposition-table.entries:1048576}") int tableEntries,
+            @Value("${blokus.ai.opening-book:classpath:ai/opening-book.bin}") Resource openingBook,
+            @Value("${blokus.ai.endgame.max-cells:96}") int endgameMaxCells,
+            @Value("${blokus.ai.endgame.max-nodes:200000}") int endgameMaxNodes) {
         this.gameLogicService = gameLogicService;
         this.gameService = gameService;
         this.gameWebSocketService = gameWebSocketService;
         this.gameUserRepository = gameUserRepository;
+        this.turnClock = turnClock;
+        this.difficulty = difficulty;
+        this.strategy = strategy;
         
         // Initialize helper components
-        this.pieceTransformer = new AiPieceTransformer();
         this.moveEvaluator = new AiMoveEvaluator();
-        this.movePlacementStrategy = new AiMovePlacementStrategy(gameLogicService, pieceTransformer, moveEvaluator);
-        this.aiBotMoveHandler = new AiBotMoveHandler(gameLogicService, gameWebSocketService);
+        // Without a seed the bots vary from one run to the next
+        this.movePlacementStrategy = new AiMovePlacementStrategy(moveEvaluator,
+                greedyThreads > 0 ? greedyThreads : Runtime.getRuntime().availableProcessors(),
+                seed != 0 ? seed : new Random().nextLong());
+        this.aiBotMoveHandler = new AiBotMoveHandler();
+        this.mctsSearch = new MctsSearch(mctsThreads > 0 ? mctsThreads : Runtime.getRuntime().availableProcessors());
+        this.paranoidSearch = new ParanoidSearch(paranoidBeamWidth, new TranspositionTable(tableEntries));
+        this.openingBook = OpeningBook.load(openingBook);
+        this.endgameSolver = new EndgameSolver(endgameMaxCells, endgameMaxNodes);
+    }
+    
+    /**
+     * Drops the search trees kept for a game once it is over
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGameEnded(GameEndedEvent event) {
+        mctsSearch.forget(event.getGameId());
+        ponderedMoves.remove(event.getGameId());
+    }
+    
+    /**
+     * Playouts per second of the MCTS bots so far
+     */
+    public double getMctsPlayoutsPerSecond() {
+        return mctsSearch.playoutsPerSecond();
+    }
+    
+    /**
+     * Share of the bot turns after a pondered human turn that found their move pondered
+     */
+    public double getPonderHitRate() {
+        long hits = ponderHits.sum();
+        long total = hits + ponderMisses.sum();
+        return total == 0 ? 0 : hits / (double) total;
     }
     
     /**
@@ -60,56 +150,223 @@ public class AiPlayerService {
     }
     
     /**
-     * Makes a move for the AI player
+     * Makes a move for the AI player, all three steps on the calling thread
      */
     public boolean makeAiMove(Long gameId) {
+        AiTurn turn = prepareAiTurn(gameId);
+        return turn != null && applyAiMove(turn, chooseAiMove(turn));
+    }
+    
+    /**
+     * Snapshots the turn of the current player if it is a bot. Must run in the game's session.
+     * 
+     * @return The bot's turn, or null if the current player is not a bot
+     */
+    public AiTurn prepareAiTurn(Long gameId) {
         Game game = gameService.findById(gameId);
-        
-        if (game == null || !isCurrentPlayerBot(game)) {
-            return false;
+        if (game == null || game.getStatus() != Game.GameStatus.PLAYING) {
+            return null;
         }
         
-        GameUser aiPlayer = game.getCurrentPlayer();
+        GameUser aiPlayer = gameLogicService.getCurrentPlayer(gameId);
+        if (aiPlayer == null || !aiPlayer.isBot()) {
+            return null;
+        }
         String colorName = aiPlayer.getColor().name().toLowerCase();
         
+        // Ensure AI player has pieces available
+        initializePlayerPiecesIfNeeded(aiPlayer, colorName);
+        
+        return new AiTurn(gameId, aiPlayer.getId(),
+                aiPlayer.getUser() != null ? aiPlayer.getUser().getId() : null,
+                aiPlayer.getColor(),
+                gameLogicService.getPosition(gameId),
+                gameLogicService.getFeatureMaps(gameId),
+                gameUserRepository.findByGameId(gameId).stream().anyMatch(player -> !player.isBot()),
+                // In TIMED games the search must end before the turn clock
+                new SearchBudget(difficulty, turnClock.deadlineOf(gameId).orElse(null)));
+    }
+    
+    /**
+     * Chooses the bot's move from the snapshot of its turn. Only reads the snapshot,
+     * so it may run on any thread. The search runs within the turn's budget and returns
+     * the best move found when the budget runs out. Opening moves come from the book while
+     * it has them, and a move pondered for this very position is played without searching.
+     * 
+     * @return The chosen move, or {@link Move#PASS} if the bot cannot move or the search was cancelled
+     */
+    public int chooseAiMove(AiTurn turn) {
+        turn.getBudget().start();
+        if (turn.getBudget().isCancelled()) {
+            return Move.PASS;
+        }
+        
+        // The predictions are only valid until the next bot turn
+        Map<Long, Integer> pondered = ponderedMoves.remove(turn.getGameId());
+        if (pondered != null) {
+            Integer ponderedMove = pondered.get(turn.getPosition().getHash());
+            if (ponderedMove != null) {
+                ponderHits.increment();
+                logger.debug("AI player {} of game {} plays its pondered move", turn.getColorName(), turn.getGameId());
+                return ponderedMove;
+            }
+            ponderMisses.increment();
+        }
+        return searchMove(turn);
+    }
+    
+    /**
+     * Snapshots the turns of the bot playing after the current human, one for each of the
+     * human's likeliest moves by the move evaluator. Must run in the game's session.
+     * Only the searching bots (blue and yellow, after their first move) ponder.
+     * 
+     * @param replies Number of human moves to predict
+     * @return The predicted bot turns, likeliest first, or an empty list if no bot can ponder
+     */
+    public List<AiTurn> preparePonderTurns(Long gameId, int replies) {
+        Game game = gameService.findById(gameId);
+        if (replies <= 0 || game == null || game.getStatus() != Game.GameStatus.PLAYING) {
+            return List.of();
+        }
+        GameUser human = gameLogicService.getCurrentPlayer(gameId);
+        if (human == null || human.isBot()) {
+            return List.of();
+        }
+        PlayerColor nextColor = GamePosition.TURN_ORDER[
+                (GamePosition.turnIndexOf(human.getColor()) + 1) % GamePosition.TURN_ORDER.length];
+        GameUser bot = gameUserRepository.findByGameId(gameId).stream()
+                .filter(player -> player.getColor() == nextColor && player.isBot())
+                .findFirst().orElse(null);
+        GamePosition position = gameLogicService.getPosition(gameId);
+        if (bot == null || nextColor == PlayerColor.RED || nextColor == PlayerColor.GREEN
+                || !position.getBoard().hasPlaced(nextColor) || position.getInventory(nextColor) == 0) {
+            return List.of();
+        }
+        
+        int[] moves = position.listLegalMoves();
+        FeatureMaps features = gameLogicService.getFeatureMaps(gameId);
+        Integer[] order = new Integer[moves.length];
+        double[] scores = new double[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            order[i] = i;
+            scores[i] = moveEvaluator.evaluateMove(moves[i], position.getBoard(), features, human.getColor());
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        
+        List<AiTurn> turns = new ArrayList<>();
+        for (int i = 0; i < Math.min(replies, moves.length); i++) {
+            GamePosition predicted = position.copy();
+            predicted.make(moves[order[i]]);
+            turns.add(new AiTurn(gameId, bot.getId(),
+                    bot.getUser() != null ? bot.getUser().getId() : null,
+                    nextColor, predicted, new FeatureMaps(predicted.getBoard()), false,
+                    new SearchBudget(difficulty, null), true));
+        }
+        mctsSearch.startPondering(gameId, nextColor);
+        ponderedMoves.put(gameId, new ConcurrentHashMap<>());
+        return turns;
+    }
+    
+    /**
+     * Searches the bot's reply to a predicted human move and keeps it for {@link #chooseAiMove}.
+     * Only reads the snapshot, so it may run on any thread.
+     */
+    public void ponder(AiTurn turn) {
+        turn.getBudget().start();
+        if (turn.getBudget().isCancelled()) {
+            return;
+        }
+        int move = searchMove(turn);
+        Map<Long, Integer> pondered = ponderedMoves.get(turn.getGameId());
+        if (pondered != null && !turn.getBudget().isCancelled()) {
+            pondered.put(turn.getPosition().getHash(), move);
+        }
+    }
+    
+    /**
+     * Searches the move of a bot turn whose budget is started
+     */
+    private int searchMove(AiTurn turn) {
+        String colorName = turn.getColorName();
+        
+        int bookMove = openingBook.lookup(turn.getPosition());
+        if (bookMove != Move.PASS) {
+            logger.debug("AI player {} of game {} plays from the opening book", colorName, turn.getGameId());
+            return bookMove;
+        }
+        
         // Special handlers for red and green bots which have simpler strategies
-        if ("green".equalsIgnoreCase(colorName) || "red".equalsIgnoreCase(colorName)) {
-            return aiBotMoveHandler.handleBotMove(gameId, aiPlayer, colorName);
+        if ("green".equals(colorName) || "red".equals(colorName)) {
+            return aiBotMoveHandler.chooseBotMove(turn);
         }
         
         // Log the AI move to help with debugging
-        System.out.println("AI player " + colorName + " is making a move");
+        System.out.println("AI player " + colorName + " is choosing a move");
         
-        // Ensure AI player has pieces available
-        initializePlayerPiecesIfNeeded(aiPlayer, colorName);
-        
-        if (aiPlayer.getAvailablePieceIds().isEmpty()) {
+        if (turn.getPosition().getInventory(turn.getColor()) == 0) {
             System.out.println("AI player " + colorName + " has no more pieces to play.");
-            return false;
+            return Move.PASS;
         }
         
-        // Get all pieces for this color
-        List<Piece> allPieces = PieceFactory.createPieces(colorName);
-        
         // Check if this is the first move for this AI player
-        List<Map<String, Object>> placedPieces = getPlacedPiecesByColor(gameId, colorName);
-        boolean isFirstMove = placedPieces.isEmpty();
+        boolean isFirstMove = !turn.getPosition().getBoard().hasPlaced(turn.getColor());
         
-        // Get available pieces that haven't been placed yet
-        List<Piece> availablePieces = getAvailablePieces(allPieces, aiPlayer);
+        if (isFirstMove) {
+            return movePlacementStrategy.chooseFirstPiece(turn);
+        }
         
-        if (availablePieces.isEmpty()) {
-            System.out.println("No available pieces for AI player " + colorName);
-            return false;
+        // Late in the game the bot's own regions may be small enough to be solved exactly
+        OptionalInt endgameMove = endgameSolver.solve(turn);
+        if (endgameMove.isPresent()) {
+            logger.debug("AI player {} of game {} plays its solved endgame", colorName, turn.getGameId());
+            return endgameMove.getAsInt();
         }
         
-        if (isFirstMove) {
-            return movePlacementStrategy.placeFirstPiece(gameId, aiPlayer, colorName, availablePieces);
+        if (strategy == AiStrategy.MCTS) {
+            return mctsSearch.chooseMove(turn);
+        } else if (strategy == AiStrategy.PARANOID) {
+            return paranoidSearch.chooseMove(turn);
         } else {
-            return movePlacementStrategy.placeSubsequentPiece(gameId, colorName, availablePieces, placedPieces);
+            return movePlacementStrategy.chooseSubsequentPiece(turn);
         }
     }
     
+    /**
+     * Plays a move chosen for a bot's turn and notifies the clients. Must run in the game's session.
+     * 
+     * @return true if the move was placed, false if it was a pass, the turn moved on or the placement failed
+     */
+    public boolean applyAiMove(AiTurn turn, int move) {
+        if (move == Move.PASS) {
+            return false;
+        }
+        Long gameId = turn.getGameId();
+        GameUser currentPlayer = gameLogicService.getCurrentPlayer(gameId);
+        if (currentPlayer == null || !currentPlayer.getId().equals(turn.getPlayerId())) {
+            System.out.println("Bot " + turn.getColorName() + " is no longer the current player");
+            return false;
+        }
+        
+        String colorName = turn.getColorName();
+        String pieceId = String.valueOf(Move.pieceId(move));
+        int x = Move.x(move);
+        int y = Move.y(move);
+        int rotation = Move.rotation(move);
+        boolean flipped = Move.flipped(move);
+        
+        boolean placed = gameLogicService.placePiece(gameId, turn.getUserId(), pieceId, colorName, x, y, rotation, flipped);
+        if (!placed) {
+            System.out.println("Bot " + colorName + " failed to place piece " + pieceId + " at (" + x + "," + y + ")");
+            return false;
+        }
+        System.out.println("Bot " + colorName + " placed piece: " + Move.toString(move));
+        
+        // Notify clients via WebSocket with PIECE_PLACED event
+        gameWebSocketService.sendPiecePlacedUpdate(gameId, pieceId, colorName, x, y, rotation, flipped,
+                "Bot " + Character.toUpperCase(colorName.charAt(0)) + colorName.substring(1));
+        return true;
+    }
+    
     /**
      * Initialize player pieces if needed
      */
@@ -127,26 +384,4 @@ public class AiPlayerService {
             gameUserRepository.save(aiPlayer);
         }
     }
-    
-    /**
-     * Get a list of available pieces for a player
-     */
-    private List<Piece> getAvailablePieces(List<Piece> allPieces, GameUser player) {
-        return allPieces.stream()
-            .filter(piece -> player.getAvailablePieceIds().contains(String.valueOf(piece.getId())))
-            .collect(Collectors.toList());
-    }
-    
-    /**
-     * Get all pieces placed by a specific color
-     */
-    private List<Map<String, Object>> getPlacedPiecesByColor(Long gameId, String color) {
-        // Get all placed pieces for the game
-        List<Map<String, Object>> allPlacedPieces = gameLogicService.getPlacedPieces(gameId);
-        
-        // Filter to only pieces of the specified color
-        return allPlacedPieces.stream()
-                .filter(piece -> color.equalsIgnoreCase((String) piece.get("pieceColor")))
-                .collect(Collectors.toList());
-    }
-} 
\ No newline at end of file
+}
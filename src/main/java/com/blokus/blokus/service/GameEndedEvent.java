@@ -0,0 +1,18 @@
+package com.blokus.blokus.service;
+
+/**
+ * Application event published when a game finished or was deleted.
+ * Lets the AI runner stop the searches still running for it.
+ */
+public class GameEndedEvent {
+
+    private final Long gameId;
+
+    public GameEndedEvent(Long gameId) {
+        this.gameId = gameId;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+}
@@ -2,8 +2,11 @@ package com.blokus.blokus.service;
 
 import com.blokus.blokus.model.Game;
 import com.blokus.blokus.model.GameUser;
+import com.blokus.blokus.service.engine.FeatureMaps;
+import com.blokus.blokus.service.engine.GamePosition;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
 
 /**
  * Service for game logic operations.
@@ -63,6 +66,24 @@ public interface GameLogicService {
     boolean placePiece(Long gameId, Long userId, String pieceId, String pieceColor, 
                        int x, int y, Integer rotation, Boolean flipped);
 
+    /**
+     * Submit a human player's move as one atomic command: validate and place the piece,
+     * advance the turn past players who cannot move, and finish and score the game if
+     * nobody can move anymore. Everything runs in one transaction on the game loaded once.
+     * 
+     * @param gameId The game ID
+     * @param username The username of the player submitting the move
+     * @param pieceId The ID of the piece to place
+     * @param pieceColor The color of the piece
+     * @param x The x-coordinate on the board
+     * @param y The y-coordinate on the board
+     * @param rotation The rotation of the piece (0, 90, 180, 270)
+     * @param flipped Whether the piece is flipped
+     * @return The combined result, rejected with an error message if the move is invalid
+     */
+    MoveResult submitMove(Long gameId, String username, String pieceId, String pieceColor,
+                          int x, int y, int rotation, boolean flipped);
+
     /**
      * Get all pieces that have been placed in the game
      * 
@@ -79,6 +100,63 @@ public interface GameLogicService {
      */
     boolean canPlayerMove(GameUser player, Long gameId);
 
+    /**
+     * List every legal move of a player with their remaining pieces.
+     * Moves are packed ints, decoded with {@link com.blokus.blokus.service.engine.Move}.
+     * @param gameId The game ID
+     * @param player The GameUser whose moves are generated
+     * @return The legal moves, empty if the player cannot move
+     */
+    int[] listLegalMoves(Long gameId, GameUser player);
+
+    /**
+     * Count the legal moves of a player with their remaining pieces
+     * @param gameId The game ID
+     * @param player The GameUser whose moves are counted
+     * @return The number of legal moves
+     */
+    int countLegalMoves(Long gameId, GameUser player);
+
+    /**
+     * Stream every legal move of a player to a consumer, without building a list
+     * @param gameId The game ID
+     * @param player The GameUser whose moves are generated
+     * @param consumer Receives each packed move
+     */
+    void forEachLegalMove(Long gameId, GameUser player, IntConsumer consumer);
+
+    /**
+     * Get a snapshot of the game as a mutable position, for AI search with make/unmake.
+     * The position is independent: changing it does not affect the game.
+     * @param gameId The game ID
+     * @return The current position, with the current player to move
+     */
+    GamePosition getPosition(Long gameId);
+
+    /**
+     * Get a cheap version of the game state for cache keys: the Zobrist hash of the game's board,
+     * read from memory. It changes with every placement.
+     * @param gameId The game ID
+     * @return The hash of the board
+     */
+    long getStateHash(Long gameId);
+
+    /**
+     * Get the game's board in the compact {@link com.blokus.blokus.service.engine.BoardCodec} format,
+     * encoded from the board kept in memory. Call it from the game's session.
+     * @param gameId The game ID
+     * @return The encoded board
+     */
+    byte[] encodeBoard(Long gameId);
+
+    /**
+     * Get a snapshot of the territory features of the game's board (anchors, reachability,
+     * contested cells), kept up to date with every placement
+     * @param gameId The game ID
+     * @return An independent copy of the features
+     */
+    FeatureMaps getFeatureMaps(Long gameId);
+
     // Methods removed: 
     // initializePieces, initializePlayerPieces, isValidMove, placePiece, 
     // getAvailablePieces, getAllPieces, canPlayerMove, getStartCorner
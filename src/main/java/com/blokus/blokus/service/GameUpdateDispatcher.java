@@ -0,0 +1,61 @@
+package com.blokus.blokus.service;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.blokus.blokus.service.session.ShardedExecutor;
+
+/**
+ * Sends game updates to the STOMP broker after the transaction that produced them has
+ * committed, so clients never see state that is rolled back and message conversion does
+ * not extend transactions. Updates published outside a transaction are sent right away.
+ * <p>
+ * Sending happens on a small bounded pool of lanes keyed by game, which keeps the updates
+ * of one game in order. If a lane is full the update is sent by the publishing thread,
+ * possibly ahead of updates still queued for the same game.
+ */
+@Component
+public class GameUpdateDispatcher implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameUpdateDispatcher.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ShardedExecutor lanes;
+
+    public GameUpdateDispatcher(SimpMessagingTemplate messagingTemplate,
+                                @Value("${blokus.updates.lanes:2}") int laneCount,
+                                @Value("${blokus.updates.queue-capacity:1000}") int queueCapacity) {
+        this.messagingTemplate = messagingTemplate;
+        this.lanes = new ShardedExecutor("game-updates", laneCount, queueCapacity);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGameUpdate(GameUpdateEvent event) {
+        try {
+            lanes.execute(event.getGameId(), () -> send(event));
+        } catch (RejectedExecutionException e) {
+            logger.warn("[WebSocket] Update lane full for game {}, sending inline", event.getGameId());
+            send(event);
+        }
+    }
+
+    private void send(GameUpdateEvent event) {
+        messagingTemplate.convertAndSend("/topic/games/" + event.getGameId(), event.getUpdate());
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (!lanes.shutdown(5, TimeUnit.SECONDS)) {
+            logger.warn("[WebSocket] Pending game updates were not all sent before shutdown");
+        }
+    }
+}
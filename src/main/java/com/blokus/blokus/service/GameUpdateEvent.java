@@ -0,0 +1,25 @@
+package com.blokus.blokus.service;
+
+import com.blokus.blokus.dto.GameUpdateDTO;
+
+/**
+ * Application event carrying a game update for the clients of one game.
+ * Published by {@link GameWebSocketService} and delivered by {@link GameUpdateDispatcher}
+ * once the surrounding transaction, if any, has committed.
+ */
+public class GameUpdateEvent {
+
+    private final GameUpdateDTO update;
+
+    public GameUpdateEvent(GameUpdateDTO update) {
+        this.update = update;
+    }
+
+    public Long getGameId() {
+        return update.getGameId();
+    }
+
+    public GameUpdateDTO getUpdate() {
+        return update;
+    }
+}
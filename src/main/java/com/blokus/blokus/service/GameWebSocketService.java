@@ -1,13 +1,19 @@
 package com.blokus.blokus.service;
 
+import java.util.HashMap;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.blokus.blokus.dto.GameUpdateDTO;
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.engine.MoveCodec;
+import com.blokus.blokus.service.engine.PieceOrientations;
+import com.blokus.blokus.service.engine.PieceOrientations.Orientation;
 
 /**
  * Service for handling WebSocket messaging for game updates
@@ -17,14 +23,16 @@ public class GameWebSocketService {
     
     private static final Logger logger = LoggerFactory.getLogger(GameWebSocketService.class);
     
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public GameWebSocketService(SimpMessagingTemplate messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+    public GameWebSocketService(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
     }
     
     /**
-     * Send a game update to all clients subscribed to the game channel
+     * Send a game update to all clients subscribed to the game channel.
+     * The update is published as a {@link GameUpdateEvent} and only reaches the clients
+     * once the current transaction, if any, has committed (see {@link GameUpdateDispatcher}).
      * 
      * @param gameId The ID of the game
      * @param type The type of the update (e.g., "PIECE_PLACED", "NEXT_TURN")
@@ -34,7 +42,7 @@ public class GameWebSocketService {
     public void sendGameUpdate(Long gameId, String type, String message, Map<String, Object> data) {
         GameUpdateDTO update = new GameUpdateDTO(gameId, type, message, data);
         logger.info("[WebSocket] Sending update: type={}, message={}, data={}", type, message, data);
-        messagingTemplate.convertAndSend("/topic/games/" + gameId, update);
+        eventPublisher.publishEvent(new GameUpdateEvent(update));
     }
     
     /**
@@ -66,6 +74,10 @@ public class GameWebSocketService {
     public void sendPiecePlacedUpdate(Long gameId, String pieceId, String pieceColor, 
                                       int x, int y, int rotation, boolean flipped,
                                       String playerUsername) {
+        // The same move as a single MoveCodec code, -1 if the piece is unknown
+        Orientation orientation = PieceOrientations.get(pieceId, rotation, flipped);
+        int moveCode = orientation == null ? -1
+                : MoveCodec.encode(PlayerColor.valueOf(pieceColor.toUpperCase()), Move.of(orientation, x, y));
         Map<String, Object> data = Map.of(
             "pieceId", pieceId,
             "pieceColor", pieceColor,
@@ -73,6 +85,7 @@ public class GameWebSocketService {
             "y", y,
             "rotation", rotation,
             "flipped", flipped,
+            "move", moveCode,
             "playerUsername", playerUsername
         );
         
@@ -80,6 +93,43 @@ public class GameWebSocketService {
                       playerUsername + " placed a piece on the board", data);
     }
     
+    /**
+     * Send the combined result of a submitted move in a single message: the placement,
+     * the skipped players, and the next turn or the game over data
+     * 
+     * @param gameId The ID of the game
+     * @param result The accepted move result
+     */
+    public void sendMoveResult(Long gameId, MoveResult result) {
+        Map<String, Object> placement = new HashMap<>();
+        placement.put("pieceId", result.getPieceId());
+        placement.put("pieceColor", result.getPieceColor());
+        placement.put("x", result.getX());
+        placement.put("y", result.getY());
+        placement.put("rotation", result.getRotation());
+        placement.put("flipped", result.isFlipped());
+        placement.put("move", result.getMoveCode());
+        placement.put("playerUsername", result.getPlayerName());
+        
+        Map<String, Object> data = new HashMap<>();
+        data.put("placement", placement);
+        data.put("skipped", result.getSkippedPlayers());
+        if (result.isGameOver()) {
+            data.put("gameOver", Map.of(
+                "winnerUsername", result.getWinnerName(),
+                "scores", result.getScores()
+            ));
+        } else {
+            data.put("nextTurn", Map.of(
+                "nextPlayerColor", result.getNextPlayerColor(),
+                "nextPlayerUsername", result.getNextPlayerName()
+            ));
+        }
+        
+        sendGameUpdate(gameId, "MOVE_RESULT", 
+                      result.getPlayerName() + " placed a piece on the board", data);
+    }
+    
     /**
      * Send a next turn update
      * 
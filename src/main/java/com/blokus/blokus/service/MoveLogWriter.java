@@ -0,0 +1,236 @@
+package com.blokus.blokus.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.blokus.blokus.model.GameMove;
+
+/**
+ * Write-behind persistence of the move log.
+ * Moves are queued by the game logic and a background thread stores them with JDBC batch
+ * inserts, grouping the moves of every game, so placing a piece never waits for the database.
+ * Work that needs a game's moves in the database can wait for them with {@link #whenWritten}.
+ * <p>
+ * A failed batch is retried with a growing delay, then written row by row so that one bad
+ * move does not lose the others. The queue is bounded: when it is full, the move is written
+ * on the caller's thread, which slows the games down instead of filling the heap.
+ */
+@Service
+public class MoveLogWriter implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MoveLogWriter.class);
+
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long POLL_TIMEOUT_MS = 200;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 100;
+    private static final String INSERT_SQL = "INSERT INTO game_moves "
+            + "(game_id, ply, color, piece_id, rotation, flipped, x, y, played_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<GameMove> pending;
+    private final Thread worker;
+    // Moves queued or being written by game, and the actions waiting for them; guarded by inFlight
+    private final Map<Long, Integer> inFlight = new HashMap<>();
+    private final Map<Long, List<Runnable>> waiting = new HashMap<>();
+    private volatile boolean running = true;
+
+    public MoveLogWriter(JdbcTemplate jdbcTemplate,
+                         @Value("${blokus.move-log.queue-capacity:10000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = new Thread(this::run, "move-log-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues a move to be persisted. Returns immediately, unless the queue is full.
+     */
+    public void append(GameMove move) {
+        synchronized (inFlight) {
+            inFlight.merge(move.getGameId(), 1, Integer::sum);
+        }
+        if (!pending.offer(move)) {
+            logger.warn("Move log queue full, writing move {} of game {} inline", move.getPly(), move.getGameId());
+            List<GameMove> single = List.of(move);
+            write(single);
+            done(single);
+        }
+    }
+
+    /**
+     * Runs an action once every move of a game queued so far has been written, or given up on.
+     * It runs right away if none is pending, and otherwise on the writer thread, so it must be
+     * short.
+     */
+    public void whenWritten(Long gameId, Runnable action) {
+        synchronized (inFlight) {
+            if (inFlight.containsKey(gameId)) {
+                waiting.computeIfAbsent(gameId, id -> new ArrayList<>()).add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    private void run() {
+        List<GameMove> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running) {
+            try {
+                GameMove first = pending.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, MAX_BATCH_SIZE - 1);
+                write(batch);
+                done(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes a batch, retrying it, then isolating the moves that cannot be written
+     */
+    private void write(List<GameMove> batch) {
+        try {
+            insertWithRetry(batch);
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                logFailure(batch.get(0), e);
+                return;
+            }
+            logger.warn("Failed to persist a batch of {} moves, writing them one by one", batch.size(), e);
+        }
+        for (GameMove move : batch) {
+            try {
+                insert(List.of(move));
+            } catch (RuntimeException e) {
+                logFailure(move, e);
+            }
+        }
+    }
+
+    /**
+     * Inserts moves, retrying with a doubling delay while the failure may be temporary.
+     * Constraint violations are not retried: the same rows would fail again.
+     */
+    private void insertWithRetry(List<GameMove> moves) {
+        long delay = RETRY_DELAY_MS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                insert(moves);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                throw e;
+            } catch (DataAccessException e) {
+                if (attempt == MAX_ATTEMPTS || !pause(delay)) {
+                    throw e;
+                }
+                logger.warn("Failed to persist {} moves (attempt {}), retrying in {} ms", moves.size(), attempt, delay);
+                delay *= 2;
+            }
+        }
+    }
+
+    private void insert(List<GameMove> moves) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, moves, moves.size(), (statement, move) -> {
+            statement.setLong(1, move.getGameId());
+            statement.setInt(2, move.getPly());
+            statement.setString(3, move.getColor().name());
+            statement.setString(4, move.getPieceId());
+            statement.setInt(5, move.getRotation());
+            statement.setBoolean(6, move.isFlipped());
+            statement.setInt(7, move.getX());
+            statement.setInt(8, move.getY());
+            statement.setTimestamp(9, Timestamp.valueOf(move.getPlayedAt()));
+        });
+    }
+
+    private static void logFailure(GameMove move, RuntimeException e) {
+        if (e instanceof DuplicateKeyException) {
+            // Stored by an earlier attempt of its batch
+            logger.debug("Move {} of game {} is already persisted", move.getPly(), move.getGameId());
+        } else {
+            logger.error("Failed to persist move {} of game {}", move.getPly(), move.getGameId(), e);
+        }
+    }
+
+    /**
+     * @return false if the thread was interrupted, to stop retrying
+     */
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Counts the moves of a batch as written, and runs the actions no longer waiting for any
+     */
+    private void done(List<GameMove> batch) {
+        List<Runnable> ready = new ArrayList<>();
+        synchronized (inFlight) {
+            for (GameMove move : batch) {
+                Long gameId = move.getGameId();
+                if (inFlight.merge(gameId, -1, Integer::sum) == 0) {
+                    inFlight.remove(gameId);
+                    List<Runnable> actions = waiting.remove(gameId);
+                    if (actions != null) {
+                        ready.addAll(actions);
+                    }
+                }
+            }
+        }
+        for (Runnable action : ready) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                logger.error("Action waiting for the move log failed", e);
+            }
+        }
+    }
+
+    /**
+     * Stops the background thread and writes what is still queued
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        // The worker notices within one poll timeout, after finishing the batch in progress
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        List<GameMove> remaining = new ArrayList<>();
+        pending.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+            done(remaining);
+        }
+    }
+}
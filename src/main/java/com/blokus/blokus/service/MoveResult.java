@@ -0,0 +1,146 @@
+package com.blokus.blokus.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a move submitted with {@link GameLogicService#submitMove}: the placement itself,
+ * the players skipped because they cannot move, and either the next player or the final scores.
+ */
+public class MoveResult {
+
+    private final boolean accepted;
+    private final String error;
+
+    private String pieceId;
+    private String pieceColor;
+    private int x;
+    private int y;
+    private int rotation;
+    private boolean flipped;
+    private int moveCode;
+    private String playerName;
+
+    private final List<String> skippedPlayers = new ArrayList<>();
+
+    private String nextPlayerColor;
+    private String nextPlayerName;
+    private boolean nextPlayerBot;
+
+    private boolean gameOver;
+    private String winnerName;
+    private Map<String, Integer> scores;
+
+    private MoveResult(boolean accepted, String error) {
+        this.accepted = accepted;
+        this.error = error;
+    }
+
+    public static MoveResult rejected(String error) {
+        return new MoveResult(false, error);
+    }
+
+    /**
+     * Creates the result of an accepted placement
+     *
+     * @param moveCode The move as a {@link com.blokus.blokus.service.engine.MoveCodec} code
+     */
+    public static MoveResult placed(String pieceId, String pieceColor, int x, int y, int rotation, boolean flipped,
+                                    int moveCode, String playerName) {
+        MoveResult result = new MoveResult(true, null);
+        result.pieceId = pieceId;
+        result.pieceColor = pieceColor;
+        result.x = x;
+        result.y = y;
+        result.rotation = rotation;
+        result.flipped = flipped;
+        result.moveCode = moveCode;
+        result.playerName = playerName;
+        return result;
+    }
+
+    public void addSkippedPlayer(String name) {
+        skippedPlayers.add(name);
+    }
+
+    public void setNextPlayer(String color, String name, boolean bot) {
+        this.nextPlayerColor = color;
+        this.nextPlayerName = name;
+        this.nextPlayerBot = bot;
+    }
+
+    public void setGameOver(String winnerName, Map<String, Integer> scores) {
+        this.gameOver = true;
+        this.winnerName = winnerName;
+        this.scores = scores;
+    }
+
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getPieceId() {
+        return pieceId;
+    }
+
+    public String getPieceColor() {
+        return pieceColor;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public boolean isFlipped() {
+        return flipped;
+    }
+
+    public int getMoveCode() {
+        return moveCode;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public List<String> getSkippedPlayers() {
+        return skippedPlayers;
+    }
+
+    public String getNextPlayerColor() {
+        return nextPlayerColor;
+    }
+
+    public String getNextPlayerName() {
+        return nextPlayerName;
+    }
+
+    public boolean isNextPlayerBot() {
+        return nextPlayerBot;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public String getWinnerName() {
+        return winnerName;
+    }
+
+    public Map<String, Integer> getScores() {
+        return scores;
+    }
+}
@@ -0,0 +1,24 @@
+package com.blokus.blokus.service;
+
+/**
+ * Application event published when the server-side turn clock ended a turn and the game moved on.
+ * Lets the AI runner start the bots when the turn passed to one of them.
+ */
+public class TurnTimedOutEvent {
+
+    private final Long gameId;
+    private final boolean nextPlayerBot;
+
+    public TurnTimedOutEvent(Long gameId, boolean nextPlayerBot) {
+        this.gameId = gameId;
+        this.nextPlayerBot = nextPlayerBot;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public boolean isNextPlayerBot() {
+        return nextPlayerBot;
+    }
+}
@@ -0,0 +1,28 @@
+package com.blokus.blokus.service.ai;
+
+/**
+ * Difficulty tiers of the bots, as the compute budget of one search. A search stops at
+ * whichever limit it reaches first and plays the best move found so far.
+ */
+public enum AiDifficulty {
+
+    EASY(100, 500),
+    MEDIUM(500, 5_000),
+    HARD(2_000, 100_000);
+
+    private final long timeMillis;
+    private final long maxNodes;
+
+    AiDifficulty(long timeMillis, long maxNodes) {
+        this.timeMillis = timeMillis;
+        this.maxNodes = maxNodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+}
@@ -1,599 +1,208 @@
 package com.blokus.blokus.service.ai;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
-import com.blokus.blokus.model.GameUser;
-import com.blokus.blokus.model.Piece;
-import com.blokus.blokus.service.GameLogicService;
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.BitBoard;
+import com.blokus.blokus.service.engine.BoardState;
+import com.blokus.blokus.service.engine.FeatureMaps;
+import com.blokus.blokus.service.engine.LegalMoveGenerator;
+import com.blokus.blokus.service.engine.Move;
 
 /**
  * Implements strategies for AI piece placement.
  * Handles different scenarios like first move, subsequent moves, etc.
+ * Candidate moves come from the legal move generator of the turn's position; the strategies
+ * only choose, the move is played by {@link com.blokus.blokus.service.AiPlayerService}.
+ * <p>
+ * Subsequent moves are generated and scored on a work-stealing pool, split by anchor: each
+ * task keeps only its best few moves and the tasks' bests are merged. Ties are broken by
+ * move, and the choice among the best moves is drawn from the seed and the position, so
+ * a fixed seed gives the same moves whatever the threads do (as long as the budget lets
+ * every move be scored).
  */
 public class AiMovePlacementStrategy {
     
-    private final GameLogicService gameLogicService;
-    private final AiPieceTransformer pieceTransformer;
-    private final AiMoveEvaluator moveEvaluator;
-    private final Random random;
-    
-    // Board size constants
-    private static final int BOARD_SIZE = 20;
+    // Number of best moves the bot chooses from
+    private static final int TOP_CHOICES = 3;
+    // Anchors generated by one task of the pool
+    private static final int ANCHORS_PER_TASK = 2;
     
-    // Starting corner positions for each color (standard Blokus rules)
-    private static final int[][] STARTING_CORNERS = {
-        {0, 0},      // BLUE: top-left
-        {19, 0},     // YELLOW: top-right
-        {0, 19},     // RED: bottom-left
-        {19, 19}     // GREEN: bottom-right
-    };
+    private final AiMoveEvaluator moveEvaluator;
+    private final ForkJoinPool pool;
+    private final long seed;
     
-    public AiMovePlacementStrategy(GameLogicService gameLogicService, 
-                                 AiPieceTransformer pieceTransformer,
-                                 AiMoveEvaluator moveEvaluator) {
-        this.gameLogicService = gameLogicService;
-        this.pieceTransformer = pieceTransformer;
+    /**
+     * @param threads Number of threads scoring the moves of one turn
+     * @param seed    Seed of the choice among the best moves
+     */
+    public AiMovePlacementStrategy(AiMoveEvaluator moveEvaluator, int threads, long seed) {
         this.moveEvaluator = moveEvaluator;
-        this.random = new Random();
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.seed = seed;
     }
     
     /**
-     * Places the first piece for an AI player in their starting corner.
+     * Chooses the first piece for an AI player in their starting corner.
      * 
-     * @param gameId Game ID
-     * @param aiPlayer The AI player
-     * @param colorName Color of the AI player
-     * @param availablePieces List of available pieces to place
-     * @return true if placement successful, false otherwise
+     * @param turn The bot's turn
+     * @return The chosen move, or {@link Move#PASS} if there is none
      */
-    public boolean placeFirstPiece(Long gameId, GameUser aiPlayer, String colorName, 
-                                 List<Piece> availablePieces) {
-        System.out.println("AI " + colorName + " placing first piece");
+    public int chooseFirstPiece(AiTurn turn) {
+        System.out.println("AI " + turn.getColorName() + " choosing first piece");
         
-        // Get the starting corner for this color
-        int[] corner = getStartingCornerForColor(colorName);
-        if (corner == null) {
-            System.out.println("Error: Invalid color name: " + colorName);
-            return false;
+        // Every legal first move covers the starting corner
+        int[] legalMoves = turn.getPosition().listLegalMoves();
+        if (legalMoves.length == 0) {
+            System.out.println("No first piece found for AI " + turn.getColorName());
+            return Move.PASS;
         }
         
-        int cornerX = corner[0];
-        int cornerY = corner[1];
-        
-        System.out.println("Starting corner for " + colorName + ": (" + cornerX + "," + cornerY + ")");
-        
-        // Sort pieces by size (larger first for better strategy)
-        List<Piece> sortedPieces = new ArrayList<>(availablePieces);
-        sortedPieces.sort(Comparator.comparingInt(p -> -countCells(p.getShape())));
-        
-        // Try to place each piece, starting with the largest ones
-        for (Piece piece : sortedPieces) {
-            // For the first piece, try all possible orientations to find one that fits in the corner
-            boolean[][][] transformations = pieceTransformer.getAllTransformations(piece);
-            
-            for (int i = 0; i < transformations.length; i++) {
-                boolean[][] shape = transformations[i];
-                int rotation = i % 4;  // 0, 1, 2, or 3
-                boolean flipped = i >= 4;  // true for transformations[4] through transformations[7]
-                
-                // Adjust placement to make sure one cell occupies the corner
-                int[] placementOffsets = findPlacementOffsetsForCorner(shape, cornerX, cornerY);
-                
-                if (placementOffsets != null) {
-                    int x = placementOffsets[0];
-                    int y = placementOffsets[1];
-                    
-                    // Try to place the piece
-                    boolean placed = gameLogicService.placePiece(
-                            gameId, 
-                            aiPlayer.getUser().getId(), 
-                            String.valueOf(piece.getId()), 
-                            colorName, 
-                            x, y, 
-                            rotation, 
-                            flipped);
-                    
-                    if (placed) {
-                        System.out.println("First piece placed successfully: " + piece.getId() + 
-                                           " at (" + x + "," + y + ") rotation=" + rotation + 
-                                           " flipped=" + flipped);
-                        
-                        // Update player's available pieces
-                        aiPlayer.getAvailablePieceIds().remove(String.valueOf(piece.getId()));
-                        
-                        return true;
-                    }
-                }
+        // Prefer the largest piece for better strategy
+        int selectedMove = legalMoves[0];
+        for (int move : legalMoves) {
+            if (Move.size(move) > Move.size(selectedMove)) {
+                selectedMove = move;
             }
         }
-        
-        System.out.println("Failed to place first piece for AI " + colorName);
-        return false;
+        return selectedMove;
     }
     
     /**
-     * Places a subsequent piece for an AI player.
-     * Uses diagonal corners of already placed pieces.
+     * Chooses a subsequent piece for an AI player.
+     * Scores the legal moves until the turn's budget runs out and picks one of the best.
      * 
-     * @param gameId Game ID
-     * @param colorName Color of the AI player
-     * @param availablePieces List of available pieces to place
-     * @param placedPieces List of pieces already placed by this player
-     * @return true if placement successful, false otherwise
+     * @param turn The bot's turn
+     * @return The chosen move, or {@link Move#PASS} if there is none
      */
-    public boolean placeSubsequentPiece(Long gameId, String colorName, 
-                                      List<Piece> availablePieces, 
-                                      List<Map<String, Object>> placedPieces) {
-        System.out.println("AI " + colorName + " placing subsequent piece");
+    public int chooseSubsequentPiece(AiTurn turn) {
+        System.out.println("AI " + turn.getColorName() + " choosing subsequent piece");
         
-        // If no pieces have been placed yet by this player, should use placeFirstPiece instead
-        if (placedPieces.isEmpty()) {
-            System.out.println("Error: No placed pieces found for " + colorName);
-            return false;
-        }
+        // Find the best valid moves, best first
+        TopMoves bestMoves = findBestMoves(turn);
         
-        // Sort available pieces by size (larger first for better strategy)
-        List<Piece> sortedPieces = new ArrayList<>(availablePieces);
-        sortedPieces.sort(Comparator.comparingInt(p -> -countCells(p.getShape())));
-        
-        // Find all valid moves with scores
-        List<AiMove> validMoves = findAllValidMoves(gameId, colorName, sortedPieces, placedPieces);
-        
-        if (validMoves.isEmpty()) {
-            System.out.println("No valid moves found for AI " + colorName);
-            return false;
+        if (bestMoves.size() == 0) {
+            System.out.println("No valid moves found for AI " + turn.getColorName());
+            return Move.PASS;
         }
         
-        // Sort moves by score (highest first)
-        validMoves.sort(Comparator.comparingDouble(AiMove::getScore).reversed());
-        
         // Get the best move, with a small chance of choosing another high-scoring move for variety
-        AiMove selectedMove;
-        if (random.nextDouble() < 0.8 || validMoves.size() == 1) {
+        Random random = new Random(seed ^ turn.getPosition().getHash());
+        if (random.nextDouble() < 0.8 || bestMoves.size() == 1) {
             // 80% of the time, choose the highest-scoring move
-            selectedMove = validMoves.get(0);
-        } else {
-            // 20% of the time, choose randomly from the top 3 moves (or fewer if not enough)
-            int maxIndex = Math.min(3, validMoves.size()) - 1;
-            selectedMove = validMoves.get(random.nextInt(maxIndex + 1));
-        }
-        
-        // Place the selected piece
-        boolean placed = gameLogicService.placePiece(
-                gameId,
-                null, // userId is null for AI
-                String.valueOf(selectedMove.getPiece().getId()),
-                colorName,
-                selectedMove.getX(),
-                selectedMove.getY(),
-                selectedMove.getRotation(),
-                selectedMove.isFlipped());
-        
-        if (placed) {
-            System.out.println("Piece placed successfully: " + selectedMove.getPiece().getId() + 
-                               " at (" + selectedMove.getX() + "," + selectedMove.getY() + ") " +
-                               "rotation=" + selectedMove.getRotation() + 
-                               " flipped=" + selectedMove.isFlipped());
-            return true;
-        } else {
-            System.out.println("Failed to place piece: " + selectedMove.getPiece().getId());
-            return false;
+            return bestMoves.move(0);
         }
+        // 20% of the time, choose randomly from the top 3 moves (or fewer if not enough)
+        return bestMoves.move(random.nextInt(bestMoves.size()));
     }
     
     /**
-     * Finds all valid moves for the AI player and scores them
+     * Finds and scores the valid moves of the AI player, as many as the budget allows, and keeps
+     * the best ones. At least one move is scored so the bot never passes while it can play.
      */
-    private List<AiMove> findAllValidMoves(Long gameId, String colorName, 
-                                         List<Piece> availablePieces, 
-                                         List<Map<String, Object>> placedPieces) {
-        List<AiMove> validMoves = new ArrayList<>();
-        
-        // Get all placed pieces (by all players) to check for valid placements
-        List<Map<String, Object>> allPlacedPieces = gameLogicService.getPlacedPieces(gameId);
-        
-        // Extract diagonal corners from this player's previously placed pieces
-        List<int[]> diagonalCorners = extractDiagonalCorners(placedPieces);
-        
-        for (Piece piece : availablePieces) {
-            boolean[][][] transformations = pieceTransformer.getAllTransformations(piece);
-            
-            for (int i = 0; i < transformations.length; i++) {
-                boolean[][] shape = transformations[i];
-                int rotation = i % 4;
-                boolean flipped = i >= 4;
-                
-                // Try to place the piece at each diagonal corner
-                for (int[] corner : diagonalCorners) {
-                    int cornerX = corner[0];
-                    int cornerY = corner[1];
-                    
-                    // Find all possible ways to place this piece touching this corner diagonally
-                    List<int[]> placementPositions = findDiagonalPlacementPositions(shape, cornerX, cornerY);
-                    
-                    for (int[] position : placementPositions) {
-                        int x = position[0];
-                        int y = position[1];
-                        
-                        // Check if this is a valid placement
-                        if (isValidPlacement(shape, x, y, colorName, allPlacedPieces)) {
-                            // Evaluate this move
-                            double score = moveEvaluator.evaluateMove(
-                                    piece, shape, x, y, allPlacedPieces, colorName);
-                            
-                            // Add to list of valid moves
-                            validMoves.add(new AiMove(piece, shape, x, y, rotation, flipped, score));
-                        }
-                    }
-                }
-            }
-        }
-        
-        return validMoves;
-    }
-    
-    /**
-     * Gets the starting corner for a given color
-     */
-    private int[] getStartingCornerForColor(String colorName) {
-        return switch (colorName.toUpperCase()) {
-            case "BLUE" -> STARTING_CORNERS[0];
-            case "YELLOW" -> STARTING_CORNERS[1];
-            case "RED" -> STARTING_CORNERS[2];
-            case "GREEN" -> STARTING_CORNERS[3];
-            default -> null;
-        };
-    }
-    
-    /**
-     * Extracts all potential diagonal corners from previously placed pieces
-     */
-    private List<int[]> extractDiagonalCorners(List<Map<String, Object>> placedPieces) {
-        List<int[]> corners = new ArrayList<>();
-        
-        for (Map<String, Object> piece : placedPieces) {
-            int pieceX = ((Number) piece.get("x")).intValue();
-            int pieceY = ((Number) piece.get("y")).intValue();
-            
-            // Get the piece shape
-            boolean[][] shape = getPieceShapeFromPlacedPiece();
-            
-            // Add diagonal corners for each cell of the piece
-            for (int r = 0; r < shape.length; r++) {
-                for (int c = 0; c < shape[0].length; c++) {
-                    if (shape[r][c]) {
-                        int absX = pieceX + c;
-                        int absY = pieceY + r;
-                        
-                        // Add the four diagonal corners if they're valid positions
-                        int[][] potentialCorners = {
-                            {absX - 1, absY - 1}, {absX + 1, absY - 1},
-                            {absX - 1, absY + 1}, {absX + 1, absY + 1}
-                        };
-                        
-                        for (int[] corner : potentialCorners) {
-                            if (isValidPosition(corner[0], corner[1])) {
-                                corners.add(corner);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        
-        return corners;
-    }
-    
-    /**
-     * Counts the number of cells in a piece shape
-     */
-    private int countCells(boolean[][] shape) {
+    private TopMoves findBestMoves(AiTurn turn) {
+        BitBoard anchorCells = turn.getPosition().getBoard().getAnchors(turn.getColor());
+        int[] anchors = new int[anchorCells.cardinality()];
         int count = 0;
-        for (boolean[] row : shape) {
-            for (boolean cell : row) {
-                if (cell) {
-                    count++;
-                }
-            }
-        }
-        return count;
-    }
-    
-    /**
-     * Finds the placement offsets for a piece to make sure it covers a specific corner
-     */
-    private int[] findPlacementOffsetsForCorner(boolean[][] shape, int cornerX, int cornerY) {
-        for (int r = 0; r < shape.length; r++) {
-            for (int c = 0; c < shape[0].length; c++) {
-                if (shape[r][c]) {
-                    // Calculate placement so that this cell is at the corner
-                    int x = cornerX - c;
-                    int y = cornerY - r;
-                    
-                    // Check if this placement keeps the entire piece on the board
-                    if (isEntirePieceOnBoard(shape, x, y)) {
-                        return new int[]{x, y};
-                    }
-                }
-            }
+        for (int cell = anchorCells.nextSetBit(0); cell >= 0; cell = anchorCells.nextSetBit(cell + 1)) {
+            anchors[count++] = cell;
         }
-        
-        return null; // No valid placement found
+        ScoringTask task = new ScoringTask(turn, anchors, 0, anchors.length);
+        return pool != null && anchors.length > ANCHORS_PER_TASK ? pool.invoke(task) : task.compute();
     }
     
     /**
-     * Finds positions to place a piece such that it touches a corner diagonally
+     * Generates and scores the moves of a range of anchors, splitting it across the pool
      */
-    private List<int[]> findDiagonalPlacementPositions(boolean[][] shape, int cornerX, int cornerY) {
-        List<int[]> positions = new ArrayList<>();
-        
-        // Find all cells in the shape that could be positioned to create a diagonal connection
-        for (int r = 0; r < shape.length; r++) {
-            for (int c = 0; c < shape[0].length; c++) {
-                if (shape[r][c]) {
-                    // Check each diagonal direction from this cell
-                    int[][] diagonalOffsets = {{-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
-                    
-                    for (int[] offset : diagonalOffsets) {
-                        int cellX = cornerX - offset[0];
-                        int cellY = cornerY - offset[1];
-                        
-                        // Calculate placement position
-                        int x = cellX - c;
-                        int y = cellY - r;
-                        
-                        // Check if this placement keeps the entire piece on the board
-                        if (isEntirePieceOnBoard(shape, x, y)) {
-                            positions.add(new int[]{x, y});
-                        }
-                    }
-                }
-            }
-        }
+    private final class ScoringTask extends RecursiveTask<TopMoves> {
         
-        return positions;
-    }
-    
-    /**
-     * Checks if the entire piece is on the board at the given position
-     */
-    private boolean isEntirePieceOnBoard(boolean[][] shape, int x, int y) {
-        for (int r = 0; r < shape.length; r++) {
-            for (int c = 0; c < shape[0].length; c++) {
-                if (shape[r][c]) {
-                    int absX = x + c;
-                    int absY = y + r;
-                    
-                    if (!isValidPosition(absX, absY)) {
-                        return false;
-                    }
-                }
-            }
-        }
+        private static final long serialVersionUID = 1L;
         
-        return true;
-    }
-    
-    /**
-     * Checks if a position is valid (on the board)
-     */
-    private boolean isValidPosition(int x, int y) {
-        return x >= 0 && x < BOARD_SIZE && y >= 0 && y < BOARD_SIZE;
-    }
-    
-    /**
-     * Checks if a given placement is valid according to Blokus rules
-     */
-    private boolean isValidPlacement(boolean[][] shape, int x, int y, 
-                                   String colorName, List<Map<String, Object>> allPlacedPieces) {
-        // 1. Piece must be entirely on the board
-        if (!isEntirePieceOnBoard(shape, x, y)) {
-            return false;
-        }
+        private final AiTurn turn;
+        private final int[] anchors;
+        private final int from;
+        private final int to;
         
-        // 2. Piece must not overlap with any other piece
-        if (doesOverlapWithAnyPiece(shape, x, y, allPlacedPieces)) {
-            return false;
+        private ScoringTask(AiTurn turn, int[] anchors, int from, int to) {
+            this.turn = turn;
+            this.anchors = anchors;
+            this.from = from;
+            this.to = to;
         }
         
-        // 3. Piece must touch at least one piece of the same color diagonally
-        // and must not touch any piece of the same color edge-to-edge
-        boolean touchesDiagonally = false;
-        
-        // Filter placed pieces to only those of the same color
-        List<Map<String, Object>> sameColorPieces = allPlacedPieces.stream()
-                .filter(p -> colorName.equalsIgnoreCase((String) p.get("pieceColor")))
-                .toList();
-        
-        for (int r = 0; r < shape.length; r++) {
-            for (int c = 0; c < shape[0].length; c++) {
-                if (shape[r][c]) {
-                    int absX = x + c;
-                    int absY = y + r;
-                    
-                    // Check for edge-to-edge contact with same color (not allowed)
-                    if (hasEdgeContact(absX, absY, sameColorPieces)) {
-                        return false;
-                    }
-                    
-                    // Check for diagonal contact with same color (required)
-                    if (hasDiagonalContact(absX, absY, sameColorPieces)) {
-                        touchesDiagonally = true;
-                    }
-                }
+        @Override
+        protected TopMoves compute() {
+            if (to - from > ANCHORS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                ScoringTask left = new ScoringTask(turn, anchors, from, middle);
+                left.fork();
+                TopMoves right = new ScoringTask(turn, anchors, middle, to).compute();
+                return left.join().merge(right);
             }
-        }
-        
-        return touchesDiagonally;
-    }
-    
-    /**
-     * Checks if the piece overlaps with any existing piece
-     */
-    private boolean doesOverlapWithAnyPiece(boolean[][] shape, int x, int y, 
-                                          List<Map<String, Object>> allPlacedPieces) {
-        for (int r = 0; r < shape.length; r++) {
-            for (int c = 0; c < shape[0].length; c++) {
-                if (shape[r][c]) {
-                    int absX = x + c;
-                    int absY = y + r;
-                    
-                    // Check if this position is already occupied
-                    for (Map<String, Object> piece : allPlacedPieces) {
-                        int pieceX = ((Number) piece.get("x")).intValue();
-                        int pieceY = ((Number) piece.get("y")).intValue();
-                        
-                        // Check if this cell overlaps with any cell of the other piece
-                        for (int otherR = 0; otherR < shape.length; otherR++) {
-                            for (int otherC = 0; otherC < shape[0].length; otherC++) {
-                                if (shape[otherR][otherC]) {
-                                    int otherAbsX = pieceX + otherC;
-                                    int otherAbsY = pieceY + otherR;
-                                    
-                                    if (absX == otherAbsX && absY == otherAbsY) {
-                                        return true;
-                                    }
-                                }
-                            }
-                        }
-                    }
+            
+            // Moves are scored from the feature maps of the turn's board, which are only read here
+            BoardState board = turn.getPosition().getBoard();
+            FeatureMaps features = turn.getFeatures();
+            PlayerColor color = turn.getColor();
+            int inventory = turn.getPosition().getInventory(color);
+            TopMoves bestMoves = new TopMoves();
+            for (int i = from; i < to; i++) {
+                boolean completed = LegalMoveGenerator.forEachFromAnchor(board, color, inventory, anchors[i], move -> {
+                    bestMoves.offer(move, moveEvaluator.evaluateMove(move, board, features, color));
+                    return turn.getBudget().tick();
+                });
+                if (!completed) {
+                    break;
                 }
             }
+            return bestMoves;
         }
-        
-        return false;
     }
     
     /**
-     * Checks if a cell has edge contact with any piece of the same color
+     * The {@link #TOP_CHOICES} best moves seen, best first: highest score, then lowest move
      */
-    private boolean hasEdgeContact(int x, int y, List<Map<String, Object>> sameColorPieces) {
-        // Check the four adjacent positions
-        int[][] adjacentPositions = {{x-1, y}, {x+1, y}, {x, y-1}, {x, y+1}};
+    static final class TopMoves {
         
-        for (int[] pos : adjacentPositions) {
-            for (Map<String, Object> piece : sameColorPieces) {
-                int pieceX = ((Number) piece.get("x")).intValue();
-                int pieceY = ((Number) piece.get("y")).intValue();
-                
-                boolean[][] shape = getPieceShapeFromPlacedPiece();
-                
-                for (int r = 0; r < shape.length; r++) {
-                    for (int c = 0; c < shape[0].length; c++) {
-                        if (shape[r][c]) {
-                            int absX = pieceX + c;
-                            int absY = pieceY + r;
-                            
-                            if (absX == pos[0] && absY == pos[1]) {
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        
-        return false;
-    }
-    
-    /**
-     * Checks if a cell has diagonal contact with any piece of the same color
-     */
-    private boolean hasDiagonalContact(int x, int y, List<Map<String, Object>> sameColorPieces) {
-        // Check the four diagonal positions
-        int[][] diagonalPositions = {{x-1, y-1}, {x+1, y-1}, {x-1, y+1}, {x+1, y+1}};
+        private final int[] moves = new int[TOP_CHOICES];
+        private final double[] scores = new double[TOP_CHOICES];
+        private int size;
         
-        for (int[] pos : diagonalPositions) {
-            for (Map<String, Object> piece : sameColorPieces) {
-                int pieceX = ((Number) piece.get("x")).intValue();
-                int pieceY = ((Number) piece.get("y")).intValue();
-                
-                boolean[][] shape = getPieceShapeFromPlacedPiece();
-                
-                for (int r = 0; r < shape.length; r++) {
-                    for (int c = 0; c < shape[0].length; c++) {
-                        if (shape[r][c]) {
-                            int absX = pieceX + c;
-                            int absY = pieceY + r;
-                            
-                            if (absX == pos[0] && absY == pos[1]) {
-                                return true;
-                            }
-                        }
-                    }
-                }
+        void offer(int move, double score) {
+            int i = size;
+            while (i > 0 && isBetter(move, score, moves[i - 1], scores[i - 1])) {
+                i--;
             }
+            if (i == TOP_CHOICES) {
+                return;
+            }
+            int shifted = Math.min(size, TOP_CHOICES - 1) - i;
+            System.arraycopy(moves, i, moves, i + 1, shifted);
+            System.arraycopy(scores, i, scores, i + 1, shifted);
+            moves[i] = move;
+            scores[i] = score;
+            size = Math.min(size + 1, TOP_CHOICES);
         }
         
-        return false;
-    }
-    
-    /**
-     * Gets the shape of a piece from placement data.
-     * This is a simplified implementation.
-     */
-    private boolean[][] getPieceShapeFromPlacedPiece() {
-        // In a future implementation, this method will use placement data to get the correct piece shape.
-        boolean[][] shape = {{true}};
-        return shape;
-    }
-    
-    /**
-     * Container class to represent a possible AI move with its evaluation score
-     */
-    private static class AiMove {
-        private final Piece piece;
-        private final boolean[][] shape;
-        private final int x;
-        private final int y;
-        private final int rotation;
-        private final boolean flipped;
-        private final double score;
-        
-        public AiMove(Piece piece, boolean[][] shape, int x, int y, 
-                     int rotation, boolean flipped, double score) {
-            this.piece = piece;
-            this.shape = shape;
-            this.x = x;
-            this.y = y;
-            this.rotation = rotation;
-            this.flipped = flipped;
-            this.score = score;
-        }
-        
-        public Piece getPiece() {
-            return piece;
-        }
-        
-        // Currently not used locally, but kept for potential future use
-        // and to maintain consistency with other getters
-        @SuppressWarnings("unused")
-        public boolean[][] getShape() {
-            return shape;
-        }
-        
-        public int getX() {
-            return x;
-        }
-        
-        public int getY() {
-            return y;
+        TopMoves merge(TopMoves other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.moves[i], other.scores[i]);
+            }
+            return this;
         }
         
-        public int getRotation() {
-            return rotation;
+        int size() {
+            return size;
         }
         
-        public boolean isFlipped() {
-            return flipped;
+        int move(int rank) {
+            return moves[rank];
         }
         
-        public double getScore() {
-            return score;
+        private static boolean isBetter(int move, double score, int otherMove, double otherScore) {
+            return score > otherScore || (score == otherScore && move < otherMove);
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,271 @@
+package com.blokus.blokus.service.ai;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.blokus.blokus.service.timer.LagStats;
+
+/**
+ * Runs the bot searches of all games on a fixed number of worker threads, the global
+ * concurrency cap.
+ * <p>
+ * Each game has its own queue and at most one search running, so a game with many bots only
+ * gets its turn in the rotation. Games with a waiting human and bot-only games are served
+ * round-robin from two rings: the human ring is served first, but every
+ * {@code priorityWeight} human searches one bot-only search is served, so bot-only games
+ * never starve. Queue depth and the wait of each class are logged with the AI stats.
+ */
+public class AiScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiScheduler.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private final Map<Long, GameQueue> games = new HashMap<>();
+    private final ArrayDeque<GameQueue> humanRing = new ArrayDeque<>();
+    private final ArrayDeque<GameQueue> botRing = new ArrayDeque<>();
+    private final Thread[] workers;
+    private final int queueCapacity;
+    private final int priorityWeight;
+    private final LagStats humanWait = new LagStats();
+    private final LagStats botWait = new LagStats();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private int queued;
+    private int running;
+    private int humanStreak;
+    private volatile boolean shutdown;
+
+    /**
+     * @param threads        Number of searches running at once, across all games
+     * @param queueCapacity  Number of searches waiting, across all games, before rejecting
+     * @param priorityWeight Number of searches served to games with a human for each search
+     *                       served to a bot-only game when both are waiting
+     */
+    public AiScheduler(String name, int threads, int queueCapacity, int priorityWeight) {
+        if (threads <= 0 || queueCapacity <= 0 || priorityWeight <= 0) {
+            throw new IllegalArgumentException("Threads, queue capacity and priority weight must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        this.priorityWeight = priorityWeight;
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::runWorker, name + "-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Queues a search of a game
+     *
+     * @param humanWaiting Whether a human of the game is waiting for the bots
+     * @throws RejectedExecutionException if the scheduler is full or shut down
+     */
+    public void submit(Long gameId, boolean humanWaiting, Runnable task) {
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("AI scheduler is shut down");
+            }
+            if (queued >= queueCapacity) {
+                rejected.increment();
+                throw new RejectedExecutionException("AI scheduler queue is full");
+            }
+            GameQueue game = games.computeIfAbsent(gameId, GameQueue::new);
+            game.tasks.add(new Task(task, humanWaiting, System.nanoTime()));
+            boolean promoted = humanWaiting && !game.humanWaiting;
+            game.humanWaiting = humanWaiting;
+            queued++;
+            if (!game.running && game.tasks.size() == 1) {
+                ringOf(game).add(game);
+                ready.signal();
+            } else if (!game.running && promoted && botRing.remove(game)) {
+                // A human now waits behind the game's bot-only work
+                humanRing.add(game);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of searches waiting for a worker
+     */
+    public int queueDepth() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of searches running
+     */
+    public int running() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int threads() {
+        return workers.length;
+    }
+
+    /**
+     * Time searches of games with a waiting human spent queued
+     */
+    public LagStats humanWait() {
+        return humanWait;
+    }
+
+    /**
+     * Time searches of bot-only games spent queued
+     */
+    public LagStats botWait() {
+        return botWait;
+    }
+
+    public long completed() {
+        return completed.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Stops the workers. Queued searches are dropped, running ones are interrupted.
+     *
+     * @return whether the workers stopped within the timeout
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            shutdown = true;
+            games.clear();
+            humanRing.clear();
+            botRing.clear();
+            queued = 0;
+            ready.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread worker : workers) {
+            worker.interrupt();
+            worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+        for (Thread worker : workers) {
+            if (worker.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("threads=%d running=%d queued=%d completed=%d rejected=%d humanWait[%s] botWait[%s]",
+                workers.length, running(), queueDepth(), completed(), rejected(), humanWait, botWait);
+    }
+
+    private void runWorker() {
+        while (true) {
+            GameQueue game;
+            Task task;
+            lock.lock();
+            try {
+                while (!shutdown && humanRing.isEmpty() && botRing.isEmpty()) {
+                    ready.awaitUninterruptibly();
+                }
+                if (shutdown) {
+                    return;
+                }
+                game = nextGame();
+                task = game.tasks.poll();
+                game.running = true;
+                queued--;
+                running++;
+            } finally {
+                lock.unlock();
+            }
+            (task.humanWaiting ? humanWait : botWait).record(System.nanoTime() - task.queuedAt);
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                logger.error("AI search of game {} failed", game.gameId, e);
+            }
+            completed.increment();
+            lock.lock();
+            try {
+                running--;
+                game.running = false;
+                if (game.tasks.isEmpty()) {
+                    games.remove(game.gameId, game);
+                } else if (!shutdown) {
+                    ringOf(game).add(game);
+                    ready.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Takes the next game to serve from the rings. Must hold the lock.
+     */
+    private GameQueue nextGame() {
+        boolean serveBots = !botRing.isEmpty() && (humanRing.isEmpty() || humanStreak >= priorityWeight);
+        if (serveBots) {
+            humanStreak = 0;
+            return botRing.poll();
+        }
+        humanStreak++;
+        return humanRing.poll();
+    }
+
+    private ArrayDeque<GameQueue> ringOf(GameQueue game) {
+        return game.humanWaiting ? humanRing : botRing;
+    }
+
+    private static final class GameQueue {
+
+        private final Long gameId;
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private boolean humanWaiting;
+        private boolean running;
+
+        private GameQueue(Long gameId) {
+            this.gameId = gameId;
+        }
+    }
+
+    private static final class Task {
+
+        private final Runnable runnable;
+        private final boolean humanWaiting;
+        private final long queuedAt;
+
+        private Task(Runnable runnable, boolean humanWaiting, long queuedAt) {
+            this.runnable = runnable;
+            this.humanWaiting = humanWaiting;
+            this.queuedAt = queuedAt;
+        }
+    }
+}
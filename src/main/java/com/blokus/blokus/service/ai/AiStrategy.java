@@ -0,0 +1,23 @@
+package com.blokus.blokus.service.ai;
+
+/**
+ * Search used by the blue and yellow bots. Red and green bots keep the simple
+ * {@link AiBotMoveHandler}.
+ */
+public enum AiStrategy {
+
+    /**
+     * One-ply scoring of the legal moves with {@link AiMoveEvaluator}
+     */
+    GREEDY,
+
+    /**
+     * Monte Carlo Tree Search, see {@link MctsSearch}
+     */
+    MCTS,
+
+    /**
+     * Paranoid alpha-beta with iterative deepening, see {@link ParanoidSearch}
+     */
+    PARANOID
+}
@@ -0,0 +1,103 @@
+package com.blokus.blokus.service.ai;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.FeatureMaps;
+import com.blokus.blokus.service.engine.GamePosition;
+
+/**
+ * Snapshot of a bot's turn, taken in the game's session. The move is chosen from it on any
+ * thread since it shares no mutable state with the game.
+ */
+public class AiTurn {
+
+    private final Long gameId;
+    private final Long playerId;
+    private final Long userId;
+    private final PlayerColor color;
+    private final GamePosition position;
+    private final FeatureMaps features;
+    private final boolean humanWaiting;
+    private final SearchBudget budget;
+    private final boolean pondering;
+
+    public AiTurn(Long gameId, Long playerId, Long userId, PlayerColor color,
+                  GamePosition position, FeatureMaps features, boolean humanWaiting,
+                  SearchBudget budget) {
+        this(gameId, playerId, userId, color, position, features, humanWaiting, budget, false);
+    }
+
+    /**
+     * @param pondering Whether the turn is predicted while a human thinks, rather than the game's
+     */
+    public AiTurn(Long gameId, Long playerId, Long userId, PlayerColor color,
+                  GamePosition position, FeatureMaps features, boolean humanWaiting,
+                  SearchBudget budget, boolean pondering) {
+        this.gameId = gameId;
+        this.playerId = playerId;
+        this.userId = userId;
+        this.color = color;
+        this.position = position;
+        this.features = features;
+        this.humanWaiting = humanWaiting;
+        this.budget = budget;
+        this.pondering = pondering;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Id of the bot's GameUser, to check it is still the current player when the move is applied
+     */
+    public Long getPlayerId() {
+        return playerId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public PlayerColor getColor() {
+        return color;
+    }
+
+    public String getColorName() {
+        return color.name().toLowerCase();
+    }
+
+    /**
+     * Position with the bot to move
+     */
+    public GamePosition getPosition() {
+        return position;
+    }
+
+    /**
+     * Territory features of the board when the snapshot was taken
+     */
+    public FeatureMaps getFeatures() {
+        return features;
+    }
+
+    /**
+     * Whether a human plays in the game, and so waits for this bot
+     */
+    public boolean isHumanWaiting() {
+        return humanWaiting;
+    }
+
+    /**
+     * Budget of the search of this turn, also used to cancel it
+     */
+    public SearchBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Whether the position is a prediction searched while a human thinks
+     */
+    public boolean isPondering() {
+        return pondering;
+    }
+}
@@ -0,0 +1,319 @@
+package com.blokus.blokus.service.ai;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.blokus.blokus.model.GameUser;
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.AiPlayerService;
+import com.blokus.blokus.service.GameEndedEvent;
+import com.blokus.blokus.service.GameLogicService;
+import com.blokus.blokus.service.TurnTimedOutEvent;
+import com.blokus.blokus.service.session.GameSessionManager;
+import com.blokus.blokus.service.timer.HashedWheelTimer;
+
+/**
+ * Plays the chains of consecutive bot turns of all games.
+ * <p>
+ * A chain is a sequence of continuations, never a blocked thread: each turn is snapshotted in
+ * the game's session, the cosmetic "thinking" delay is a timeout on a timing wheel, the search
+ * runs on the {@link AiScheduler}, and the move is applied back in the session, which then
+ * schedules the next bot if there is one. Thousands of games share these few threads, and the
+ * scheduler serves them fairly, games with a human first.
+ * <p>
+ * Every search runs within the {@link SearchBudget} of its turn, which is cancelled as soon as
+ * the game finishes or is deleted.
+ * <p>
+ * When a chain hands the turn to a human, the next bot ponders its replies to the human's
+ * likeliest moves as bot-only work of the scheduler, behind the searches humans wait for.
+ * The human's move cancels the pondering that is left.
+ */
+@Service
+public class AiTurnRunner implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiTurnRunner.class);
+
+    private static final long RETRY_DELAY_MS = 500;
+
+    private final AiPlayerService aiPlayerService;
+    private final GameLogicService gameLogicService;
+    private final GameSessionManager gameSessionManager;
+    private final AiScheduler scheduler;
+    private final HashedWheelTimer delays;
+    private final Set<Long> runningChains = ConcurrentHashMap.newKeySet();
+    private final Map<Long, SearchBudget> searches = new ConcurrentHashMap<>();
+    private final Map<Long, List<SearchBudget>> ponders = new ConcurrentHashMap<>();
+    private final Random random = new Random();
+    private final boolean thinkDelays;
+    private final int ponderReplies;
+
+    public AiTurnRunner(AiPlayerService aiPlayerService,
+                        GameLogicService gameLogicService,
+                        GameSessionManager gameSessionManager,
+                        @Value("${blokus.ai.threads:0}") int threads,
+                        @Value("${blokus.ai.queue-capacity:1000}") int queueCapacity,
+                        @Value("${blokus.ai.human-priority-weight:4}") int humanPriorityWeight,
+                        @Value("${blokus.ai.think-delays:true}") boolean thinkDelays,
+                        @Value("${blokus.ai.stats-interval-seconds:60}") long statsIntervalSeconds,
+                        @Value("${blokus.ai.ponder.replies:4}") int ponderReplies) {
+        this.aiPlayerService = aiPlayerService;
+        this.gameLogicService = gameLogicService;
+        this.gameSessionManager = gameSessionManager;
+        this.thinkDelays = thinkDelays;
+        this.ponderReplies = ponderReplies;
+        int count = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.scheduler = new AiScheduler("ai-compute", count, queueCapacity, humanPriorityWeight);
+        this.delays = new HashedWheelTimer("ai-delays", 20, TimeUnit.MILLISECONDS, 512);
+        if (statsIntervalSeconds > 0) {
+            scheduleStatsReport(statsIntervalSeconds);
+        }
+        logger.info("AI searches run on {} threads", count);
+    }
+
+    /**
+     * Starts playing the bots of a game until a human is to move or the game ends.
+     * Does nothing if a chain is already running for the game.
+     */
+    public void startChain(Long gameId) {
+        stopPondering(gameId);
+        if (!runningChains.add(gameId)) {
+            logger.info("AI chain already running for game {}", gameId);
+            return;
+        }
+        nextTurn(gameId);
+    }
+
+    /**
+     * Starts the bots when the server-side turn clock passed the turn to one of them
+     */
+    @EventListener
+    public void onTurnTimedOut(TurnTimedOutEvent event) {
+        if (event.isNextPlayerBot()) {
+            startChain(event.getGameId());
+        }
+    }
+
+    /**
+     * Cancels the bot turn in progress when its game finished or was deleted
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGameEnded(GameEndedEvent event) {
+        Long gameId = event.getGameId();
+        SearchBudget budget = searches.remove(gameId);
+        if (budget != null) {
+            budget.cancel();
+            logger.info("Cancelled the AI search of game {}", gameId);
+        }
+        stopPondering(gameId);
+        runningChains.remove(gameId);
+    }
+
+    public boolean isChainRunning(Long gameId) {
+        return runningChains.contains(gameId);
+    }
+
+    /**
+     * Snapshots the next bot turn in the session, then waits the thinking delay
+     */
+    private void nextTurn(Long gameId) {
+        CompletableFuture<AiTurn> prepared;
+        try {
+            prepared = gameSessionManager.submit(gameId, () -> aiPlayerService.prepareAiTurn(gameId));
+        } catch (RejectedExecutionException e) {
+            delays.newTimeout(t -> nextTurn(gameId), RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        prepared.whenComplete((turn, error) -> {
+            if (error != null) {
+                endChain(gameId, error);
+            } else if (turn == null) {
+                logger.info("Exiting AI chain of game {}: no bot to move", gameId);
+                endChain(gameId, null);
+            } else {
+                searches.put(gameId, turn.getBudget());
+                delays.newTimeout(t -> search(turn), thinkDelay(turn.getColor()), TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Chooses the move on the scheduler, retrying later if it is saturated
+     */
+    private void search(AiTurn turn) {
+        if (turn.getBudget().isCancelled()) {
+            return;
+        }
+        try {
+            scheduler.submit(turn.getGameId(), turn.isHumanWaiting(), () -> {
+                int move;
+                try {
+                    move = aiPlayerService.chooseAiMove(turn);
+                } catch (RuntimeException e) {
+                    endChain(turn.getGameId(), e);
+                    return;
+                }
+                SearchBudget budget = turn.getBudget();
+                if (budget.isCancelled()) {
+                    return;
+                }
+                logger.debug("{} bot of game {} searched {} nodes in {} ms ({} nodes/s, {})", turn.getColor(),
+                        turn.getGameId(), budget.nodes(), budget.elapsedMillis(),
+                        budget.nodes() * 1000 / Math.max(1, budget.elapsedMillis()), budget.getDifficulty());
+                apply(turn, move);
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("AI scheduler is full, retrying the bot of game {}", turn.getGameId());
+            delays.newTimeout(t -> search(turn), RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Plays the move and advances the turn as one command of the game's session
+     */
+    private void apply(AiTurn turn, int move) {
+        Long gameId = turn.getGameId();
+        if (turn.getBudget().isCancelled()) {
+            return;
+        }
+        CompletableFuture<GameUser> applied;
+        try {
+            applied = gameSessionManager.submit(gameId, () -> {
+                // The search is over, ending the game below must not cancel it
+                searches.remove(gameId, turn.getBudget());
+                GameUser stillCurrent = gameLogicService.getCurrentPlayer(gameId);
+                if (stillCurrent == null || !stillCurrent.getId().equals(turn.getPlayerId())) {
+                    // A timeout already moved the game on while the bot was thinking
+                    logger.info("{} bot of game {} is no longer the current player", turn.getColor(), gameId);
+                    return stillCurrent;
+                }
+                if (!aiPlayerService.applyAiMove(turn, move)) {
+                    logger.warn("{} bot of game {} could not play, passing", turn.getColor(), gameId);
+                }
+                if (gameLogicService.getCurrentPlayer(gameId) == null) {
+                    // The placement ended the game
+                    return null;
+                }
+                return gameLogicService.nextTurn(gameId);
+            });
+        } catch (RejectedExecutionException e) {
+            delays.newTimeout(t -> apply(turn, move), RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        applied.whenComplete((nextPlayer, error) -> {
+            if (error != null) {
+                endChain(gameId, error);
+            } else if (nextPlayer != null && nextPlayer.isBot()) {
+                nextTurn(gameId);
+            } else {
+                endChain(gameId, null);
+                if (nextPlayer != null) {
+                    ponder(gameId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Searches the next bot's replies to the likeliest moves of the human on turn. Pondering
+     * only saves time, so it is simply skipped when the session or the scheduler is busy.
+     */
+    private void ponder(Long gameId) {
+        if (ponderReplies <= 0) {
+            return;
+        }
+        CompletableFuture<List<AiTurn>> prepared;
+        try {
+            prepared = gameSessionManager.submit(gameId, () -> aiPlayerService.preparePonderTurns(gameId, ponderReplies));
+        } catch (RejectedExecutionException e) {
+            return;
+        }
+        prepared.whenComplete((turns, error) -> {
+            if (error != null) {
+                logger.warn("Could not ponder in game {}", gameId, error);
+                return;
+            }
+            if (turns.isEmpty()) {
+                return;
+            }
+            ponders.put(gameId, turns.stream().map(AiTurn::getBudget).toList());
+            if (runningChains.contains(gameId)) {
+                // The human already played
+                stopPondering(gameId);
+                return;
+            }
+            try {
+                for (AiTurn turn : turns) {
+                    scheduler.submit(gameId, false, () -> {
+                        if (!turn.getBudget().isCancelled()) {
+                            aiPlayerService.ponder(turn);
+                        }
+                    });
+                }
+            } catch (RejectedExecutionException e) {
+                logger.debug("AI scheduler is full, pondering less in game {}", gameId);
+            }
+        });
+    }
+
+    private void stopPondering(Long gameId) {
+        List<SearchBudget> budgets = ponders.remove(gameId);
+        if (budgets != null) {
+            budgets.forEach(SearchBudget::cancel);
+        }
+    }
+
+    private void endChain(Long gameId, Throwable error) {
+        runningChains.remove(gameId);
+        if (error != null) {
+            logger.error("AI chain of game {} failed", gameId, error);
+        }
+    }
+
+    /**
+     * Delay before a bot plays, so clients can follow the moves
+     */
+    private long thinkDelay(PlayerColor color) {
+        if (!thinkDelays) {
+            return 0;
+        }
+        int delay = 2000 + random.nextInt(1000);
+        if (color == PlayerColor.GREEN) {
+            delay += 1000;
+        }
+        return delay;
+    }
+
+    private void scheduleStatsReport(long intervalSeconds) {
+        delays.newTimeout(t -> {
+            if (scheduler.completed() > 0 || scheduler.queueDepth() > 0) {
+                logger.info("AI scheduler: {} mctsPlayoutsPerSecond={} ponderHitRate={}", scheduler,
+                        String.format("%.0f", aiPlayerService.getMctsPlayoutsPerSecond()),
+                        String.format("%.2f", aiPlayerService.getPonderHitRate()));
+            }
+            scheduleStatsReport(intervalSeconds);
+        }, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        delays.stop(1, TimeUnit.SECONDS);
+        if (!scheduler.shutdown(5, TimeUnit.SECONDS)) {
+            logger.warn("AI searches did not stop in time");
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.blokus.blokus.service.ai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.BitBoard;
+import com.blokus.blokus.service.engine.BoardState;
+import com.blokus.blokus.service.engine.GamePosition;
+import com.blokus.blokus.service.engine.LegalMoveGenerator;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.engine.PieceOrientations;
+import com.blokus.blokus.service.engine.Regions;
+import com.blokus.blokus.service.engine.Zobrist;
+
+/**
+ * Exact late-game play for a bot whose remaining {@link Regions} no opponent can place in.
+ * <p>
+ * The opponents can then no longer change the bot's score, and its regions no longer change
+ * each other, so each region is solved alone: a search of every packing of the remaining
+ * pieces into it gives the sets of pieces it can take, and whether the monomino can be placed
+ * last. Positions reached by several orders of the same pieces are searched once. The regions
+ * are then combined over disjoint sets of pieces for the best final score, and the bot plays
+ * the first move of the winning plan.
+ * <p>
+ * The solver only takes over when the regions hold few enough cells. It searches at most half
+ * of the nodes and time of the turn's difficulty, and past its own number of positions, without
+ * spending the turn's budget: when it gives up, the turn is searched by the usual strategy with
+ * what is left of the budget. A cancelled or expired turn stops it too.
+ */
+public class EndgameSolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(EndgameSolver.class);
+
+    private static final int ALL_PIECES_BONUS = 15;
+    private static final int MONOMINO_LAST_BONUS = 5;
+    private static final int MONOMINO_ID = 1;
+    private static final long MONOMINO_LAST_KEY = 0x6A09E667F3BCC909L;
+    // Share of the difficulty's nodes and time the solver may use
+    private static final int BUDGET_SHARE_DIVISOR = 2;
+    // Positions searched between two checks of the clocks
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+
+    private final int maxCells;
+    private final int maxNodes;
+
+    /**
+     * @param maxCells Largest number of cells in the bot's regions for the solver to take over
+     * @param maxNodes Positions searched before the solver gives up, at most half of the
+     *                 difficulty's nodes
+     */
+    public EndgameSolver(int maxCells, int maxNodes) {
+        this.maxCells = maxCells;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Solves the bot's turn if it is in a small enough endgame
+     *
+     * @return The first move of an optimal plan, or empty if the solver does not apply or gave up
+     */
+    public OptionalInt solve(AiTurn turn) {
+        BoardState board = turn.getPosition().getBoard();
+        PlayerColor color = turn.getColor();
+        int inventory = turn.getPosition().getInventory(color);
+        if (inventory == 0 || !board.hasPlaced(color) || turn.getBudget().isExhausted()) {
+            return OptionalInt.empty();
+        }
+        List<BitBoard> regions = Regions.of(board, color);
+        int cells = 0;
+        for (BitBoard region : regions) {
+            cells += region.cardinality();
+        }
+        if (regions.isEmpty() || cells > maxCells || !isPrivate(turn.getPosition(), color, regions)) {
+            return OptionalInt.empty();
+        }
+
+        Solver solver = new Solver(color, turn.getBudget());
+        try {
+            List<Map<Integer, Boolean>> packings = new ArrayList<>();
+            for (BitBoard region : regions) {
+                packings.add(solver.packings(board, region, inventory));
+            }
+            Plan plan = solver.combine(packings, inventory, turn.getPosition().getSquaresLeft(color));
+            int move = solver.firstMove(board, regions, plan);
+            logger.info("Endgame {} bot of game {}: {} regions of {} cells, final score {} in {} positions",
+                    color, turn.getGameId(), regions.size(), cells, plan.score, solver.nodes);
+            return OptionalInt.of(move);
+        } catch (SolverAborted e) {
+            logger.debug("Endgame {} bot of game {}: gave up after {} positions",
+                    color, turn.getGameId(), solver.nodes);
+            return OptionalInt.empty();
+        }
+    }
+
+    /**
+     * Checks that no opponent can ever place a piece on a cell of the regions
+     */
+    private static boolean isPrivate(GamePosition position, PlayerColor color, List<BitBoard> regions) {
+        for (PlayerColor opponent : GamePosition.TURN_ORDER) {
+            if (opponent == color) {
+                continue;
+            }
+            BitBoard reachable = Regions.reachable(position.getBoard(), opponent, position.getInventory(opponent));
+            for (BitBoard region : regions) {
+                if (region.intersects(reachable)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int squares(int pieces) {
+        int squares = 0;
+        for (int bits = pieces; bits != 0; bits &= bits - 1) {
+            squares += PieceOrientations.cellCount(Integer.numberOfTrailingZeros(bits));
+        }
+        return squares;
+    }
+
+    /**
+     * Pieces each region takes in the best combination, and whether the monomino ends it
+     */
+    private static final class Plan {
+        private final int[] pieces;
+        private final boolean[] monominoLast;
+        private final int score;
+
+        private Plan(int regions, int score) {
+            this.pieces = new int[regions];
+            this.monominoLast = new boolean[regions];
+            this.score = score;
+        }
+    }
+
+    /**
+     * State of one solve, confined to the bot's thread
+     */
+    private final class Solver {
+
+        private final PlayerColor color;
+        private final SearchBudget budget;
+        private final long nodeLimit;
+        private final long deadlineNanos;
+        private final BitBoard scratch = new BitBoard();
+        private int nodes;
+
+        private Solver(PlayerColor color, SearchBudget budget) {
+            this.color = color;
+            this.budget = budget;
+            AiDifficulty difficulty = budget.getDifficulty();
+            this.nodeLimit = Math.min(maxNodes, difficulty.getMaxNodes() / BUDGET_SHARE_DIVISOR);
+            this.deadlineNanos = System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(difficulty.getTimeMillis() / BUDGET_SHARE_DIVISOR);
+        }
+
+        /**
+         * Searches every way to place pieces of the inventory in a region
+         *
+         * @return For each set of pieces that fits together in the region, whether the
+         *         monomino can be placed last
+         */
+        private Map<Integer, Boolean> packings(BoardState board, BitBoard region, int inventory) {
+            Map<Integer, Boolean> packings = new HashMap<>();
+            pack(board, region, inventory, inventory, false, packings, new HashSet<>());
+            return packings;
+        }
+
+        private void pack(BoardState board, BitBoard region, int initial, int inventory, boolean monominoLast,
+                          Map<Integer, Boolean> packings, Set<Long> visited) {
+            long key = board.getHash() ^ Zobrist.inventory(color, inventory) ^ (monominoLast ? MONOMINO_LAST_KEY : 0);
+            if (!visited.add(key)) {
+                return;
+            }
+            countNode();
+            packings.merge(initial ^ inventory, monominoLast, Boolean::logicalOr);
+            if (inventory == 0) {
+                return;
+            }
+
+            BitBoard anchors = new BitBoard(board.getAnchors(color));
+            anchors.and(region);
+            for (int anchor = anchors.nextSetBit(0); anchor >= 0; anchor = anchors.nextSetBit(anchor + 1)) {
+                LegalMoveGenerator.forEachFromAnchor(board, color, inventory, anchor, move -> {
+                    int pieceId = Move.pieceId(move);
+                    pack(play(board, move), region, initial, inventory & ~(1 << pieceId), pieceId == MONOMINO_ID,
+                            packings, visited);
+                    return true;
+                });
+            }
+        }
+
+        private BoardState play(BoardState board, int move) {
+            BoardState next = new BoardState(board);
+            scratch.clear();
+            Move.fillMask(move, scratch);
+            next.place(color, scratch);
+            return next;
+        }
+
+        /**
+         * Counts a position against the solver's own share, leaving the turn's nodes untouched
+         */
+        private void countNode() {
+            nodes++;
+            if (nodes > nodeLimit) {
+                throw SolverAborted.INSTANCE;
+            }
+            if (nodes % CLOCK_CHECK_INTERVAL == 0
+                    && (budget.isExhausted() || System.nanoTime() - deadlineNanos >= 0)) {
+                throw SolverAborted.INSTANCE;
+            }
+        }
+
+        /**
+         * Combines the packings of the regions over disjoint sets of pieces, for the best score
+         */
+        private Plan combine(List<Map<Integer, Boolean>> packings, int inventory, int squaresLeft) {
+            // Combinations by key (pieces << 1 | monomino last), with the key of the region's
+            // packing that extended the previous combination
+            List<Map<Integer, Integer>> stages = new ArrayList<>();
+            Map<Integer, Integer> combined = Map.of(0, 0);
+            for (Map<Integer, Boolean> region : packings) {
+                Map<Integer, Integer> next = new HashMap<>();
+                for (int previous : combined.keySet()) {
+                    int used = previous >>> 1;
+                    for (Map.Entry<Integer, Boolean> packing : region.entrySet()) {
+                        countNode();
+                        int pieces = packing.getKey();
+                        if ((pieces & used) != 0) {
+                            continue;
+                        }
+                        boolean monominoLast = (previous & 1) != 0 || packing.getValue();
+                        next.putIfAbsent((used | pieces) << 1 | (monominoLast ? 1 : 0),
+                                pieces << 1 | (packing.getValue() ? 1 : 0));
+                    }
+                }
+                stages.add(next);
+                combined = next;
+            }
+
+            int bestKey = 0;
+            int bestScore = Integer.MIN_VALUE;
+            for (int key : combined.keySet()) {
+                int score = score(key >>> 1, (key & 1) != 0, inventory, squaresLeft);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestKey = key;
+                }
+            }
+
+            Plan plan = new Plan(packings.size(), bestScore);
+            for (int r = packings.size() - 1; r >= 0; r--) {
+                int regionKey = stages.get(r).get(bestKey);
+                plan.pieces[r] = regionKey >>> 1;
+                plan.monominoLast[r] = (regionKey & 1) != 0;
+                // The previous combination had the other pieces; it ended with the monomino
+                // only if that region's packing did not
+                int previousPieces = (bestKey >>> 1) & ~plan.pieces[r];
+                bestKey = previousKey(stages, r, previousPieces, (bestKey & 1) != 0 && !plan.monominoLast[r]);
+            }
+            return plan;
+        }
+
+        private int previousKey(List<Map<Integer, Integer>> stages, int r, int pieces, boolean monominoLast) {
+            int key = pieces << 1 | (monominoLast ? 1 : 0);
+            if (r > 0 && !stages.get(r - 1).containsKey(key)) {
+                // Either flag leads to the same score once the later regions are fixed
+                key ^= 1;
+            }
+            return key;
+        }
+
+        /**
+         * Score of the bot after placing {@code pieces}, with the rules of {@link GamePosition#score}
+         */
+        private int score(int pieces, boolean monominoLast, int inventory, int squaresLeft) {
+            if (pieces != inventory) {
+                return -(squaresLeft - squares(pieces));
+            }
+            return ALL_PIECES_BONUS + (monominoLast ? MONOMINO_LAST_BONUS : 0);
+        }
+
+        /**
+         * Finds a move that starts the plan. When the plan ends with the monomino, its region
+         * is played after the others.
+         */
+        private int firstMove(BoardState board, List<BitBoard> regions, Plan plan) {
+            int region = -1;
+            for (int r = 0; r < regions.size(); r++) {
+                if (plan.pieces[r] != 0 && (region < 0 || plan.monominoLast[region])) {
+                    region = r;
+                }
+            }
+            if (region < 0) {
+                // Any placement would have improved the score: no piece fits anywhere
+                return Move.PASS;
+            }
+
+            BitBoard cells = regions.get(region);
+            int pieces = plan.pieces[region];
+            boolean monominoLast = plan.monominoLast[region] && plan.score > ALL_PIECES_BONUS;
+            int[] found = {Move.PASS};
+            BitBoard anchors = new BitBoard(board.getAnchors(color));
+            anchors.and(cells);
+            for (int anchor = anchors.nextSetBit(0); anchor >= 0 && found[0] == Move.PASS;
+                    anchor = anchors.nextSetBit(anchor + 1)) {
+                LegalMoveGenerator.forEachFromAnchor(board, color, pieces, anchor, move -> {
+                    if (completes(play(board, move), cells, pieces & ~(1 << Move.pieceId(move)),
+                            Move.pieceId(move), monominoLast)) {
+                        found[0] = move;
+                        return false;
+                    }
+                    return true;
+                });
+            }
+            return found[0];
+        }
+
+        /**
+         * Checks that the rest of a region's pieces can still all be placed after a move
+         */
+        private boolean completes(BoardState board, BitBoard region, int rest, int pieceId, boolean monominoLast) {
+            if (rest == 0) {
+                return !monominoLast || pieceId == MONOMINO_ID;
+            }
+            Boolean restMonominoLast = packings(board, region, rest).get(rest);
+            return restMonominoLast != null && (!monominoLast || restMonominoLast);
+        }
+    }
+
+    /**
+     * Unwinds the solver when it gives up
+     */
+    private static final class SolverAborted extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+        private static final SolverAborted INSTANCE = new SolverAborted();
+
+        private SolverAborted() {
+            super(null, null, false, false);
+        }
+    }
+}
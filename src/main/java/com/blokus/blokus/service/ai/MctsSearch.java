@@ -0,0 +1,585 @@
+package com.blokus.blokus.service.ai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.BitBoard;
+import com.blokus.blokus.service.engine.BoardState;
+import com.blokus.blokus.service.engine.GamePosition;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.engine.PieceOrientations;
+import com.blokus.blokus.service.engine.PieceOrientations.Orientation;
+
+/**
+ * Monte Carlo Tree Search bot for the 4-color game.
+ * <p>
+ * Every node keeps the total reward of each color, and a node picks its child with UCT on the
+ * rewards of the color to move (max^n). Playouts use a cheap sampling policy biased towards
+ * large pieces, on a {@link GamePosition} that is played forward with make/unmake and never
+ * copied.
+ * A playout rewards the winner(s) and, to a lesser degree, every color by its final score.
+ * <p>
+ * The tree is shared by the calling thread and helpers of a work-stealing pool (tree
+ * parallelism); a virtual loss spreads the threads over different branches. After a search
+ * the tree of the bot is kept, and the next search of the same bot starts from the subtree
+ * reached by the moves played since, if the tree has it.
+ * <p>
+ * Ponder searches of predicted positions keep their trees apart, so they never replace the
+ * tree of the bot's last real search. When the human plays a predicted move, the bot's next
+ * search starts from the pondered tree of that position, or from its subtree a round later
+ * if the pondered move was played without a search.
+ */
+public class MctsSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(MctsSearch.class);
+
+    private static final int COLORS = GamePosition.TURN_ORDER.length;
+    private static final double EXPLORATION = 0.7;
+    private static final double WIN_WEIGHT = 0.7;
+    private static final int MAX_TREES = 256;
+    // Random placements tried per playout move before falling back to the legal move list
+    private static final int ROLLOUT_SAMPLES = 24;
+
+    private final ForkJoinPool pool;
+    private final int threads;
+    // Trees kept between turns, per game and bot color, least recently used first
+    private final Map<Long, Tree> trees = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Tree> eldest) {
+            return size() > MAX_TREES;
+        }
+    };
+    // Trees of the ponder searches, per game and bot color, guarded by the lock of trees
+    private final Map<Long, PonderTrees> ponderTrees = new HashMap<>();
+    private final LongAdder totalPlayouts = new LongAdder();
+    private final LongAdder totalSearchNanos = new LongAdder();
+
+    /**
+     * @param threads Number of threads searching one tree, the caller included
+     */
+    public MctsSearch(int threads) {
+        this.threads = Math.max(1, threads);
+        this.pool = this.threads > 1 ? new ForkJoinPool(this.threads - 1) : null;
+    }
+
+    /**
+     * Searches the bot's move until the turn's budget runs out, one node of the budget per playout
+     *
+     * @return The most visited move, or {@link Move#PASS} if the bot cannot move
+     */
+    public int chooseMove(AiTurn turn) {
+        GamePosition position = turn.getPosition();
+        SearchBudget budget = turn.getBudget();
+        long start = System.nanoTime();
+
+        Tree tree = turn.isPondering() ? ponderTree(turn) : reuseTree(turn);
+        long reusedVisits = tree.root.visits;
+        boolean[] active = activeColors(position);
+
+        List<ForkJoinTask<Integer>> helpers = new ArrayList<>();
+        if (pool != null) {
+            for (int i = 1; i < threads; i++) {
+                helpers.add(pool.submit(() -> runPlayouts(tree.root, position, active, budget)));
+            }
+        }
+        int playouts = runPlayouts(tree.root, position, active, budget);
+        for (ForkJoinTask<Integer> helper : helpers) {
+            playouts += helper.join();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        totalPlayouts.add(playouts);
+        totalSearchNanos.add(elapsed);
+        logger.info("MCTS {} bot of game {}: {} playouts in {} ms ({} playouts/s), {} visits reused",
+                turn.getColor(), turn.getGameId(), playouts, elapsed / 1_000_000,
+                Math.round(playouts / Math.max(1e-9, elapsed / 1e9)), reusedVisits);
+
+        int move = tree.root.mostVisitedMove(position.toMove().ordinal());
+        if (move == Node.NONE) {
+            // Not a single playout finished: play the first legal move
+            int[] legalMoves = position.listLegalMoves();
+            return legalMoves.length > 0 ? legalMoves[0] : Move.PASS;
+        }
+        return move;
+    }
+
+    /**
+     * Drops the trees kept for a game
+     */
+    public void forget(Long gameId) {
+        synchronized (trees) {
+            for (PlayerColor color : PlayerColor.values()) {
+                trees.remove(treeKey(gameId, color));
+                ponderTrees.remove(treeKey(gameId, color));
+            }
+        }
+    }
+
+    /**
+     * Starts a round of ponder searches for a bot: the trees of the previous round become the
+     * trees the new ones may start from
+     */
+    public void startPondering(Long gameId, PlayerColor color) {
+        synchronized (trees) {
+            PonderTrees pondered = ponderTrees.computeIfAbsent(treeKey(gameId, color), key -> new PonderTrees());
+            if (!pondered.current.isEmpty()) {
+                pondered.previous = new ArrayList<>(pondered.current.values());
+                pondered.current = new HashMap<>();
+            }
+        }
+    }
+
+    /**
+     * Playouts per second of all searches so far, per search rather than per thread
+     */
+    public double playoutsPerSecond() {
+        long nanos = totalSearchNanos.sum();
+        return nanos == 0 ? 0 : totalPlayouts.sum() / (nanos / 1e9);
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    private int runPlayouts(Node root, GamePosition rootPosition, boolean[] active, SearchBudget budget) {
+        GamePosition position = rootPosition.copy();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double[] rewards = new double[COLORS];
+        BitBoard mask = new BitBoard();
+        int playouts = 0;
+        while (budget.tick()) {
+            playout(root, position, active, random, rewards, mask);
+            playouts++;
+        }
+        return playouts;
+    }
+
+    /**
+     * Selects and expands a leaf, plays the game out from it and backs the rewards up
+     */
+    private void playout(Node root, GamePosition position, boolean[] active, ThreadLocalRandom random,
+                         double[] rewards, BitBoard mask) {
+        Node node = root;
+        while (true) {
+            Node next;
+            synchronized (node) {
+                if (position.isGameOver()) {
+                    break;
+                }
+                if (node.untried == null) {
+                    int[] moves = position.listLegalMoves();
+                    node.untried = moves.length > 0 ? expansionOrder(moves, random) : new int[]{Move.PASS};
+                }
+                if (node.expanded < node.untried.length) {
+                    int move = node.untried[node.expanded++];
+                    next = new Node(node, move);
+                    node.children.add(next);
+                    next.addVirtualLoss();
+                    position.make(move);
+                    node = next;
+                    break;
+                }
+                next = node.selectChild(position.toMove().ordinal());
+                next.addVirtualLoss();
+            }
+            position.make(next.move);
+            node = next;
+        }
+        int treePlies = position.getPly();
+
+        while (!position.isGameOver()) {
+            position.make(rolloutMove(position, random, mask));
+        }
+        reward(position, active, rewards);
+        while (position.getPly() > treePlies) {
+            position.unmake();
+        }
+
+        for (Node n = node; n != null; n = n.parent) {
+            synchronized (n) {
+                n.visits++;
+                if (n != root) {
+                    n.virtualLoss--;
+                }
+                for (int c = 0; c < COLORS; c++) {
+                    n.rewards[c] += rewards[c];
+                }
+            }
+        }
+        while (position.getPly() > 0) {
+            position.unmake();
+        }
+    }
+
+    /**
+     * Moves in the order they are expanded: largest pieces first, in random order within a size,
+     * so that a small budget still tries the moves a player would look at first
+     */
+    private static int[] expansionOrder(int[] moves, ThreadLocalRandom random) {
+        for (int i = moves.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = moves[i];
+            moves[i] = moves[j];
+            moves[j] = swap;
+        }
+        int[] ordered = new int[moves.length];
+        int count = 0;
+        for (int size = PieceOrientations.MAX_CELLS; size >= 1; size--) {
+            for (int move : moves) {
+                if (Move.size(move) == size) {
+                    ordered[count++] = move;
+                }
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Move of a playout. Random placements of the larger of two random pieces at a random anchor
+     * are tried first, which is much cheaper than generating every legal move; when they all
+     * fail, a legal move is drawn from the full list.
+     */
+    private static int rolloutMove(GamePosition position, ThreadLocalRandom random, BitBoard mask) {
+        PlayerColor color = position.toMove();
+        int inventory = position.getInventory(color);
+        if (inventory == 0) {
+            return Move.PASS;
+        }
+        BoardState board = position.getBoard();
+        BitBoard anchors = board.getAnchors(color);
+        int anchorCount = anchors.cardinality();
+        if (anchorCount == 0) {
+            return Move.PASS;
+        }
+        for (int attempt = 0; attempt < ROLLOUT_SAMPLES; attempt++) {
+            int anchor = nthSetBit(anchors, random.nextInt(anchorCount));
+            int pieceId = randomPiece(inventory, random);
+            int other = randomPiece(inventory, random);
+            if (PieceOrientations.cellCount(other) > PieceOrientations.cellCount(pieceId)) {
+                pieceId = other;
+            }
+            Orientation[] orientations = PieceOrientations.unique(pieceId);
+            Orientation orientation = orientations[random.nextInt(orientations.length)];
+            int cell = random.nextInt(orientation.cellCount());
+            int x = anchor % BitBoard.SIZE - orientation.cellX(cell);
+            int y = anchor / BitBoard.SIZE - orientation.cellY(cell);
+            if (orientation.fillMask(mask, x, y) && board.isLegalPlacement(color, mask)) {
+                return Move.of(orientation, x, y);
+            }
+        }
+        return weightedLegalMove(position, random);
+    }
+
+    private static int randomPiece(int inventory, ThreadLocalRandom random) {
+        int n = random.nextInt(Integer.bitCount(inventory));
+        int bits = inventory;
+        for (int i = 0; i < n; i++) {
+            bits &= bits - 1;
+        }
+        return Integer.numberOfTrailingZeros(bits);
+    }
+
+    private static int nthSetBit(BitBoard bits, int n) {
+        int index = bits.nextSetBit(0);
+        for (int i = 0; i < n; i++) {
+            index = bits.nextSetBit(index + 1);
+        }
+        return index;
+    }
+
+    /**
+     * Random legal move, weighted by the cube of its size so that large pieces go first
+     */
+    private static int weightedLegalMove(GamePosition position, ThreadLocalRandom random) {
+        int[] chosen = {Move.PASS};
+        int[] totalWeight = {0};
+        position.forEachLegalMove(move -> {
+            int size = Move.size(move);
+            int weight = size * size * size;
+            totalWeight[0] += weight;
+            if (random.nextInt(totalWeight[0]) < weight) {
+                chosen[0] = move;
+            }
+            return true;
+        });
+        return chosen[0];
+    }
+
+    /**
+     * Reward of each color at the end of a playout: a share of the win, plus its score
+     * normalized between the worst and the best active color
+     */
+    private static void reward(GamePosition position, boolean[] active, double[] rewards) {
+        int best = Integer.MIN_VALUE;
+        int worst = Integer.MAX_VALUE;
+        int winners = 0;
+        int[] scores = new int[COLORS];
+        for (PlayerColor color : GamePosition.TURN_ORDER) {
+            int c = color.ordinal();
+            if (!active[c]) {
+                continue;
+            }
+            scores[c] = position.score(color);
+            if (scores[c] > best) {
+                best = scores[c];
+                winners = 1;
+            } else if (scores[c] == best) {
+                winners++;
+            }
+            worst = Math.min(worst, scores[c]);
+        }
+        for (int c = 0; c < COLORS; c++) {
+            if (!active[c]) {
+                rewards[c] = 0;
+                continue;
+            }
+            double win = scores[c] == best ? 1.0 / winners : 0;
+            double normalized = best == worst ? 0.5 : (scores[c] - worst) / (double) (best - worst);
+            rewards[c] = WIN_WEIGHT * win + (1 - WIN_WEIGHT) * normalized;
+        }
+    }
+
+    /**
+     * Colors playing in the game: those with pieces left or already on the board
+     */
+    private static boolean[] activeColors(GamePosition position) {
+        boolean[] active = new boolean[COLORS];
+        for (PlayerColor color : GamePosition.TURN_ORDER) {
+            active[color.ordinal()] = position.getInventory(color) != 0 || position.getBoard().hasPlaced(color);
+        }
+        return active;
+    }
+
+    /**
+     * Takes the subtree of the bot's previous search reached by the moves played since,
+     * or a new tree if there is none
+     */
+    private Tree reuseTree(AiTurn turn) {
+        GamePosition position = turn.getPosition();
+        Long key = treeKey(turn.getGameId(), turn.getColor());
+        Tree previous;
+        PonderTrees pondered;
+        synchronized (trees) {
+            previous = trees.get(key);
+            // This search supersedes the pondering of the turn
+            pondered = ponderTrees.remove(key);
+        }
+        Tree tree = null;
+        if (pondered != null) {
+            Tree exact = pondered.current.get(position.getHash());
+            if (exact != null && Tree.samePosition(exact.position, position)) {
+                tree = exact;
+            }
+            tree = tree != null ? tree : descendAny(pondered.current.values(), position);
+            tree = tree != null ? tree : descendAny(pondered.previous, position);
+        }
+        if (tree == null && previous != null) {
+            tree = previous.descend(position);
+        }
+        if (tree == null) {
+            tree = new Tree(new Node(null, Node.NONE), position.copy());
+        }
+        synchronized (trees) {
+            trees.put(key, tree);
+        }
+        return tree;
+    }
+
+    /**
+     * Takes the subtree of the last ponder round or of the bot's previous search reached by the
+     * predicted position, or a new tree. The tree is kept with the round's ponder trees.
+     */
+    private Tree ponderTree(AiTurn turn) {
+        GamePosition position = turn.getPosition();
+        Long key = treeKey(turn.getGameId(), turn.getColor());
+        Tree previous;
+        List<Tree> bases;
+        synchronized (trees) {
+            previous = trees.get(key);
+            PonderTrees pondered = ponderTrees.get(key);
+            bases = pondered != null ? pondered.previous : List.of();
+        }
+        Tree tree = descendAny(bases, position);
+        if (tree == null && previous != null) {
+            tree = previous.descend(position);
+        }
+        if (tree == null) {
+            tree = new Tree(new Node(null, Node.NONE), position.copy());
+        }
+        synchronized (trees) {
+            ponderTrees.computeIfAbsent(key, k -> new PonderTrees()).current.put(position.getHash(), tree);
+        }
+        return tree;
+    }
+
+    private static Tree descendAny(Iterable<Tree> bases, GamePosition position) {
+        for (Tree base : bases) {
+            Tree tree = base.descend(position);
+            if (tree != null) {
+                return tree;
+            }
+        }
+        return null;
+    }
+
+    private static Long treeKey(Long gameId, PlayerColor color) {
+        return gameId * COLORS + color.ordinal();
+    }
+
+    /**
+     * Trees of a bot's ponder searches, by hash of their predicted position
+     */
+    private static final class PonderTrees {
+
+        private Map<Long, Tree> current = new HashMap<>();
+        private List<Tree> previous = List.of();
+    }
+
+    private static final class Tree {
+
+        private final Node root;
+        private final GamePosition position;
+
+        private Tree(Node root, GamePosition position) {
+            this.root = root;
+            this.position = position;
+        }
+
+        /**
+         * Follows one move of each color from this tree's position to {@code target}, a full
+         * round later. The moves are read from the inventories and the board of the target,
+         * then checked by replaying them.
+         */
+        private Tree descend(GamePosition target) {
+            if (target.toMove() != position.toMove()) {
+                return null;
+            }
+            GamePosition replay = position.copy();
+            BitBoard mask = new BitBoard();
+            Node node = root;
+            for (int i = 0; i < COLORS && node != null; i++) {
+                PlayerColor color = replay.toMove();
+                int removed = replay.getInventory(color) & ~target.getInventory(color);
+                Node next = null;
+                synchronized (node) {
+                    for (Node child : node.children) {
+                        if (matches(child.move, removed, color, target, mask)) {
+                            next = child;
+                            break;
+                        }
+                    }
+                }
+                if (next != null) {
+                    replay.make(next.move);
+                }
+                node = next;
+            }
+            if (node == null || !samePosition(replay, target)) {
+                return null;
+            }
+            // The new root has no parent, so backups stop at it
+            synchronized (node) {
+                node.parent = null;
+            }
+            return new Tree(node, target.copy());
+        }
+
+        private static boolean matches(int move, int removed, PlayerColor color, GamePosition target, BitBoard mask) {
+            if (move == Move.PASS) {
+                return removed == 0;
+            }
+            if (removed != 1 << Move.pieceId(move)) {
+                return false;
+            }
+            Move.fillMask(move, mask);
+            mask.andNot(target.getBoard().getLayer(color));
+            return mask.isEmpty();
+        }
+
+        private static boolean samePosition(GamePosition a, GamePosition b) {
+            for (PlayerColor color : PlayerColor.values()) {
+                if (a.getInventory(color) != b.getInventory(color)
+                        || !a.getBoard().getLayer(color).equals(b.getBoard().getLayer(color))) {
+                    return false;
+                }
+            }
+            return a.toMove() == b.toMove();
+        }
+    }
+
+    private static final class Node {
+
+        private static final int NONE = Integer.MIN_VALUE;
+
+        private Node parent;
+        private final int move;
+        private final List<Node> children = new ArrayList<>();
+        private final double[] rewards = new double[COLORS];
+        // Legal moves in expansion order, the first ones already being children
+        private int[] untried;
+        private int expanded;
+        // Written under the node's lock only, read by the selection of its parent
+        private volatile int visits;
+        private volatile int virtualLoss;
+
+        private Node(Node parent, int move) {
+            this.parent = parent;
+            this.move = move;
+        }
+
+        /**
+         * Marks a playout in flight through this node. Called by the selection, which holds the
+         * parent's lock: locks are only ever nested from a parent to its child.
+         */
+        private synchronized void addVirtualLoss() {
+            virtualLoss++;
+        }
+
+        /**
+         * UCT child for the color to move. Must hold this node's lock; children in flight
+         * count their virtual losses as visits without reward. Rewards of the children may be
+         * read slightly stale, which only blurs the selection.
+         */
+        private Node selectChild(int toMove) {
+            double logVisits = Math.log(Math.max(1, visits + virtualLoss));
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Node child : children) {
+                double n = child.visits + child.virtualLoss;
+                double value = n == 0 ? Double.POSITIVE_INFINITY
+                        : child.rewards[toMove] / n + EXPLORATION * Math.sqrt(logVisits / n);
+                if (value > bestValue) {
+                    best = child;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Most visited move, ties broken by the mean reward of the color to move
+         */
+        private synchronized int mostVisitedMove(int toMove) {
+            Node best = null;
+            for (Node child : children) {
+                if (best == null || child.visits > best.visits
+                        || (child.visits == best.visits && child.visits > 0
+                            && child.rewards[toMove] / child.visits > best.rewards[toMove] / best.visits)) {
+                    best = child;
+                }
+            }
+            return best != null && best.visits > 0 ? best.move : NONE;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.blokus.blokus.service.ai;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.BitBoard;
+import com.blokus.blokus.service.engine.BoardState;
+import com.blokus.blokus.service.engine.GamePosition;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.engine.Zobrist;
+
+/**
+ * Precomputed opening moves of the bots, looked up in constant time.
+ * <p>
+ * Early in the game every color plays alone in its starting corner, so an entry is keyed by
+ * the color's own pieces only: the {@link Zobrist} keys of its cells and of its inventory.
+ * The book then holds each corner's first moves whatever the opponents played, and a book
+ * move is only returned if it is still legal on the actual board.
+ * <p>
+ * The file is an open-addressing hash table that is probed in place, so it can be memory
+ * mapped as it is: a header (magic, version, fingerprint of the Zobrist keys, capacity, entry
+ * count) then {@code capacity} slots of a 64-bit key and a move, key 0 marking an empty slot.
+ * The books are written by {@link OpeningBookGenerator}.
+ */
+public class OpeningBook {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpeningBook.class);
+
+    static final int MAGIC = 0x424B4F42;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int SLOT_BYTES = 12;
+
+    private static final OpeningBook EMPTY = new OpeningBook(null, 0, 0);
+
+    private final ByteBuffer slots;
+    private final int mask;
+    private final int size;
+
+    private OpeningBook(ByteBuffer slots, int capacity, int size) {
+        this.slots = slots;
+        this.mask = capacity - 1;
+        this.size = size;
+    }
+
+    /**
+     * A book without entries
+     */
+    public static OpeningBook empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Loads a book, memory mapped if the resource is a file. A missing or unreadable book
+     * only disables the book: the bots search their opening moves.
+     */
+    public static OpeningBook load(Resource resource) {
+        if (resource == null || !resource.exists()) {
+            logger.warn("No opening book at {}, the bots search their opening moves", resource);
+            return EMPTY;
+        }
+        try {
+            ByteBuffer data;
+            if (resource.isFile()) {
+                try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+                    data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            } else {
+                // Inside a jar the book cannot be mapped, it is small enough to be read
+                try (InputStream in = resource.getInputStream()) {
+                    data = ByteBuffer.wrap(in.readAllBytes());
+                }
+            }
+            OpeningBook book = of(data);
+            logger.info("Loaded opening book {} with {} entries", resource.getFilename(), book.size());
+            return book;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Could not load the opening book {}, the bots search their opening moves", resource, e);
+            return EMPTY;
+        }
+    }
+
+    /**
+     * Reads a book from its file format
+     *
+     * @throws IllegalArgumentException if the data is not a book of this version and these Zobrist keys
+     */
+    static OpeningBook of(ByteBuffer data) {
+        if (data.remaining() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported or truncated opening book");
+        }
+        if (data.getLong(8) != fingerprint()) {
+            throw new IllegalArgumentException("Opening book was written with other Zobrist keys");
+        }
+        int capacity = data.getInt(16);
+        int size = data.getInt(20);
+        if (Integer.bitCount(capacity) != 1 || size >= capacity
+                || data.remaining() < HEADER_BYTES + (long) capacity * SLOT_BYTES) {
+            throw new IllegalArgumentException("Corrupted opening book");
+        }
+        return new OpeningBook(data.duplicate().position(HEADER_BYTES).slice(), capacity, size);
+    }
+
+    /**
+     * Writes a book of opening moves by key, in a table twice as large as the entries
+     */
+    static void write(Map<Long, Integer> moves, Path file) throws IOException {
+        int capacity = Integer.highestOneBit(Math.max(1, moves.size() * 2 - 1)) << 1;
+        ByteBuffer data = ByteBuffer.allocate(HEADER_BYTES + capacity * SLOT_BYTES);
+        data.putInt(MAGIC).putInt(VERSION).putLong(fingerprint()).putInt(capacity).putInt(moves.size());
+        for (Map.Entry<Long, Integer> entry : moves.entrySet()) {
+            int slot = (int) mix(entry.getKey()) & (capacity - 1);
+            while (data.getLong(HEADER_BYTES + slot * SLOT_BYTES) != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            data.putLong(HEADER_BYTES + slot * SLOT_BYTES, entry.getKey());
+            data.putInt(HEADER_BYTES + slot * SLOT_BYTES + 8, entry.getValue());
+        }
+        Files.write(file, data.array());
+    }
+
+    /**
+     * Looks up the book move of the color to move
+     *
+     * @return The book move if it is still legal, {@link Move#PASS} otherwise
+     */
+    public int lookup(GamePosition position) {
+        if (size == 0) {
+            return Move.PASS;
+        }
+        PlayerColor color = position.toMove();
+        int inventory = position.getInventory(color);
+        int move = find(keyOf(position.getBoard(), color, inventory));
+        if (move == Move.PASS || (inventory & (1 << Move.pieceId(move))) == 0) {
+            return Move.PASS;
+        }
+        BitBoard cells = new BitBoard();
+        Move.fillMask(move, cells);
+        return position.getBoard().isLegalPlacement(color, cells) ? move : Move.PASS;
+    }
+
+    private int find(long key) {
+        if (key == 0) {
+            return Move.PASS;
+        }
+        for (int slot = (int) mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long slotKey = slots.getLong(slot * SLOT_BYTES);
+            if (slotKey == key) {
+                return slots.getInt(slot * SLOT_BYTES + 8);
+            }
+            if (slotKey == 0) {
+                return Move.PASS;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Key of the pieces a color placed and still has
+     */
+    static long keyOf(BoardState board, PlayerColor color, int inventory) {
+        long key = Zobrist.perspective(color) ^ Zobrist.inventory(color, inventory);
+        BitBoard layer = board.getLayer(color);
+        for (int cell = layer.nextSetBit(0); cell >= 0; cell = layer.nextSetBit(cell + 1)) {
+            key ^= Zobrist.cell(color, cell);
+        }
+        return key;
+    }
+
+    /**
+     * Folds the high bits of a key into its slot index
+     */
+    private static long mix(long key) {
+        return key ^ (key >>> 32);
+    }
+
+    /**
+     * Identifies the Zobrist keys a book was written with, which its keys depend on
+     */
+    private static long fingerprint() {
+        return Zobrist.cell(PlayerColor.BLUE, 0) ^ Zobrist.piece(PlayerColor.GREEN, 1)
+                ^ Zobrist.perspective(PlayerColor.RED);
+    }
+}
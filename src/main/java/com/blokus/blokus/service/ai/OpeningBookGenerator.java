@@ -0,0 +1,70 @@
+package com.blokus.blokus.service.ai;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.FeatureMaps;
+import com.blokus.blokus.service.engine.GamePosition;
+import com.blokus.blokus.service.engine.Move;
+
+/**
+ * Writes the {@link OpeningBook} offline, by self-play of the paranoid bot on the HARD budget:
+ * the first moves each color plays from its starting corner become the book.
+ * <p>
+ * Run it from the project directory after {@code mvn compile}, with the output file and the
+ * number of moves per color as arguments:
+ * <pre>
+ * java -cp target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     com.blokus.blokus.service.ai.OpeningBookGenerator src/main/resources/ai/opening-book.bin 4
+ * </pre>
+ */
+public final class OpeningBookGenerator {
+
+    private static final String DEFAULT_FILE = "src/main/resources/ai/opening-book.bin";
+    private static final int DEFAULT_MOVES_PER_COLOR = 4;
+    private static final int TABLE_ENTRIES = 1 << 22;
+    private static final int BEAM_WIDTH = 12;
+
+    private OpeningBookGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args.length > 0 ? args[0] : DEFAULT_FILE);
+        int movesPerColor = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MOVES_PER_COLOR;
+
+        Map<Long, Integer> book = generate(movesPerColor);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        OpeningBook.write(book, file);
+        System.out.println("Wrote " + book.size() + " opening moves to " + file);
+    }
+
+    /**
+     * Plays the opening rounds of a self-play game
+     *
+     * @return The move played by key of the color's pieces, in playing order
+     */
+    static Map<Long, Integer> generate(int movesPerColor) {
+        ParanoidSearch search = new ParanoidSearch(BEAM_WIDTH, new TranspositionTable(TABLE_ENTRIES));
+        GamePosition position = GamePosition.initial();
+        Map<Long, Integer> book = new LinkedHashMap<>();
+        for (int ply = 0; ply < movesPerColor * GamePosition.TURN_ORDER.length; ply++) {
+            PlayerColor color = position.toMove();
+            SearchBudget budget = new SearchBudget(AiDifficulty.HARD, null);
+            budget.start();
+            int move = search.chooseMove(new AiTurn(0L, 0L, null, color, position.copy(),
+                    new FeatureMaps(position.getBoard()), false, budget));
+            if (move != Move.PASS) {
+                book.put(OpeningBook.keyOf(position.getBoard(), color, position.getInventory(color)), move);
+                System.out.println(color + ": " + Move.toString(move));
+            }
+            position.make(move);
+        }
+        return book;
+    }
+}
@@ -0,0 +1,324 @@
+package com.blokus.blokus.service.ai;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.GamePosition;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.engine.Zobrist;
+
+/**
+ * Paranoid alpha-beta bot for the 4-color game: the bot maximizes its evaluation and assumes
+ * the other colors play together to minimize it.
+ * <p>
+ * The search deepens one ply at a time until the turn's budget runs out, and plays the best
+ * move of the last completed depth. Each depth is first searched in an aspiration window
+ * around the previous score. Moves are ordered largest piece first, then by the number of
+ * anchors they add; below the root only the first {@code beamWidth} of them are searched, which
+ * is what makes a few plies reachable with hundreds of legal moves per position. Players with
+ * no legal move pass without using a ply. The search is deterministic.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}, which catches the many positions reached
+ * by moves played in another order, and whose best moves are tried first.
+ */
+public class ParanoidSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParanoidSearch.class);
+
+    private static final int COLORS = GamePosition.TURN_ORDER.length;
+    private static final int MAX_DEPTH = 16;
+    private static final int INFINITY = 1_000_000_000;
+    private static final int WIN = 1_000_000;
+    private static final int ASPIRATION_WINDOW = 40;
+    private static final int SQUARE_WEIGHT = 4;
+    private static final int ANCHOR_WEIGHT = 1;
+    // Anchors beyond this count hardly add mobility
+    private static final int ANCHOR_CAP = 24;
+
+    private static final SearchAborted ABORTED = new SearchAborted();
+
+    private final int beamWidth;
+    private final TranspositionTable table;
+
+    /**
+     * @param beamWidth Number of ordered moves searched in every position below the root
+     * @param table     Table shared with the other searches
+     */
+    public ParanoidSearch(int beamWidth, TranspositionTable table) {
+        this.beamWidth = Math.max(1, beamWidth);
+        this.table = table;
+    }
+
+    /**
+     * Searches the bot's move until the turn's budget runs out, one node of the budget per position
+     *
+     * @return The best move found, or {@link Move#PASS} if the bot cannot move
+     */
+    public int chooseMove(AiTurn turn) {
+        Search search = new Search(turn.getPosition().copy(), turn.getColor(), turn.getBudget());
+        int[] rootMoves = search.orderedMoves(Integer.MAX_VALUE, Move.PASS);
+        table.newSearch();
+        if (rootMoves.length == 1) {
+            return rootMoves[0];
+        }
+
+        int bestMove = rootMoves[0];
+        int score = 0;
+        int depth = 0;
+        while (depth < MAX_DEPTH) {
+            int nextDepth = depth + 1;
+            try {
+                int alpha = depth == 0 ? -INFINITY : score - ASPIRATION_WINDOW;
+                int beta = depth == 0 ? INFINITY : score + ASPIRATION_WINDOW;
+                int value = search.root(rootMoves, nextDepth, alpha, beta);
+                if (value <= alpha || value >= beta) {
+                    // Outside the window: search this depth again with a full window
+                    value = search.root(rootMoves, nextDepth, -INFINITY, INFINITY);
+                }
+                score = value;
+                bestMove = search.rootBest;
+                depth = nextDepth;
+            } catch (SearchAborted e) {
+                if (depth == 0 && search.rootBest != Move.PASS) {
+                    // Not even one ply completed: take the best of the moves searched
+                    bestMove = search.rootBest;
+                }
+                break;
+            }
+            if (search.reachedGameEnd) {
+                break;
+            }
+            // The best move is searched first at the next depth
+            moveToFront(rootMoves, bestMove);
+        }
+
+        SearchBudget budget = turn.getBudget();
+        logger.info("Paranoid {} bot of game {}: depth {} score {} in {} nodes, {} ms ({} nodes/s, {}% table hits)",
+                turn.getColor(), turn.getGameId(), depth, score, budget.nodes(), budget.elapsedMillis(),
+                budget.nodes() * 1000 / Math.max(1, budget.elapsedMillis()), Math.round(table.hitRate() * 100));
+        return bestMove;
+    }
+
+    private static void moveToFront(int[] moves, int move) {
+        for (int i = 0; i < moves.length; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+
+    /**
+     * State of one search, confined to the searching thread
+     */
+    private final class Search {
+
+        private final GamePosition position;
+        private final PlayerColor me;
+        private final SearchBudget budget;
+        private final boolean[] active = new boolean[COLORS];
+        // Values depend on the color searched for, so it is part of the table key
+        private final long perspective;
+        private int rootBest = Move.PASS;
+        // Whether the last depth saw no position left unsearched for lack of depth
+        private boolean reachedGameEnd;
+
+        private Search(GamePosition position, PlayerColor me, SearchBudget budget) {
+            this.position = position;
+            this.me = me;
+            this.budget = budget;
+            this.perspective = Zobrist.perspective(me);
+            for (PlayerColor color : GamePosition.TURN_ORDER) {
+                active[color.ordinal()] = position.getInventory(color) != 0 || position.getBoard().hasPlaced(color);
+            }
+        }
+
+        private int root(int[] moves, int depth, int alpha, int beta) {
+            reachedGameEnd = true;
+            rootBest = Move.PASS;
+            int best = -INFINITY;
+            for (int move : moves) {
+                position.make(move);
+                int value;
+                try {
+                    value = search(depth - 1, Math.max(alpha, best), beta);
+                } finally {
+                    position.unmake();
+                }
+                if (value > best) {
+                    best = value;
+                    rootBest = move;
+                }
+                if (best >= beta) {
+                    break;
+                }
+            }
+            return best;
+        }
+
+        private int search(int depth, int alpha, int beta) {
+            if (!budget.tick()) {
+                throw ABORTED;
+            }
+            if (position.isGameOver()) {
+                return terminal();
+            }
+            if (depth == 0) {
+                reachedGameEnd = false;
+                return evaluate();
+            }
+
+            long hash = position.getHash() ^ perspective;
+            long entry = table.probe(hash);
+            int tableMove = Move.PASS;
+            if (entry != 0) {
+                tableMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int value = TranspositionTable.value(entry);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER_BOUND && value >= beta)
+                            || (bound == TranspositionTable.UPPER_BOUND && value <= alpha)) {
+                        // What lies below is unknown, so the deepening must go on
+                        reachedGameEnd = false;
+                        return value;
+                    }
+                }
+            }
+
+            int originalAlpha = alpha;
+            int originalBeta = beta;
+            int[] moves = orderedMoves(beamWidth, tableMove);
+            // A pass is forced, so it does not use a ply
+            int childDepth = moves[0] == Move.PASS ? depth : depth - 1;
+            boolean maximizing = position.toMove() == me;
+            int best = maximizing ? -INFINITY : INFINITY;
+            int bestMove = moves[0];
+            for (int move : moves) {
+                position.make(move);
+                int value;
+                try {
+                    value = search(childDepth, alpha, beta);
+                } finally {
+                    position.unmake();
+                }
+                if (maximizing ? value > best : value < best) {
+                    best = value;
+                    bestMove = move;
+                }
+                if (maximizing) {
+                    alpha = Math.max(alpha, value);
+                } else {
+                    beta = Math.min(beta, value);
+                }
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                    : best >= originalBeta ? TranspositionTable.LOWER_BOUND
+                    : TranspositionTable.EXACT;
+            table.store(hash, best, depth, bound, bestMove);
+            return best;
+        }
+
+        /**
+         * Legal moves of the color to move: the move from the table first, then largest piece
+         * first and most anchors added
+         *
+         * @return At most {@code limit} moves, or only {@link Move#PASS} if there is none
+         */
+        private int[] orderedMoves(int limit, int tableMove) {
+            int[] moves = position.listLegalMoves();
+            if (moves.length == 0) {
+                return new int[]{Move.PASS};
+            }
+            PlayerColor color = position.toMove();
+            int anchorsBefore = position.getBoard().getAnchors(color).cardinality();
+            long[] keyed = new long[moves.length];
+            for (int i = 0; i < moves.length; i++) {
+                position.make(moves[i]);
+                int anchorsAdded = position.getBoard().getAnchors(color).cardinality() - anchorsBefore;
+                position.unmake();
+                int key = Move.size(moves[i]) * 256 + Math.max(-127, Math.min(127, anchorsAdded)) + 128;
+                // Ascending sort on the negated key, the index keeps it stable
+                keyed[i] = ((long) -key << 32) | i;
+            }
+            Arrays.sort(keyed);
+            int count = Math.min(limit, moves.length);
+            int[] ordered = new int[count];
+            for (int i = 0; i < count; i++) {
+                ordered[i] = moves[(int) keyed[i]];
+            }
+            if (tableMove != Move.PASS) {
+                for (int i = 0; i < moves.length; i++) {
+                    if (moves[(int) keyed[i]] == tableMove) {
+                        // Beyond the beam, it takes the place of the last move
+                        ordered[Math.min(i, count - 1)] = tableMove;
+                        moveToFront(ordered, tableMove);
+                        break;
+                    }
+                }
+            }
+            return ordered;
+        }
+
+        /**
+         * Squares placed and anchors of the bot, against the average of its active opponents
+         */
+        private int evaluate() {
+            int mine = 0;
+            int opponents = 0;
+            int opponentCount = 0;
+            for (PlayerColor color : GamePosition.TURN_ORDER) {
+                if (!active[color.ordinal()]) {
+                    continue;
+                }
+                int anchors = position.getInventory(color) == 0 ? 0
+                        : Math.min(ANCHOR_CAP, position.getBoard().getAnchors(color).cardinality());
+                int value = -SQUARE_WEIGHT * position.getSquaresLeft(color) + ANCHOR_WEIGHT * anchors;
+                if (color == me) {
+                    mine = value;
+                } else {
+                    opponents += value;
+                    opponentCount++;
+                }
+            }
+            return opponentCount == 0 ? mine : mine * opponentCount - opponents;
+        }
+
+        /**
+         * Final position: a win or a loss for the bot, by its score against the best opponent
+         */
+        private int terminal() {
+            int mine = position.score(me);
+            int bestOpponent = -INFINITY;
+            for (PlayerColor color : GamePosition.TURN_ORDER) {
+                if (color != me && active[color.ordinal()]) {
+                    bestOpponent = Math.max(bestOpponent, position.score(color));
+                }
+            }
+            if (bestOpponent == -INFINITY) {
+                return WIN + mine;
+            }
+            int margin = mine - bestOpponent;
+            return margin > 0 ? WIN + margin : margin < 0 ? -WIN + margin : margin;
+        }
+    }
+
+    /**
+     * Unwinds the search when the budget runs out
+     */
+    private static final class SearchAborted extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private SearchAborted() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.blokus.blokus.service.ai;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node and time budget of one bot search, which can also be cancelled from any thread.
+ * <p>
+ * The clock starts with {@link #start()}, when the search begins rather than when the turn was
+ * snapshotted. In TIMED games the time limit is also capped by the turn deadline, keeping a
+ * margin to apply the move before the turn clock expires. Searches call {@link #tick()} for
+ * each node and stop as soon as it returns false.
+ */
+public class SearchBudget {
+
+    /**
+     * Time kept between the end of the search and the turn deadline
+     */
+    static final Duration DEADLINE_MARGIN = Duration.ofSeconds(1);
+
+    private static final long MIN_TIME_NANOS = Duration.ofMillis(10).toNanos();
+
+    private final AiDifficulty difficulty;
+    private final Instant turnDeadline;
+    private final AtomicLong nodes = new AtomicLong();
+    private volatile boolean started;
+    private volatile long startNanos;
+    private volatile long deadlineNanos;
+    private volatile boolean cancelled;
+    private volatile boolean expired;
+
+    /**
+     * @param turnDeadline Deadline of the turn in TIMED games, null otherwise
+     */
+    public SearchBudget(AiDifficulty difficulty, Instant turnDeadline) {
+        this.difficulty = difficulty;
+        this.turnDeadline = turnDeadline;
+    }
+
+    /**
+     * Starts the clock of the search
+     */
+    public void start() {
+        long timeNanos = Duration.ofMillis(difficulty.getTimeMillis()).toNanos();
+        if (turnDeadline != null) {
+            long left = Duration.between(Instant.now(), turnDeadline.minus(DEADLINE_MARGIN)).toNanos();
+            timeNanos = Math.min(timeNanos, Math.max(MIN_TIME_NANOS, left));
+        }
+        startNanos = System.nanoTime();
+        deadlineNanos = startNanos + timeNanos;
+        started = true;
+    }
+
+    /**
+     * Counts a node
+     *
+     * @return false if the search must stop
+     */
+    public boolean tick() {
+        long n = nodes.incrementAndGet();
+        if (cancelled || expired) {
+            return false;
+        }
+        if (n >= difficulty.getMaxNodes()
+                || isPastDeadline()) {
+            expired = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether the search must stop, without counting a node
+     */
+    public boolean isExhausted() {
+        return cancelled || expired || isPastDeadline();
+    }
+
+    private boolean isPastDeadline() {
+        return started && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Stops the search, which then no longer matters
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public AiDifficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public long nodes() {
+        return nodes.get();
+    }
+
+    public long elapsedMillis() {
+        return !started ? 0 : Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+    }
+}
@@ -0,0 +1,137 @@
+package com.blokus.blokus.service.ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.blokus.blokus.service.engine.Move;
+
+/**
+ * Fixed-size, lock-free transposition table of search results, keyed by 64-bit Zobrist hashes
+ * and shared by all search threads and games.
+ * <p>
+ * An entry is two longs: the data packed into one, and the key XOR the data in the other. A
+ * reader checks that both still XOR to its key, so an entry torn by concurrent writers is
+ * seen as a miss rather than as another position's result. Entries live in buckets of two:
+ * the first keeps the deepest result of the current search generation, the second always
+ * takes the newest one.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    // Data layout: value in bits 0-31, depth 32-37, bound 38-39, generation 40-45, move + 1 46-63
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 38;
+    private static final int GENERATION_SHIFT = 40;
+    private static final int MOVE_SHIFT = 46;
+    private static final int MAX_DEPTH = 63;
+    private static final int GENERATIONS = 64;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray data;
+    private final int bucketMask;
+    private volatile int generation;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * @param entries Number of entries, rounded up to a power of two (at least 2)
+     */
+    public TranspositionTable(int entries) {
+        int size = 2;
+        while (size < entries) {
+            size <<= 1;
+        }
+        this.keys = new AtomicLongArray(size);
+        this.data = new AtomicLongArray(size);
+        this.bucketMask = size - 2;
+    }
+
+    /**
+     * Starts a new search generation: entries of older searches are replaced first
+     */
+    public void newSearch() {
+        generation = (generation + 1) % GENERATIONS;
+    }
+
+    /**
+     * Looks a position up
+     *
+     * @return The packed entry, or 0 if the position is not in the table
+     */
+    public long probe(long hash) {
+        probes.increment();
+        int bucket = (int) hash & bucketMask;
+        for (int i = bucket; i < bucket + 2; i++) {
+            long entry = data.getOpaque(i);
+            if (entry != 0 && (keys.getOpaque(i) ^ entry) == hash) {
+                hits.increment();
+                return entry;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of a search of a position
+     *
+     * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     * @param move  Best move found, or {@link Move#PASS}
+     */
+    public void store(long hash, int value, int depth, int bound, int move) {
+        int current = generation;
+        long entry = (value & 0xFFFFFFFFL)
+                | ((long) Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) current << GENERATION_SHIFT)
+                | ((long) (move + 1) << MOVE_SHIFT);
+        int bucket = (int) hash & bucketMask;
+        int slot = bucket + 1;
+        long first = data.getOpaque(bucket);
+        if (first == 0
+                || (keys.getOpaque(bucket) ^ first) == hash
+                || generation(first) != current
+                || depth >= depth(first)) {
+            slot = bucket;
+        }
+        data.setOpaque(slot, entry);
+        keys.setOpaque(slot, hash ^ entry);
+    }
+
+    public static int value(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 3;
+    }
+
+    /**
+     * Best move of an entry, {@link Move#PASS} if none was stored
+     */
+    public static int move(long entry) {
+        return (int) (entry >>> MOVE_SHIFT) - 1;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & (GENERATIONS - 1);
+    }
+
+    /**
+     * Share of probes that found their position
+     */
+    public double hitRate() {
+        long n = probes.sum();
+        return n == 0 ? 0 : hits.sum() / (double) n;
+    }
+
+    public int capacity() {
+        return keys.length();
+    }
+}
@@ -0,0 +1,231 @@
+package com.blokus.blokus.service.engine;
+
+import java.util.Arrays;
+
+/**
+ * A 400-bit set covering the 20x20 Blokus board.
+ * Cell (x, y) is stored at bit index {@code y * 20 + x}, spread over seven 64-bit words.
+ * Neighbourhood operations are done with whole-word shifts and column masks,
+ * so no cell-by-cell loops are needed for contact checks.
+ */
+public final class BitBoard {
+
+    public static final int SIZE = 20;
+    public static final int CELLS = SIZE * SIZE;
+    static final int WORDS = (CELLS + 63) / 64;
+
+    // Cells that exist on the board (bits 400..447 stay clear)
+    private static final long[] BOARD_MASK = new long[WORDS];
+    // Cells that have a neighbour to their left / right on the same row
+    private static final long[] NOT_LEFT_COLUMN = new long[WORDS];
+    private static final long[] NOT_RIGHT_COLUMN = new long[WORDS];
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            BOARD_MASK[i >>> 6] |= 1L << i;
+            int x = i % SIZE;
+            if (x != 0) {
+                NOT_LEFT_COLUMN[i >>> 6] |= 1L << i;
+            }
+            if (x != SIZE - 1) {
+                NOT_RIGHT_COLUMN[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    final long[] words = new long[WORDS];
+
+    public BitBoard() {
+    }
+
+    public BitBoard(BitBoard other) {
+        System.arraycopy(other.words, 0, words, 0, WORDS);
+    }
+
+    /**
+     * Converts board coordinates to a bit index.
+     */
+    public static int index(int x, int y) {
+        return y * SIZE + x;
+    }
+
+    /**
+     * Checks if coordinates are on the board
+     */
+    public static boolean isOnBoard(int x, int y) {
+        return x >= 0 && x < SIZE && y >= 0 && y < SIZE;
+    }
+
+    public boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public boolean get(int x, int y) {
+        return get(index(x, y));
+    }
+
+    public void set(int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    public void set(int x, int y) {
+        set(index(x, y));
+    }
+
+    public void clear(int index) {
+        words[index >>> 6] &= ~(1L << index);
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.words, 0, words, 0, WORDS);
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the first set bit at or after {@code from}, or -1 if there is none.
+     */
+    public int nextSetBit(int from) {
+        if (from >= CELLS) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == WORDS) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    public boolean intersects(BitBoard other) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void or(BitBoard other) {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    public void and(BitBoard other) {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] &= other.words[i];
+        }
+    }
+
+    public void andNot(BitBoard other) {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+
+    /**
+     * Replaces this board by the cells of the board it does not contain
+     */
+    public void invert() {
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = ~words[i] & BOARD_MASK[i];
+        }
+    }
+
+    /**
+     * ORs into this board every cell sharing an edge with a cell of {@code source}.
+     */
+    public void orEdgeNeighboursOf(BitBoard source) {
+        long[] src = source.words;
+        for (int i = 0; i < WORDS; i++) {
+            long east = shiftUp(src, NOT_RIGHT_COLUMN, i, 1);
+            long west = shiftDown(src, NOT_LEFT_COLUMN, i, 1);
+            long south = shiftUp(src, BOARD_MASK, i, SIZE);
+            long north = shiftDown(src, BOARD_MASK, i, SIZE);
+            words[i] |= (east | west | south | north) & BOARD_MASK[i];
+        }
+    }
+
+    /**
+     * ORs into this board every cell sharing only a corner with a cell of {@code source}.
+     */
+    public void orCornerNeighboursOf(BitBoard source) {
+        long[] src = source.words;
+        for (int i = 0; i < WORDS; i++) {
+            long southEast = shiftUp(src, NOT_RIGHT_COLUMN, i, SIZE + 1);
+            long southWest = shiftUp(src, NOT_LEFT_COLUMN, i, SIZE - 1);
+            long northEast = shiftDown(src, NOT_RIGHT_COLUMN, i, SIZE - 1);
+            long northWest = shiftDown(src, NOT_LEFT_COLUMN, i, SIZE + 1);
+            words[i] |= (southEast | southWest | northEast | northWest) & BOARD_MASK[i];
+        }
+    }
+
+    /**
+     * Word {@code i} of {@code (src & mask) << shift}, for 0 < shift < 64.
+     */
+    private static long shiftUp(long[] src, long[] mask, int i, int shift) {
+        long value = (src[i] & mask[i]) << shift;
+        if (i > 0) {
+            value |= (src[i - 1] & mask[i - 1]) >>> (64 - shift);
+        }
+        return value;
+    }
+
+    /**
+     * Word {@code i} of {@code (src & mask) >>> shift}, for 0 < shift < 64.
+     */
+    private static long shiftDown(long[] src, long[] mask, int i, int shift) {
+        long value = (src[i] & mask[i]) >>> shift;
+        if (i < WORDS - 1) {
+            value |= (src[i + 1] & mask[i + 1]) << (64 - shift);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BitBoard other && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                sb.append(get(x, y) ? '#' : '.');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
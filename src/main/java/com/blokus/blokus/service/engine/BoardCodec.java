@@ -0,0 +1,82 @@
+package com.blokus.blokus.service.engine;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+/**
+ * Versioned compact encoding of a board.
+ * <p>
+ * Two bits per cell cannot tell an empty cell from four colors, so the format is one version
+ * byte, a 50-byte occupancy bitmap and then the 2-bit color ordinal of every occupied cell
+ * in index order. A finished game with the whole board covered takes 151 bytes, a typical
+ * mid-game board about 100.
+ */
+public final class BoardCodec {
+
+    public static final int VERSION = 1;
+
+    private static final int OCCUPANCY_BYTES = (BitBoard.CELLS + 7) / 8;
+    private static final PlayerColor[] COLORS = PlayerColor.values();
+
+    private BoardCodec() {
+    }
+
+    public static byte[] encode(BoardState board) {
+        BitBoard occupied = board.getOccupied();
+        int cellCount = occupied.cardinality();
+        byte[] data = new byte[1 + OCCUPANCY_BYTES + (cellCount * 2 + 7) / 8];
+        data[0] = VERSION;
+        int colorBit = 0;
+        for (int cell = occupied.nextSetBit(0); cell >= 0; cell = occupied.nextSetBit(cell + 1)) {
+            data[1 + cell / 8] |= (byte) (1 << (cell % 8));
+            int color = colorAt(board, cell);
+            data[1 + OCCUPANCY_BYTES + colorBit / 8] |= (byte) (color << (colorBit % 8));
+            colorBit += 2;
+        }
+        return data;
+    }
+
+    /**
+     * Rebuilds a board, including its neighbour and anchor layers, from encoded data
+     *
+     * @throws IllegalArgumentException if the data is truncated or of an unknown version
+     */
+    public static BoardState decode(byte[] data) {
+        if (data.length < 1 + OCCUPANCY_BYTES || data[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported or truncated board encoding");
+        }
+        BitBoard[] layers = new BitBoard[COLORS.length];
+        for (int c = 0; c < layers.length; c++) {
+            layers[c] = new BitBoard();
+        }
+        int colorBit = 0;
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            if ((data[1 + cell / 8] & (1 << (cell % 8))) == 0) {
+                continue;
+            }
+            int offset = 1 + OCCUPANCY_BYTES + colorBit / 8;
+            if (offset >= data.length) {
+                throw new IllegalArgumentException("Truncated board encoding");
+            }
+            layers[(data[offset] >>> (colorBit % 8)) & 0b11].set(cell);
+            colorBit += 2;
+        }
+        // Pieces of one color never share an edge, so placing a whole layer at once
+        // yields the same neighbour and anchor layers as placing its pieces one by one
+        BoardState board = new BoardState();
+        for (int c = 0; c < layers.length; c++) {
+            if (!layers[c].isEmpty()) {
+                board.place(COLORS[c], layers[c]);
+            }
+        }
+        return board;
+    }
+
+    private static int colorAt(BoardState board, int cell) {
+        for (int c = 0; c < COLORS.length; c++) {
+            if (board.getLayer(COLORS[c]).get(cell)) {
+                return c;
+            }
+        }
+        throw new IllegalStateException("Occupied cell " + cell + " has no color");
+    }
+}
@@ -0,0 +1,200 @@
+package com.blokus.blokus.service.engine;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+/**
+ * Persistent bitboard representation of one game's board.
+ * Keeps the overall occupancy plus, for every color, the cells it covers and the
+ * cells touching it by an edge or by a corner. All layers are updated incrementally
+ * when a piece is placed, so validating a move never needs to replay the game.
+ * <p>
+ * Each color also has a set of anchors: empty cells touching the color by a corner but
+ * not by an edge (or its starting corner before its first piece). Every legal placement
+ * covers at least one anchor, so move searches only need to try placements around them.
+ * <p>
+ * The board also keeps the {@link Zobrist} hash of the cells covered by each color.
+ */
+public class BoardState {
+
+    private static final int COLORS = PlayerColor.values().length;
+    /** Size of the buffer used by {@link #save} and {@link #restore}: the layers, then the hash. */
+    static final int UNDO_WORDS = (4 + COLORS) * BitBoard.WORDS + 1;
+
+    private final BitBoard occupied = new BitBoard();
+    private final BitBoard[] layers = new BitBoard[COLORS];
+    private final BitBoard[] edgeNeighbours = new BitBoard[COLORS];
+    private final BitBoard[] cornerNeighbours = new BitBoard[COLORS];
+    private final BitBoard[] anchors = new BitBoard[COLORS];
+    private long hash;
+
+    public BoardState() {
+        for (int c = 0; c < COLORS; c++) {
+            layers[c] = new BitBoard();
+            edgeNeighbours[c] = new BitBoard();
+            cornerNeighbours[c] = new BitBoard();
+            anchors[c] = new BitBoard();
+            anchors[c].set(startingCorner(PlayerColor.values()[c]));
+        }
+    }
+
+    /**
+     * Creates an independent copy of another board
+     */
+    public BoardState(BoardState other) {
+        occupied.copyFrom(other.occupied);
+        for (int c = 0; c < COLORS; c++) {
+            layers[c] = new BitBoard(other.layers[c]);
+            edgeNeighbours[c] = new BitBoard(other.edgeNeighbours[c]);
+            cornerNeighbours[c] = new BitBoard(other.cornerNeighbours[c]);
+            anchors[c] = new BitBoard(other.anchors[c]);
+        }
+        hash = other.hash;
+    }
+
+    /**
+     * Gets the bit index of the starting corner for a color
+     * (BLUE top-left, YELLOW top-right, RED bottom-left, GREEN bottom-right).
+     */
+    public static int startingCorner(PlayerColor color) {
+        return switch (color) {
+            case BLUE -> BitBoard.index(0, 0);
+            case YELLOW -> BitBoard.index(BitBoard.SIZE - 1, 0);
+            case RED -> BitBoard.index(0, BitBoard.SIZE - 1);
+            case GREEN -> BitBoard.index(BitBoard.SIZE - 1, BitBoard.SIZE - 1);
+        };
+    }
+
+    /**
+     * Records a piece of the given color covering the cells of {@code pieceMask}.
+     * The caller is responsible for having validated the placement.
+     */
+    public void place(PlayerColor color, BitBoard pieceMask) {
+        int c = color.ordinal();
+        occupied.or(pieceMask);
+        layers[c].or(pieceMask);
+        edgeNeighbours[c].orEdgeNeighboursOf(pieceMask);
+        cornerNeighbours[c].orCornerNeighboursOf(pieceMask);
+        // Covered cells stop being anchors for everyone, the placing color gains the new corners
+        for (BitBoard colorAnchors : anchors) {
+            colorAnchors.andNot(pieceMask);
+        }
+        anchors[c].orCornerNeighboursOf(pieceMask);
+        anchors[c].andNot(edgeNeighbours[c]);
+        anchors[c].andNot(occupied);
+        for (int cell = pieceMask.nextSetBit(0); cell >= 0; cell = pieceMask.nextSetBit(cell + 1)) {
+            hash ^= Zobrist.cell(color, cell);
+        }
+    }
+
+    /**
+     * Saves every layer a placement of {@code color} modifies into {@code buffer}
+     * (at least {@link #UNDO_WORDS} long), so that {@link #restore} can undo it.
+     */
+    void save(PlayerColor color, long[] buffer) {
+        int c = color.ordinal();
+        int pos = 0;
+        pos = copyOut(occupied, buffer, pos);
+        pos = copyOut(layers[c], buffer, pos);
+        pos = copyOut(edgeNeighbours[c], buffer, pos);
+        pos = copyOut(cornerNeighbours[c], buffer, pos);
+        for (BitBoard colorAnchors : anchors) {
+            pos = copyOut(colorAnchors, buffer, pos);
+        }
+        buffer[pos] = hash;
+    }
+
+    /**
+     * Restores the layers saved by {@link #save} for the same color
+     */
+    void restore(PlayerColor color, long[] buffer) {
+        int c = color.ordinal();
+        int pos = 0;
+        pos = copyIn(buffer, pos, occupied);
+        pos = copyIn(buffer, pos, layers[c]);
+        pos = copyIn(buffer, pos, edgeNeighbours[c]);
+        pos = copyIn(buffer, pos, cornerNeighbours[c]);
+        for (BitBoard colorAnchors : anchors) {
+            pos = copyIn(buffer, pos, colorAnchors);
+        }
+        hash = buffer[pos];
+    }
+
+    private static int copyOut(BitBoard board, long[] buffer, int pos) {
+        System.arraycopy(board.words, 0, buffer, pos, BitBoard.WORDS);
+        return pos + BitBoard.WORDS;
+    }
+
+    private static int copyIn(long[] buffer, int pos, BitBoard board) {
+        System.arraycopy(buffer, pos, board.words, 0, BitBoard.WORDS);
+        return pos + BitBoard.WORDS;
+    }
+
+    /**
+     * Zobrist hash of the covered cells of every color. It changes with every placement,
+     * so it also serves as a cheap version of the board.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    public boolean hasPlaced(PlayerColor color) {
+        return !layers[color.ordinal()].isEmpty();
+    }
+
+    public boolean isOccupied(int x, int y) {
+        return occupied.get(x, y);
+    }
+
+    /**
+     * Checks if a piece mask covers any occupied cell
+     */
+    public boolean overlaps(BitBoard pieceMask) {
+        return pieceMask.intersects(occupied);
+    }
+
+    /**
+     * Checks if a piece mask shares an edge with a piece of the same color (forbidden)
+     */
+    public boolean touchesEdge(PlayerColor color, BitBoard pieceMask) {
+        return pieceMask.intersects(edgeNeighbours[color.ordinal()]);
+    }
+
+    /**
+     * Checks if a piece mask shares a corner with a piece of the same color
+     */
+    public boolean touchesCorner(PlayerColor color, BitBoard pieceMask) {
+        return pieceMask.intersects(cornerNeighbours[color.ordinal()]);
+    }
+
+    /**
+     * Checks if a piece mask is a legal placement for the color with respect to the
+     * board contents: no overlap, no edge contact with its own color, and either a
+     * corner contact with its own color or, for the first piece, the starting corner covered.
+     * Both of the latter amount to covering one of the color's anchors.
+     */
+    public boolean isLegalPlacement(PlayerColor color, BitBoard pieceMask) {
+        int c = color.ordinal();
+        return pieceMask.intersects(anchors[c])
+                && !overlaps(pieceMask)
+                && !pieceMask.intersects(edgeNeighbours[c]);
+    }
+
+    public BitBoard getOccupied() {
+        return occupied;
+    }
+
+    public BitBoard getLayer(PlayerColor color) {
+        return layers[color.ordinal()];
+    }
+
+    BitBoard getEdgeNeighbours(PlayerColor color) {
+        return edgeNeighbours[color.ordinal()];
+    }
+
+    /**
+     * Gets the anchor cells of a color. The returned board is live and must not be modified.
+     */
+    public BitBoard getAnchors(PlayerColor color) {
+        return anchors[color.ordinal()];
+    }
+}
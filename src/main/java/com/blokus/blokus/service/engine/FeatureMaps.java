@@ -0,0 +1,165 @@
+package com.blokus.blokus.service.engine;
+
+import java.util.Arrays;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+/**
+ * Per-color territory features of one board, for move evaluation: anchor counts, the cells
+ * each color can reach from its anchors and at what distance, and the cells contested by
+ * several colors.
+ * <p>
+ * Reachability is a breadth-first search by edge steps from the anchors, through the cells
+ * the color may still cover (empty and not touching it by an edge), up to {@link #HORIZON}
+ * steps. It runs on whole bitboards, one shift per step. A placement only changes the
+ * search of a color if it covers one of the cells that color reaches, so only the placing
+ * color and those colors are searched again.
+ */
+public class FeatureMaps {
+
+    /** Number of edge steps searched from the anchors; further cells are at distance HORIZON. */
+    public static final int HORIZON = 6;
+
+    private static final PlayerColor[] COLORS = PlayerColor.values();
+
+    // Indexed by color ordinal, then by distance
+    private final BitBoard[][] reach = new BitBoard[COLORS.length][HORIZON];
+    private final BitBoard[] free = new BitBoard[COLORS.length];
+    private final BitBoard[] contested = new BitBoard[COLORS.length];
+    private final byte[][] distance = new byte[COLORS.length][BitBoard.CELLS];
+    private final int[] anchorCounts = new int[COLORS.length];
+    private final int[] contestedCounts = new int[COLORS.length];
+    private final BitBoard scratch = new BitBoard();
+
+    /**
+     * Computes the features of every color of a board
+     */
+    public FeatureMaps(BoardState board) {
+        for (int c = 0; c < COLORS.length; c++) {
+            for (int d = 0; d < HORIZON; d++) {
+                reach[c][d] = new BitBoard();
+            }
+            free[c] = new BitBoard();
+            contested[c] = new BitBoard();
+            search(board, COLORS[c]);
+        }
+        updateContested();
+    }
+
+    private FeatureMaps(FeatureMaps other) {
+        for (int c = 0; c < COLORS.length; c++) {
+            for (int d = 0; d < HORIZON; d++) {
+                reach[c][d] = new BitBoard(other.reach[c][d]);
+            }
+            free[c] = new BitBoard(other.free[c]);
+            contested[c] = new BitBoard(other.contested[c]);
+            distance[c] = other.distance[c].clone();
+        }
+        System.arraycopy(other.anchorCounts, 0, anchorCounts, 0, COLORS.length);
+        System.arraycopy(other.contestedCounts, 0, contestedCounts, 0, COLORS.length);
+    }
+
+    /**
+     * Creates an independent copy, for a search snapshot
+     */
+    public synchronized FeatureMaps copy() {
+        return new FeatureMaps(this);
+    }
+
+    /**
+     * Updates the features after a placement. Must be called after {@link BoardState#place}.
+     */
+    public synchronized void onPlacement(BoardState board, PlayerColor color, BitBoard pieceMask) {
+        for (PlayerColor other : COLORS) {
+            if (other == color || pieceMask.intersects(reach[other.ordinal()][HORIZON - 1])) {
+                search(board, other);
+            } else {
+                // Out of reach: only the covered cells stop being free
+                free[other.ordinal()].andNot(pieceMask);
+            }
+        }
+        updateContested();
+    }
+
+    /**
+     * Searches the cells a color can reach from its anchors
+     */
+    private void search(BoardState board, PlayerColor color) {
+        int c = color.ordinal();
+        free[c].copyFrom(board.getEdgeNeighbours(color));
+        free[c].or(board.getOccupied());
+        free[c].invert();
+
+        Arrays.fill(distance[c], (byte) HORIZON);
+        BitBoard[] levels = reach[c];
+        levels[0].copyFrom(board.getAnchors(color));
+        anchorCounts[c] = levels[0].cardinality();
+        markDistance(distance[c], levels[0], 0);
+        for (int d = 1; d < HORIZON; d++) {
+            levels[d].copyFrom(levels[d - 1]);
+            levels[d].orEdgeNeighboursOf(levels[d - 1]);
+            levels[d].and(free[c]);
+            scratch.copyFrom(levels[d]);
+            scratch.andNot(levels[d - 1]);
+            markDistance(distance[c], scratch, d);
+        }
+    }
+
+    private void updateContested() {
+        for (int c = 0; c < COLORS.length; c++) {
+            contested[c].clear();
+            for (int o = 0; o < COLORS.length; o++) {
+                if (o != c) {
+                    contested[c].or(reach[o][HORIZON - 1]);
+                }
+            }
+            contested[c].and(reach[c][HORIZON - 1]);
+            contestedCounts[c] = contested[c].cardinality();
+        }
+    }
+
+    private static void markDistance(byte[] distances, BitBoard cells, int d) {
+        for (int cell = cells.nextSetBit(0); cell >= 0; cell = cells.nextSetBit(cell + 1)) {
+            distances[cell] = (byte) d;
+        }
+    }
+
+    public int anchorCount(PlayerColor color) {
+        return anchorCounts[color.ordinal()];
+    }
+
+    /**
+     * Edge steps from the anchors of a color to a cell, {@link #HORIZON} if further or unreachable
+     */
+    public int distance(PlayerColor color, int cell) {
+        return distance[color.ordinal()][cell];
+    }
+
+    /**
+     * Cells a color reaches within {@code steps} edge steps of its anchors (0 for the anchors).
+     * The returned board is live and must not be modified.
+     */
+    public BitBoard reach(PlayerColor color, int steps) {
+        return reach[color.ordinal()][Math.min(steps, HORIZON - 1)];
+    }
+
+    /**
+     * Cells a color may still cover, whether it reaches them or not.
+     * The returned board is live and must not be modified.
+     */
+    public BitBoard free(PlayerColor color) {
+        return free[color.ordinal()];
+    }
+
+    /**
+     * Cells a color reaches that another color reaches too.
+     * The returned board is live and must not be modified.
+     */
+    public BitBoard contested(PlayerColor color) {
+        return contested[color.ordinal()];
+    }
+
+    public int contestedCount(PlayerColor color) {
+        return contestedCounts[color.ordinal()];
+    }
+}
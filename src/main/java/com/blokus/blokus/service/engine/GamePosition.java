@@ -0,0 +1,233 @@
+package com.blokus.blokus.service.engine;
+
+import java.util.function.IntPredicate;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.PieceOrientations.Orientation;
+
+/**
+ * Mutable game position for search: board, inventories, scores and side to move,
+ * with {@link #make(int)} and {@link #unmake()}.
+ * <p>
+ * Undo information is written into stacks allocated once with the position, so making and
+ * retracting moves allocates nothing. A position is not thread-safe; give each search
+ * thread its own {@link #copy()}.
+ * <p>
+ * The position keeps an incremental {@link Zobrist} hash of the board, the inventories, the
+ * color to move and the passes in a row, for transposition tables.
+ */
+public class GamePosition {
+
+    /** Turn order of the colors, as played by {@code GameLogicService.nextTurn}. */
+    public static final PlayerColor[] TURN_ORDER = {
+        PlayerColor.BLUE, PlayerColor.YELLOW, PlayerColor.GREEN, PlayerColor.RED
+    };
+    public static final int FULL_INVENTORY = (1 << (PieceOrientations.PIECE_COUNT + 1)) - 2;
+
+    private static final int COLORS = TURN_ORDER.length;
+    private static final int MAX_PLACEMENTS = PieceOrientations.PIECE_COUNT * COLORS;
+    // At most COLORS - 1 passes between two placements, then the game is over
+    private static final int MAX_PLIES = (MAX_PLACEMENTS + 1) * COLORS;
+    private static final int ALL_PIECES_BONUS = 15;
+    private static final int MONOMINO_LAST_BONUS = 5;
+    private static final int MONOMINO_ID = 1;
+
+    private final BoardState board;
+    // Indexed by PlayerColor ordinal
+    private final int[] inventories = new int[COLORS];
+    private final int[] squaresLeft = new int[COLORS];
+    private final int[] lastPiece = new int[COLORS];
+    private int turnIndex;
+    private int consecutivePasses;
+    private int ply;
+    private int placements;
+    // Hash of the pieces left in every inventory; the board keeps the hash of the cells
+    private long inventoryHash;
+
+    // Undo stacks, indexed by ply or by placement number
+    private final int[] playedMoves = new int[MAX_PLIES];
+    private final int[] savedPasses = new int[MAX_PLIES];
+    private final int[] savedLastPiece = new int[MAX_PLIES];
+    private final long[][] savedBoards = new long[MAX_PLACEMENTS][BoardState.UNDO_WORDS];
+    private final BitBoard mask = new BitBoard();
+
+    /**
+     * Creates a position from a copy of {@code board}
+     *
+     * @param inventories Inventory bitmask of each color (bit {@code pieceId}), indexed by ordinal
+     * @param lastPieces Id of the last piece placed by each color (0 if none), indexed by ordinal
+     * @param toMove Color whose turn it is
+     */
+    public GamePosition(BoardState board, int[] inventories, int[] lastPieces, PlayerColor toMove) {
+        this.board = new BoardState(board);
+        for (int c = 0; c < COLORS; c++) {
+            this.inventories[c] = inventories[c];
+            this.squaresLeft[c] = squaresOf(inventories[c]);
+            this.lastPiece[c] = lastPieces[c];
+            this.inventoryHash ^= Zobrist.inventory(PlayerColor.values()[c], inventories[c]);
+        }
+        this.turnIndex = turnIndexOf(toMove);
+    }
+
+    /**
+     * Creates the starting position of a game, BLUE to move
+     */
+    public static GamePosition initial() {
+        return new GamePosition(new BoardState(),
+                new int[]{FULL_INVENTORY, FULL_INVENTORY, FULL_INVENTORY, FULL_INVENTORY},
+                new int[COLORS], PlayerColor.BLUE);
+    }
+
+    /**
+     * Creates an independent position with the same current state (but no history to unmake)
+     */
+    public GamePosition copy() {
+        GamePosition copy = new GamePosition(board, inventories, lastPiece, toMove());
+        copy.consecutivePasses = consecutivePasses;
+        return copy;
+    }
+
+    /**
+     * Plays a move (or {@link Move#PASS}) for the color to move
+     */
+    public void make(int move) {
+        PlayerColor color = toMove();
+        int c = color.ordinal();
+        playedMoves[ply] = move;
+        savedPasses[ply] = consecutivePasses;
+        savedLastPiece[ply] = lastPiece[c];
+        if (move == Move.PASS) {
+            consecutivePasses++;
+        } else {
+            Orientation orientation = Move.orientation(move);
+            board.save(color, savedBoards[placements++]);
+            orientation.fillMask(mask, Move.x(move), Move.y(move));
+            board.place(color, mask);
+            inventories[c] &= ~(1 << orientation.getPieceId());
+            inventoryHash ^= Zobrist.piece(color, orientation.getPieceId());
+            squaresLeft[c] -= orientation.cellCount();
+            lastPiece[c] = orientation.getPieceId();
+            consecutivePasses = 0;
+        }
+        ply++;
+        turnIndex = (turnIndex + 1) % COLORS;
+    }
+
+    /**
+     * Takes back the last move made
+     */
+    public void unmake() {
+        ply--;
+        turnIndex = (turnIndex + COLORS - 1) % COLORS;
+        PlayerColor color = toMove();
+        int c = color.ordinal();
+        int move = playedMoves[ply];
+        if (move != Move.PASS) {
+            Orientation orientation = Move.orientation(move);
+            board.restore(color, savedBoards[--placements]);
+            inventories[c] |= 1 << orientation.getPieceId();
+            inventoryHash ^= Zobrist.piece(color, orientation.getPieceId());
+            squaresLeft[c] += orientation.cellCount();
+        }
+        lastPiece[c] = savedLastPiece[ply];
+        consecutivePasses = savedPasses[ply];
+    }
+
+    /**
+     * Calls {@code visitor} with every legal move of the color to move, until it returns false
+     *
+     * @return true if every move was visited
+     */
+    public boolean forEachLegalMove(IntPredicate visitor) {
+        return LegalMoveGenerator.forEach(board, toMove(), inventories[toMove().ordinal()], visitor);
+    }
+
+    public int[] listLegalMoves() {
+        return LegalMoveGenerator.list(board, toMove(), inventories[toMove().ordinal()]);
+    }
+
+    public boolean hasLegalMove() {
+        return LegalMoveGenerator.hasAny(board, toMove(), inventories[toMove().ordinal()]);
+    }
+
+    /**
+     * The game is over once every color passed in a row, or as soon as every color is proven
+     * blocked: no piece or no anchor left, so no region to place in (see {@link Regions})
+     */
+    public boolean isGameOver() {
+        if (consecutivePasses >= COLORS) {
+            return true;
+        }
+        for (int c = 0; c < COLORS; c++) {
+            if (inventories[c] != 0 && !board.getAnchors(PlayerColor.values()[c]).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Score of a color with the rules of {@code GameLogicService.calculateScores}:
+     * minus the squares left, +15 if every piece was placed, +5 more if the last one was the monomino
+     */
+    public int score(PlayerColor color) {
+        int c = color.ordinal();
+        if (inventories[c] != 0) {
+            return -squaresLeft[c];
+        }
+        return ALL_PIECES_BONUS + (lastPiece[c] == MONOMINO_ID ? MONOMINO_LAST_BONUS : 0);
+    }
+
+    /**
+     * Zobrist hash of the position: positions reached by different move orders share it.
+     * The last piece of each color, which only matters for the final bonus, is left out.
+     */
+    public long getHash() {
+        return board.getHash() ^ inventoryHash ^ Zobrist.toMove(toMove()) ^ Zobrist.passes(consecutivePasses);
+    }
+
+    public PlayerColor toMove() {
+        return TURN_ORDER[turnIndex];
+    }
+
+    public int getInventory(PlayerColor color) {
+        return inventories[color.ordinal()];
+    }
+
+    public int getSquaresLeft(PlayerColor color) {
+        return squaresLeft[color.ordinal()];
+    }
+
+    /**
+     * Number of moves (passes included) made since this position was created
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Gets the board. It must only be read: changes go through {@link #make(int)}.
+     */
+    public BoardState getBoard() {
+        return board;
+    }
+
+    public static int turnIndexOf(PlayerColor color) {
+        for (int i = 0; i < TURN_ORDER.length; i++) {
+            if (TURN_ORDER[i] == color) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown color " + color);
+    }
+
+    private static int squaresOf(int inventory) {
+        int squares = 0;
+        for (int pieceId = 1; pieceId <= PieceOrientations.PIECE_COUNT; pieceId++) {
+            if ((inventory & (1 << pieceId)) != 0) {
+                squares += PieceOrientations.cellCount(pieceId);
+            }
+        }
+        return squares;
+    }
+}
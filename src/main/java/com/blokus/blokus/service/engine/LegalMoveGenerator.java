@@ -0,0 +1,141 @@
+package com.blokus.blokus.service.engine;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntPredicate;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.PieceOrientations.Orientation;
+
+/**
+ * Enumerates the legal moves of a color on a {@link BoardState}.
+ * <p>
+ * Every legal placement covers at least one anchor of the color, so candidates are only
+ * built by putting each cell of each unique orientation on each anchor. A placement
+ * covering several anchors is reported once, from the lowest anchor it covers, so the moves
+ * of different anchors can also be enumerated separately, in parallel. Moves are produced
+ * as packed ints (see {@link Move}) and nothing is allocated per candidate.
+ */
+public final class LegalMoveGenerator {
+
+    private LegalMoveGenerator() {
+    }
+
+    /**
+     * Builds the inventory bitmask (bit {@code pieceId} set for every piece) used by the generator
+     */
+    public static int inventoryOf(Collection<String> pieceIds) {
+        int inventory = 0;
+        if (pieceIds != null) {
+            for (String pieceId : pieceIds) {
+                int id = PieceOrientations.parsePieceId(pieceId);
+                if (id > 0) {
+                    inventory |= 1 << id;
+                }
+            }
+        }
+        return inventory;
+    }
+
+    /**
+     * Calls {@code visitor} with every legal move of the color using pieces of the inventory,
+     * stopping as soon as the visitor returns false.
+     *
+     * @return true if every move was visited, false if the visitor stopped the enumeration
+     */
+    public static boolean forEach(BoardState board, PlayerColor color, int inventory, IntPredicate visitor) {
+        if (inventory == 0) {
+            return true;
+        }
+        BitBoard anchors = board.getAnchors(color);
+        for (int anchor = anchors.nextSetBit(0); anchor >= 0; anchor = anchors.nextSetBit(anchor + 1)) {
+            if (!forEachFromAnchor(board, color, inventory, anchor, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calls {@code visitor} with the legal moves reported from one anchor of the color: those
+     * covering it and no lower anchor. Together the anchors report every legal move once.
+     *
+     * @return true if every move was visited, false if the visitor stopped the enumeration
+     */
+    public static boolean forEachFromAnchor(BoardState board, PlayerColor color, int inventory, int anchor,
+                                            IntPredicate visitor) {
+        BitBoard anchors = board.getAnchors(color);
+        BitBoard occupied = board.getOccupied();
+        BitBoard forbidden = board.getEdgeNeighbours(color);
+        int anchorX = anchor % BitBoard.SIZE;
+        int anchorY = anchor / BitBoard.SIZE;
+        for (int pieceId = 1; pieceId <= PieceOrientations.PIECE_COUNT; pieceId++) {
+            if ((inventory & (1 << pieceId)) == 0) {
+                continue;
+            }
+            for (Orientation orientation : PieceOrientations.unique(pieceId)) {
+                for (int i = 0; i < orientation.cellCount(); i++) {
+                    int x = anchorX - orientation.cellX(i);
+                    int y = anchorY - orientation.cellY(i);
+                    if (orientation.fitsAt(x, y)
+                            && isNewLegalPlacement(orientation, BitBoard.index(x, y), anchor, anchors, occupied, forbidden)
+                            && !visitor.test(Move.of(orientation, x, y))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks a candidate placed at {@code origin} that covers {@code anchor}: it must not overlap
+     * or touch its own color by an edge, and must not cover an anchor lower than {@code anchor}
+     * (that anchor already produced it).
+     */
+    private static boolean isNewLegalPlacement(Orientation orientation, int origin, int anchor,
+                                               BitBoard anchors, BitBoard occupied, BitBoard forbidden) {
+        for (int i = 0; i < orientation.cellCount(); i++) {
+            int cell = origin + orientation.cellOffset(i);
+            if (occupied.get(cell) || forbidden.get(cell) || (cell < anchor && anchors.get(cell))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lists every legal move of the color
+     */
+    public static int[] list(BoardState board, PlayerColor color, int inventory) {
+        int[][] buffer = {new int[256]};
+        int[] size = {0};
+        forEach(board, color, inventory, move -> {
+            if (size[0] == buffer[0].length) {
+                buffer[0] = Arrays.copyOf(buffer[0], size[0] * 2);
+            }
+            buffer[0][size[0]++] = move;
+            return true;
+        });
+        return Arrays.copyOf(buffer[0], size[0]);
+    }
+
+    /**
+     * Counts the legal moves of the color
+     */
+    public static int count(BoardState board, PlayerColor color, int inventory) {
+        int[] count = {0};
+        forEach(board, color, inventory, move -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    /**
+     * Checks if the color has at least one legal move, stopping at the first one found
+     */
+    public static boolean hasAny(BoardState board, PlayerColor color, int inventory) {
+        return !forEach(board, color, inventory, move -> false);
+    }
+}
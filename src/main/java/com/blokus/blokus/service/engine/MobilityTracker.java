@@ -0,0 +1,105 @@
+package com.blokus.blokus.service.engine;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+/**
+ * Caches, for every color of one game, whether it still has a legal move.
+ * <p>
+ * A placement can only change the moves of another color near its anchors: every
+ * placement covering an anchor stays within 4 steps of it, so colors whose anchors are
+ * further than that from the new piece keep their status. The placing color, and any
+ * color whose inventory changed, is recomputed. A color that has no move stays blocked
+ * for the rest of the game: its anchors can only shrink and its inventory cannot grow
+ * until it places again, which it cannot do.
+ */
+public class MobilityTracker {
+
+    private static final PlayerColor[] COLORS = PlayerColor.values();
+    // Largest distance between two cells of a piece, in edge steps
+    private static final int PIECE_REACH = PieceOrientations.MAX_CELLS - 1;
+
+    private final BoardState board;
+    private final boolean[] stale = new boolean[COLORS.length];
+    private final boolean[] canMove = new boolean[COLORS.length];
+    private final boolean[] blocked = new boolean[COLORS.length];
+    private final int[] inventories = new int[COLORS.length];
+    private final BitBoard reach = new BitBoard();
+    private final BitBoard scratch = new BitBoard();
+
+    public MobilityTracker(BoardState board) {
+        this.board = board;
+        Arrays.fill(stale, true);
+    }
+
+    /**
+     * Invalidates the colors affected by a placement. Must be called before {@link BoardState#place},
+     * while the anchors the piece is about to cover are still recorded.
+     */
+    public synchronized void onPlacement(PlayerColor color, BitBoard pieceMask) {
+        stale[color.ordinal()] = true;
+        reach.copyFrom(pieceMask);
+        for (int step = 0; step < PIECE_REACH; step++) {
+            scratch.copyFrom(reach);
+            reach.orEdgeNeighboursOf(scratch);
+        }
+        for (PlayerColor other : COLORS) {
+            int c = other.ordinal();
+            if (!blocked[c] && !stale[c] && board.getAnchors(other).intersects(reach)) {
+                stale[c] = true;
+            }
+        }
+    }
+
+    /**
+     * Checks if a color still has a legal move with the given inventory, searching only when
+     * the cached answer may be out of date.
+     */
+    public synchronized boolean canMove(PlayerColor color, int inventory) {
+        int c = color.ordinal();
+        if (blocked[c]) {
+            return false;
+        }
+        if (stale[c] || inventories[c] != inventory) {
+            store(c, inventory, LegalMoveGenerator.hasAny(board, color, inventory));
+        }
+        return canMove[c];
+    }
+
+    /**
+     * Brings every color up to date, searching the out of date ones in parallel.
+     *
+     * @param inventory Inventory bitmask of each color, indexed by ordinal
+     */
+    public synchronized void refresh(int[] inventory) {
+        int[] toSearch = IntStream.range(0, COLORS.length)
+                .filter(c -> !blocked[c] && (stale[c] || inventories[c] != inventory[c]))
+                .toArray();
+        if (toSearch.length == 0) {
+            return;
+        }
+        boolean[] results = new boolean[COLORS.length];
+        IntStream searches = IntStream.of(toSearch);
+        if (toSearch.length > 1) {
+            searches = searches.parallel();
+        }
+        // The board is only read here, each search writes its own slot
+        searches.forEach(c -> results[c] = LegalMoveGenerator.hasAny(board, COLORS[c], inventory[c]));
+        for (int c : toSearch) {
+            store(c, inventory[c], results[c]);
+        }
+    }
+
+    public synchronized boolean isBlocked(PlayerColor color) {
+        return blocked[color.ordinal()];
+    }
+
+    private void store(int c, int inventory, boolean result) {
+        inventories[c] = inventory;
+        canMove[c] = result;
+        blocked[c] = !result;
+        stale[c] = false;
+    }
+}
@@ -0,0 +1,81 @@
+package com.blokus.blokus.service.engine;
+
+import com.blokus.blokus.service.engine.PieceOrientations.Orientation;
+
+/**
+ * Static helpers for moves packed into a single int, so move lists need no objects.
+ * <p>
+ * Layout: bits 0-4 hold x, bits 5-9 hold y and bits 10-16 hold the global id of the
+ * {@link Orientation}, which already identifies the piece, its rotation and its flip.
+ */
+public final class Move {
+
+    /** A turn passed by a color that has no legal move. */
+    public static final int PASS = -1;
+
+    private static final int COORD_BITS = 5;
+    private static final int COORD_MASK = (1 << COORD_BITS) - 1;
+    private static final int ORIENTATION_SHIFT = 2 * COORD_BITS;
+
+    private Move() {
+    }
+
+    public static int of(Orientation orientation, int x, int y) {
+        return of(orientation.getId(), x, y);
+    }
+
+    public static int of(int orientationId, int x, int y) {
+        return (orientationId << ORIENTATION_SHIFT) | (y << COORD_BITS) | x;
+    }
+
+    public static int x(int move) {
+        return move & COORD_MASK;
+    }
+
+    public static int y(int move) {
+        return (move >>> COORD_BITS) & COORD_MASK;
+    }
+
+    public static int orientationId(int move) {
+        return move >>> ORIENTATION_SHIFT;
+    }
+
+    public static Orientation orientation(int move) {
+        return PieceOrientations.byId(orientationId(move));
+    }
+
+    public static int pieceId(int move) {
+        return orientation(move).getPieceId();
+    }
+
+    /** Rotation in degrees to send to {@code GameLogicService.placePiece}. */
+    public static int rotation(int move) {
+        return orientation(move).getRotation();
+    }
+
+    public static boolean flipped(int move) {
+        return orientation(move).isFlipped();
+    }
+
+    /**
+     * Number of squares the move puts on the board
+     */
+    public static int size(int move) {
+        return orientation(move).cellCount();
+    }
+
+    /**
+     * Fills a reusable mask with the cells covered by the move
+     */
+    public static void fillMask(int move, BitBoard target) {
+        orientation(move).fillMask(target, x(move), y(move));
+    }
+
+    public static String toString(int move) {
+        if (move == PASS) {
+            return "Move[pass]";
+        }
+        return "Move[piece=" + pieceId(move) + ", x=" + x(move) + ", y=" + y(move)
+                + ", rotation=" + rotation(move) + ", flipped=" + flipped(move) + "]";
+    }
+}
@@ -0,0 +1,62 @@
+package com.blokus.blokus.service.engine;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+/**
+ * Versioned 32-bit encoding of a move together with the color that played it.
+ * This is the format used by the move journal and in wire messages.
+ * <p>
+ * Layout: bits 0-16 hold the packed {@link Move}, bits 17-18 the color ordinal and
+ * bits 28-31 the format version. A pass keeps the color and uses the unused
+ * orientation id {@link #PASS_ORIENTATION}.
+ */
+public final class MoveCodec {
+
+    public static final int VERSION = 1;
+
+    private static final int MOVE_BITS = 17;
+    private static final int MOVE_MASK = (1 << MOVE_BITS) - 1;
+    private static final int COLOR_SHIFT = MOVE_BITS;
+    private static final int COLOR_MASK = 0b11;
+    private static final int VERSION_SHIFT = 28;
+    // Orientation ids stop at 90, so the highest 7-bit id marks a pass
+    private static final int PASS_ORIENTATION = 0x7F;
+    private static final int PASS_MOVE = Move.of(PASS_ORIENTATION, 0, 0);
+    private static final PlayerColor[] COLORS = PlayerColor.values();
+
+    private MoveCodec() {
+    }
+
+    /**
+     * Encodes a move, or {@link Move#PASS}, played by a color
+     */
+    public static int encode(PlayerColor color, int move) {
+        int packedMove = move == Move.PASS ? PASS_MOVE : move;
+        return (VERSION << VERSION_SHIFT) | (color.ordinal() << COLOR_SHIFT) | packedMove;
+    }
+
+    public static int version(int code) {
+        return code >>> VERSION_SHIFT;
+    }
+
+    public static PlayerColor color(int code) {
+        checkVersion(code);
+        return COLORS[(code >>> COLOR_SHIFT) & COLOR_MASK];
+    }
+
+    /**
+     * Gets the packed {@link Move} of a code, {@link Move#PASS} for a pass
+     */
+    public static int move(int code) {
+        checkVersion(code);
+        int move = code & MOVE_MASK;
+        return move == PASS_MOVE ? Move.PASS : move;
+    }
+
+    private static void checkVersion(int code) {
+        if (version(code) != VERSION) {
+            throw new IllegalArgumentException("Unsupported move code version " + version(code)
+                    + " in " + Integer.toHexString(code));
+        }
+    }
+}
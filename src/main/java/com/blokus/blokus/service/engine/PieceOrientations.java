@@ -0,0 +1,319 @@
+package com.blokus.blokus.service.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.blokus.blokus.model.Piece;
+import com.blokus.blokus.model.PieceFactory;
+
+/**
+ * Immutable table of every orientation of the 21 Blokus pieces, built once at class load.
+ * <p>
+ * An orientation is the piece shape rotated clockwise by {@code rotation} degrees and then,
+ * if {@code flipped}, mirrored horizontally; this is the convention used by
+ * {@code GameLogicService.placePiece} and by the web client. Symmetric duplicates are
+ * removed, leaving 91 unique shapes, but every (pieceId, rotation, flipped) combination
+ * can still be looked up in O(1) without allocating.
+ */
+public final class PieceOrientations {
+
+    public static final int PIECE_COUNT = 21;
+    public static final int MAX_CELLS = 5;
+    /** Side of the box every orientation fits in, used by the packed bitmask. */
+    public static final int BOX = 5;
+
+    // [pieceId][rotationIndex * 2 + flipped] -> shared orientation instance
+    private static final Orientation[][] BY_TRANSFORM = new Orientation[PIECE_COUNT + 1][8];
+    // [pieceId] -> unique orientations of that piece
+    private static final Orientation[][] UNIQUE = new Orientation[PIECE_COUNT + 1][];
+    private static final Orientation[] ALL;
+    private static final int[] CELL_COUNTS = new int[PIECE_COUNT + 1];
+
+    static {
+        List<Orientation> all = new ArrayList<>();
+        for (Piece piece : PieceFactory.createPieces("blue")) {
+            int pieceId = piece.getId();
+            List<Orientation> unique = new ArrayList<>();
+            for (int rotationIndex = 0; rotationIndex < 4; rotationIndex++) {
+                for (int flip = 0; flip < 2; flip++) {
+                    boolean[][] shape = piece.getShape();
+                    for (int r = 0; r < rotationIndex; r++) {
+                        shape = rotateClockwise(shape);
+                    }
+                    if (flip == 1) {
+                        shape = mirror(shape);
+                    }
+                    Orientation orientation = null;
+                    for (Orientation existing : unique) {
+                        if (existing.matches(shape)) {
+                            orientation = existing;
+                            break;
+                        }
+                    }
+                    if (orientation == null) {
+                        orientation = new Orientation(all.size(), pieceId, unique.size(),
+                                rotationIndex * 90, flip == 1, shape);
+                        unique.add(orientation);
+                        all.add(orientation);
+                    }
+                    BY_TRANSFORM[pieceId][rotationIndex * 2 + flip] = orientation;
+                }
+            }
+            UNIQUE[pieceId] = unique.toArray(new Orientation[0]);
+            CELL_COUNTS[pieceId] = unique.get(0).cellCount();
+        }
+        ALL = all.toArray(new Orientation[0]);
+    }
+
+    private PieceOrientations() {
+    }
+
+    /**
+     * Looks up the orientation of a piece for a rotation in degrees (multiple of 90) and a flip flag.
+     * Returns null for an unknown piece id; a rotation that is not a multiple of 90 is treated as 0,
+     * like {@code placePiece} does.
+     */
+    public static Orientation get(int pieceId, int rotation, boolean flipped) {
+        if (pieceId < 1 || pieceId > PIECE_COUNT) {
+            return null;
+        }
+        int rotationIndex = rotation % 90 == 0 ? Math.floorMod(rotation / 90, 4) : 0;
+        return BY_TRANSFORM[pieceId][rotationIndex * 2 + (flipped ? 1 : 0)];
+    }
+
+    /**
+     * Same as {@link #get(int, int, boolean)} for the String/boxed values used by the services.
+     */
+    public static Orientation get(String pieceId, Integer rotation, Boolean flipped) {
+        return get(parsePieceId(pieceId), rotation == null ? 0 : rotation, flipped != null && flipped);
+    }
+
+    /**
+     * Gets the unique orientations of a piece (between 1 and 8 of them)
+     */
+    public static Orientation[] unique(int pieceId) {
+        return UNIQUE[pieceId];
+    }
+
+    /**
+     * Gets an orientation by its global id (0 to {@link #uniqueCount()} - 1)
+     */
+    public static Orientation byId(int id) {
+        return ALL[id];
+    }
+
+    public static int uniqueCount() {
+        return ALL.length;
+    }
+
+    /**
+     * Number of squares of a piece
+     */
+    public static int cellCount(int pieceId) {
+        return CELL_COUNTS[pieceId];
+    }
+
+    /**
+     * Parses a piece id as sent by the client, returning -1 if it is not a valid id
+     */
+    public static int parsePieceId(String pieceId) {
+        if (pieceId == null) {
+            return -1;
+        }
+        try {
+            int id = Integer.parseInt(pieceId.trim());
+            return id >= 1 && id <= PIECE_COUNT ? id : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean[][] rotateClockwise(boolean[][] shape) {
+        int height = shape.length;
+        int width = shape[0].length;
+        boolean[][] rotated = new boolean[width][height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                rotated[x][height - 1 - y] = shape[y][x];
+            }
+        }
+        return rotated;
+    }
+
+    private static boolean[][] mirror(boolean[][] shape) {
+        int height = shape.length;
+        int width = shape[0].length;
+        boolean[][] mirrored = new boolean[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                mirrored[y][width - 1 - x] = shape[y][x];
+            }
+        }
+        return mirrored;
+    }
+
+    /**
+     * One unique orientation of a piece, stored as packed cell offsets and a bitmask.
+     */
+    public static final class Orientation {
+
+        private final int id;
+        private final int pieceId;
+        private final int index;
+        private final int rotation;
+        private final boolean flipped;
+        private final int width;
+        private final int height;
+        // Cell coordinates relative to the top-left corner of the bounding box
+        private final byte[] cellX;
+        private final byte[] cellY;
+        // Cell offsets as board bit indexes, i.e. cellY * 20 + cellX
+        private final int[] cellOffsets;
+        // Bit (cellY * BOX + cellX) is set for every cell
+        private final int mask;
+
+        private Orientation(int id, int pieceId, int index, int rotation, boolean flipped, boolean[][] shape) {
+            this.id = id;
+            this.pieceId = pieceId;
+            this.index = index;
+            this.rotation = rotation;
+            this.flipped = flipped;
+            this.height = shape.length;
+            this.width = shape[0].length;
+            int count = 0;
+            int packed = 0;
+            byte[] xs = new byte[MAX_CELLS];
+            byte[] ys = new byte[MAX_CELLS];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (shape[y][x]) {
+                        xs[count] = (byte) x;
+                        ys[count] = (byte) y;
+                        packed |= 1 << (y * BOX + x);
+                        count++;
+                    }
+                }
+            }
+            this.cellX = Arrays.copyOf(xs, count);
+            this.cellY = Arrays.copyOf(ys, count);
+            this.cellOffsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                cellOffsets[i] = BitBoard.index(cellX[i], cellY[i]);
+            }
+            this.mask = packed;
+        }
+
+        private boolean matches(boolean[][] shape) {
+            if (shape.length != height || shape[0].length != width) {
+                return false;
+            }
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (shape[y][x] != covers(x, y)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /** Global id among all unique orientations. */
+        public int getId() {
+            return id;
+        }
+
+        public int getPieceId() {
+            return pieceId;
+        }
+
+        /** Index among the unique orientations of this piece. */
+        public int getIndex() {
+            return index;
+        }
+
+        /** Canonical rotation in degrees producing this orientation. */
+        public int getRotation() {
+            return rotation;
+        }
+
+        /** Canonical flip flag producing this orientation. */
+        public boolean isFlipped() {
+            return flipped;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int cellCount() {
+            return cellOffsets.length;
+        }
+
+        public int cellX(int i) {
+            return cellX[i];
+        }
+
+        public int cellY(int i) {
+            return cellY[i];
+        }
+
+        public int cellOffset(int i) {
+            return cellOffsets[i];
+        }
+
+        public int getMask() {
+            return mask;
+        }
+
+        /**
+         * Checks if the cell (x, y) of the bounding box belongs to the piece
+         */
+        public boolean covers(int x, int y) {
+            return x >= 0 && x < width && y >= 0 && y < height && (mask & (1 << (y * BOX + x))) != 0;
+        }
+
+        /**
+         * Checks if the piece stays on the board when its bounding box starts at (x, y)
+         */
+        public boolean fitsAt(int x, int y) {
+            return x >= 0 && y >= 0 && x + width <= BitBoard.SIZE && y + height <= BitBoard.SIZE;
+        }
+
+        /**
+         * Fills a reusable mask with this orientation placed at (x, y).
+         * Returns false, leaving the mask undefined, if the piece would leave the board.
+         */
+        public boolean fillMask(BitBoard target, int x, int y) {
+            if (!fitsAt(x, y)) {
+                return false;
+            }
+            target.clear();
+            int origin = BitBoard.index(x, y);
+            for (int offset : cellOffsets) {
+                target.set(origin + offset);
+            }
+            return true;
+        }
+
+        /**
+         * Builds a fresh boolean matrix of this orientation, for callers that still work with shapes
+         */
+        public boolean[][] toShape() {
+            boolean[][] shape = new boolean[height][width];
+            for (int i = 0; i < cellX.length; i++) {
+                shape[cellY[i]][cellX[i]] = true;
+            }
+            return shape;
+        }
+
+        @Override
+        public String toString() {
+            return "Orientation[piece=" + pieceId + ", rotation=" + rotation + ", flipped=" + flipped + "]";
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.blokus.blokus.service.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.PieceOrientations.Orientation;
+
+/**
+ * Splits the cells a color may still cover into independent regions.
+ * <p>
+ * A region is a set of the color's free cells (empty and not touching it by an edge) connected
+ * by edges or corners, around at least one of its anchors. A placement and the anchors it
+ * opens stay within the region of the anchor it covers, and the color's free cells only
+ * shrink, so what the color plays in one region never changes what it can play in another.
+ * A region where no opponent can ever place is private: its outcome only depends on the color.
+ */
+public final class Regions {
+
+    private Regions() {
+    }
+
+    /**
+     * Gets the regions of a color, in the order of their lowest anchor
+     */
+    public static List<BitBoard> of(BoardState board, PlayerColor color) {
+        BitBoard free = freeCells(board, color);
+        BitBoard anchors = new BitBoard(board.getAnchors(color));
+        List<BitBoard> regions = new ArrayList<>();
+        for (int anchor = anchors.nextSetBit(0); anchor >= 0; anchor = anchors.nextSetBit(anchor + 1)) {
+            BitBoard region = new BitBoard();
+            region.set(anchor);
+            fill(region, free);
+            regions.add(region);
+            anchors.andNot(region);
+        }
+        return regions;
+    }
+
+    /**
+     * Gets every cell a color may still cover in the rest of the game with the pieces of its
+     * inventory. The set is closed over placements: starting from the anchors, every piece that
+     * fits on free cells around an anchor adds its cells, and the corners of those cells become
+     * anchors in turn. Free cells only shrink and pieces are never given back, so whatever the
+     * color plays later lies in this set.
+     */
+    public static BitBoard reachable(BoardState board, PlayerColor color, int inventory) {
+        BitBoard free = freeCells(board, color);
+        BitBoard covered = new BitBoard();
+        BitBoard expanded = new BitBoard();
+        BitBoard frontier = new BitBoard(board.getAnchors(color));
+        if (inventory == 0) {
+            return covered;
+        }
+        while (!frontier.isEmpty()) {
+            expanded.or(frontier);
+            for (int anchor = frontier.nextSetBit(0); anchor >= 0; anchor = frontier.nextSetBit(anchor + 1)) {
+                coverFits(anchor, inventory, free, covered);
+            }
+            frontier.clear();
+            frontier.orCornerNeighboursOf(covered);
+            frontier.and(free);
+            frontier.andNot(expanded);
+        }
+        return covered;
+    }
+
+    /**
+     * Adds to {@code covered} the cells of every piece of the inventory that fits on free cells
+     * over an anchor
+     */
+    private static void coverFits(int anchor, int inventory, BitBoard free, BitBoard covered) {
+        int anchorX = anchor % BitBoard.SIZE;
+        int anchorY = anchor / BitBoard.SIZE;
+        for (int bits = inventory; bits != 0; bits &= bits - 1) {
+            for (Orientation orientation : PieceOrientations.unique(Integer.numberOfTrailingZeros(bits))) {
+                for (int i = 0; i < orientation.cellCount(); i++) {
+                    int x = anchorX - orientation.cellX(i);
+                    int y = anchorY - orientation.cellY(i);
+                    if (orientation.fitsAt(x, y) && fitsOn(orientation, BitBoard.index(x, y), free)) {
+                        for (int j = 0; j < orientation.cellCount(); j++) {
+                            covered.set(BitBoard.index(x, y) + orientation.cellOffset(j));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean fitsOn(Orientation orientation, int origin, BitBoard free) {
+        for (int i = 0; i < orientation.cellCount(); i++) {
+            if (!free.get(origin + orientation.cellOffset(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cells a color may still cover: empty and not touching it by an edge
+     */
+    private static BitBoard freeCells(BoardState board, PlayerColor color) {
+        BitBoard free = new BitBoard(board.getEdgeNeighbours(color));
+        free.or(board.getOccupied());
+        free.invert();
+        return free;
+    }
+
+    /**
+     * Grows {@code cells} to every cell of {@code free} connected to them by edges or corners
+     */
+    private static void fill(BitBoard cells, BitBoard free) {
+        BitBoard previous = new BitBoard();
+        while (!cells.equals(previous)) {
+            previous.copyFrom(cells);
+            cells.orEdgeNeighboursOf(previous);
+            cells.orCornerNeighboursOf(previous);
+            cells.and(free);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.blokus.blokus.service.engine;
+
+import java.util.SplittableRandom;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+/**
+ * Random 64-bit keys of Zobrist hashing. A position hash is the XOR of the keys of its
+ * features, so a move updates it with a few XORs and unmaking the move XORs them again.
+ * <p>
+ * The keys come from a fixed seed: hashes are stable across restarts and can be persisted.
+ */
+public final class Zobrist {
+
+    private static final int COLORS = PlayerColor.values().length;
+    private static final int MAX_PASSES = GamePosition.TURN_ORDER.length;
+
+    // Indexed by color ordinal, then by cell or piece id
+    private static final long[][] CELLS = new long[COLORS][BitBoard.CELLS];
+    private static final long[][] PIECES = new long[COLORS][PieceOrientations.PIECE_COUNT + 1];
+    private static final long[] TO_MOVE = new long[COLORS];
+    private static final long[] PASSES = new long[MAX_PASSES + 1];
+    private static final long[] PERSPECTIVE = new long[COLORS];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+        for (int c = 0; c < COLORS; c++) {
+            for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                CELLS[c][cell] = random.nextLong();
+            }
+            for (int pieceId = 1; pieceId <= PieceOrientations.PIECE_COUNT; pieceId++) {
+                PIECES[c][pieceId] = random.nextLong();
+            }
+            TO_MOVE[c] = random.nextLong();
+            PERSPECTIVE[c] = random.nextLong();
+        }
+        // No pass in a row is the usual state, it adds nothing to the hash
+        for (int passes = 1; passes <= MAX_PASSES; passes++) {
+            PASSES[passes] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Key of a cell covered by a color
+     */
+    public static long cell(PlayerColor color, int cell) {
+        return CELLS[color.ordinal()][cell];
+    }
+
+    /**
+     * Key of a piece still in the inventory of a color
+     */
+    public static long piece(PlayerColor color, int pieceId) {
+        return PIECES[color.ordinal()][pieceId];
+    }
+
+    public static long toMove(PlayerColor color) {
+        return TO_MOVE[color.ordinal()];
+    }
+
+    public static long passes(int consecutivePasses) {
+        return PASSES[Math.min(consecutivePasses, MAX_PASSES)];
+    }
+
+    /**
+     * Key of the color a search evaluates for, for searches whose values depend on it
+     */
+    public static long perspective(PlayerColor color) {
+        return PERSPECTIVE[color.ordinal()];
+    }
+
+    /**
+     * Hash of the pieces of an inventory bitmask (bit {@code pieceId})
+     */
+    public static long inventory(PlayerColor color, int inventory) {
+        long hash = 0;
+        for (int bits = inventory; bits != 0; bits &= bits - 1) {
+            hash ^= piece(color, Integer.numberOfTrailingZeros(bits));
+        }
+        return hash;
+    }
+}
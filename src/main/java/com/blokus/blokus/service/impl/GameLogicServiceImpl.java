@@ -1,26 +1,51 @@
 package com.blokus.blokus.service.impl;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.blokus.blokus.model.Game;
 import com.blokus.blokus.model.Game.GameStatus;
+import com.blokus.blokus.model.GameMove;
 import com.blokus.blokus.model.GameUser;
-import com.blokus.blokus.model.Piece;
-import com.blokus.blokus.model.PieceFactory;
+import com.blokus.blokus.repository.GameMoveRepository;
 import com.blokus.blokus.repository.GameRepository;
 import com.blokus.blokus.repository.GameUserRepository;
+import com.blokus.blokus.service.GameEndedEvent;
 import com.blokus.blokus.service.GameLogicService;
 import com.blokus.blokus.service.GameWebSocketService;
+import com.blokus.blokus.service.MoveResult;
+import com.blokus.blokus.service.MoveLogWriter;
+import com.blokus.blokus.service.engine.BitBoard;
+import com.blokus.blokus.service.engine.BoardCodec;
+import com.blokus.blokus.service.engine.BoardState;
+import com.blokus.blokus.service.engine.FeatureMaps;
+import com.blokus.blokus.service.engine.GamePosition;
+import com.blokus.blokus.service.engine.LegalMoveGenerator;
+import com.blokus.blokus.service.engine.MobilityTracker;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.engine.MoveCodec;
+import com.blokus.blokus.service.engine.PieceOrientations;
+import com.blokus.blokus.service.engine.PieceOrientations.Orientation;
+import com.blokus.blokus.service.journal.MoveJournal;
+import com.blokus.blokus.service.timer.TurnClock;
 
 import jakarta.persistence.EntityNotFoundException;
 
@@ -36,16 +61,30 @@ public class GameLogicServiceImpl implements GameLogicService {
     private final GameRepository gameRepository;
     private final GameUserRepository gameUserRepository;
     private final GameWebSocketService gameWebSocketService;
+    private final GameMoveRepository gameMoveRepository;
+    private final MoveLogWriter moveLogWriter;
+    private final MoveJournal moveJournal;
+    private final TurnClock turnClock;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public GameLogicServiceImpl(GameRepository gameRepository, GameUserRepository gameUserRepository, GameWebSocketService gameWebSocketService) {
+    public GameLogicServiceImpl(GameRepository gameRepository, GameUserRepository gameUserRepository, GameWebSocketService gameWebSocketService,
+                                GameMoveRepository gameMoveRepository, MoveLogWriter moveLogWriter, MoveJournal moveJournal,
+                                TurnClock turnClock, ApplicationEventPublisher eventPublisher) {
         this.gameRepository = gameRepository;
         this.gameUserRepository = gameUserRepository;
         this.gameWebSocketService = gameWebSocketService;
+        this.gameMoveRepository = gameMoveRepository;
+        this.moveLogWriter = moveLogWriter;
+        this.moveJournal = moveJournal;
+        this.turnClock = turnClock;
+        this.eventPublisher = eventPublisher;
+        restoreFromJournal();
     }
 
     @Override
     public GameUser getCurrentPlayer(Long gameId) {
-        Game game = gameRepository.findById(gameId)
+        // Players are fetched with the game, callers in a game session have no open persistence context
+        Game game = gameRepository.findWithPlayersById(gameId)
                 .orElseThrow(() -> new EntityNotFoundException("Game not found with id: " + gameId));
 
         if (game.getStatus() != GameStatus.PLAYING) {
@@ -176,7 +215,7 @@ public class GameLogicServiceImpl implements GameLogicService {
             return null;
         }
         // Set the determined player as the current player
-        game.setCurrentPlayer(nextPlayer);
+        startTurn(game, nextPlayer);
         gameRepository.save(game);
         // Always send NEXT_TURN update if the game is still playing and nextPlayer is not null
         if (nextPlayer != null && game.getStatus() == GameStatus.PLAYING) {
@@ -187,6 +226,21 @@ public class GameLogicServiceImpl implements GameLogicService {
         return nextPlayer;
     }
     
+    /**
+     * Makes a player the current one and, in TIMED mode, starts the server-side clock of the turn
+     */
+    private void startTurn(Game game, GameUser player) {
+        game.setCurrentPlayer(player);
+        if (game.getMode() == Game.GameMode.TIMED) {
+            game.setTurnStartTime(LocalDateTime.now());
+            // Armed once the turn is committed: scheduling replaces the current player's deadline
+            Long gameId = game.getId();
+            Long playerId = player.getId();
+            Instant deadline = TurnClock.deadlineOf(game.getTurnStartTime());
+            afterCommit(() -> turnClock.schedule(gameId, playerId, deadline));
+        }
+    }
+
     // Helper method to format player info consistently
     private String formatPlayerInfo(GameUser player) {
         if (player == null) {
@@ -219,6 +273,13 @@ public class GameLogicServiceImpl implements GameLogicService {
         // Get all players in the game
         List<GameUser> allPlayers = gameUserRepository.findByGameId(gameId);
         
+        // Bring the colors affected by recent placements up to date in one parallel pass
+        int[] inventories = new int[GameUser.PlayerColor.values().length];
+        for (GameUser player : allPlayers) {
+            inventories[player.getColor().ordinal()] = LegalMoveGenerator.inventoryOf(player.getAvailablePieceIds());
+        }
+        getMobility(gameId).refresh(inventories);
+        
         // Check if any player can still make a move
         for (GameUser player : allPlayers) {
             if (canPlayerMove(player, gameId)) {
@@ -260,53 +321,60 @@ public class GameLogicServiceImpl implements GameLogicService {
         if (game.getStatus() != GameStatus.FINISHED) {
             game.setStatus(GameStatus.FINISHED);
         }
+        // Finished games are no longer recovered from the journal
+        afterCommit(() -> {
+            moveJournal.markFinished(gameId);
+            turnClock.cancel(gameId);
+        });
+        eventPublisher.publishEvent(new GameEndedEvent(gameId));
 
         // Get all placed pieces for this game
         List<Map<String, Object>> placedPieces = getPlacedPieces(gameId);
 
         for (GameUser player : game.getPlayers()) {
-            String color = player.getColor().toString();
-            // All possible pieces for this player
-            List<Piece> allPieces = PieceFactory.createPieces(color);
-            // Unplaced piece IDs
-            Set<String> availablePieceIds = player.getAvailablePieceIds();
-
-            // 1. Count unused squares
-            int unusedSquares = 0;
-            for (Piece piece : allPieces) {
-                if (availablePieceIds.contains(String.valueOf(piece.getId()))) {
-                    // Count number of squares in this piece
-                    boolean[][] shape = piece.getShape();
-                    for (boolean[] row : shape) {
-                        for (boolean cell : row) {
-                            if (cell) unusedSquares++;
-                        }
-                    }
-                }
+            player.setScore(computeScore(player, placedPieces));
+            gameUserRepository.save(player);
+        }
+        return gameRepository.save(game);
+    }
+
+    /**
+     * Compute a player's score: minus one per unplaced square, +15 if every piece was placed,
+     * +5 more if the last one was the single square
+     */
+    private int computeScore(GameUser player, List<Map<String, Object>> placedPieces) {
+        String color = player.getColor().toString();
+        // Unplaced piece IDs
+        Set<String> availablePieceIds = player.getAvailablePieceIds();
+
+        // 1. Count unused squares
+        int unusedSquares = 0;
+        for (String availablePieceId : availablePieceIds) {
+            int id = PieceOrientations.parsePieceId(availablePieceId);
+            if (id > 0) {
+                unusedSquares += PieceOrientations.cellCount(id);
             }
-            int score = -unusedSquares;
-
-            // 2. Check if all pieces are placed
-            boolean allPlaced = availablePieceIds.isEmpty();
-            if (allPlaced) {
-                score += 15;
-                // 3. Check if last placed piece is the single-square (id==1)
-                // Find this player's placed pieces, sorted by placement order
-                List<Map<String, Object>> playerPlaced = placedPieces.stream()
-                        .filter(p -> color.equalsIgnoreCase((String)p.get("pieceColor")))
-                        .toList();
-                if (!playerPlaced.isEmpty()) {
-                    Map<String, Object> lastPlaced = playerPlaced.get(playerPlaced.size() - 1);
-                    String lastPieceId = (String) lastPlaced.get("pieceId");
-                    if ("1".equals(lastPieceId)) {
-                        score += 5;
-                    }
+        }
+        int score = -unusedSquares;
+
+        // 2. Check if all pieces are placed
+        boolean allPlaced = availablePieceIds.isEmpty();
+        if (allPlaced) {
+            score += 15;
+            // 3. Check if last placed piece is the single-square (id==1)
+            // Find this player's placed pieces, sorted by placement order
+            List<Map<String, Object>> playerPlaced = placedPieces.stream()
+                    .filter(p -> color.equalsIgnoreCase((String)p.get("pieceColor")))
+                    .toList();
+            if (!playerPlaced.isEmpty()) {
+                Map<String, Object> lastPlaced = playerPlaced.get(playerPlaced.size() - 1);
+                String lastPieceId = (String) lastPlaced.get("pieceId");
+                if ("1".equals(lastPieceId)) {
+                    score += 5;
                 }
             }
-            player.setScore(score);
-            gameUserRepository.save(player);
         }
-        return gameRepository.save(game);
+        return score;
     }
 
     @Override
@@ -326,18 +394,6 @@ public class GameLogicServiceImpl implements GameLogicService {
             System.out.println("  - rotation: " + rotation);
             System.out.println("  - flipped: " + flipped);
             
-            // Store the current piece placement info for validation
-            Map<String, Object> currentPiece = new HashMap<>();
-            currentPiece.put("pieceId", pieceId);
-            currentPiece.put("pieceColor", pieceColor);
-            currentPiece.put("x", x);
-            currentPiece.put("y", y);
-            currentPiece.put("rotation", rotation);
-            currentPiece.put("flipped", flipped);
-            
-            currentPiecePlacementInfo.clear();  // Clear previous info
-            currentPiecePlacementInfo.add(currentPiece);
-            
             // Use new debug method for more detailed tracing
             debugPiecePlacement(pieceId, pieceColor, x, y, rotation, flipped);
             
@@ -448,40 +504,27 @@ public class GameLogicServiceImpl implements GameLogicService {
                 return false;
             }
             
-            // Check if this is the player's first piece placement
-            // We'll determine this by checking if any pieces with this color have been placed yet
-            // In a real implementation, you would check the board state or a player's piece usage history
-            
-            // For this simplified implementation, we'll check based on the player's starting corner
-            // If the player's starting corner is still available, it means they haven't placed a piece yet
-            
-            // Get all pieces placed so far (in a real implementation, you'd have this data)
-            List<Map<String, Object>> placedPieces = getPlacedPieces(gameId);
-            
-            // Check if the player has already placed any pieces
-            boolean hasPlayerPlacedPieces = false;
-            for (Map<String, Object> piece : placedPieces) {
-                if (pieceColor.equalsIgnoreCase((String)piece.get("pieceColor"))) {
-                    hasPlayerPlacedPieces = true;
-                    break;
-                }
+            // Get the shape of the piece to be placed and project it on the board
+            Orientation orientation = getPieceShape(pieceId, pieceColor, rotation, flipped);
+            if (orientation == null) {
+                System.out.println("ERROR: Could not get shape for piece " + pieceId + " of color " + pieceColor);
+                return false;
+            }
+            BitBoard pieceMask = toPieceMask(orientation, x, y);
+            if (pieceMask == null) {
+                System.out.println("ERROR: Piece placement out of board bounds at (" + x + "," + y + ")");
+                return false;
             }
             
+            // The board of this game is kept up to date incrementally, no replay needed
+            BoardState board = getBoardState(gameId);
+            
             // First piece placement validation
-            if (!hasPlayerPlacedPieces) {
+            if (!board.hasPlaced(playerColor)) {
                 System.out.println("This is the first piece placement for color: " + pieceColor);
                 
-                // For the first piece, it must be placed in the player's designated corner
-                boolean isValidCornerForColor = false;
-                
-                switch (playerColor) {
-                    case BLUE -> isValidCornerForColor = isCoveringOrTouchingCorner(x, y, 0, 0);
-                    case YELLOW -> isValidCornerForColor = isCoveringOrTouchingCorner(x, y, 19, 0);
-                    case RED -> isValidCornerForColor = isCoveringOrTouchingCorner(x, y, 0, 19);
-                    case GREEN -> isValidCornerForColor = isCoveringOrTouchingCorner(x, y, 19, 19);
-                }
-                
-                if (!isValidCornerForColor) {
+                // For the first piece, it must cover the player's designated corner
+                if (!pieceMask.get(BoardState.startingCorner(playerColor))) {
                     System.out.println("ERROR: First piece for " + playerColor + " must be placed at or touching designated corner");
                     System.out.println("  - BLUE must touch corner (0,0)");
                     System.out.println("  - YELLOW must touch corner (19,0)");
@@ -496,7 +539,7 @@ public class GameLogicServiceImpl implements GameLogicService {
                 System.out.println("This is a subsequent piece placement for color: " + pieceColor);
                 
                 // Check if the piece has valid diagonal connectivity to an existing piece of the same color
-                boolean hasDiagonalTouch = validateDiagonalTouch(gameId, pieceColor, x, y, rotation, flipped, pieceId);
+                boolean hasDiagonalTouch = validateDiagonalTouch(board, playerColor, pieceMask);
                 
                 if (!hasDiagonalTouch) {
                     System.out.println("ERROR: Subsequent piece must touch diagonally with at least one piece of the same color");
@@ -509,55 +552,13 @@ public class GameLogicServiceImpl implements GameLogicService {
             System.out.println("All validations passed! Processing piece placement...");
             
             // --- BOARD OCCUPANCY CHECK: Ensure no overlap with existing pieces ---
-            // Build a 20x20 board and mark all occupied cells
-            boolean[][] boardOccupied = new boolean[20][20];
-            for (Map<String, Object> placed : placedPieces) {
-                String placedPieceId = (String) placed.get("pieceId");
-                String placedPieceColor = (String) placed.get("pieceColor");
-                int placedX = (int) placed.get("x");
-                int placedY = (int) placed.get("y");
-                Integer placedRotation = (Integer) placed.get("rotation");
-                Boolean placedFlipped = (Boolean) placed.get("flipped");
-                boolean[][] placedShape = getPieceShape(placedPieceId, placedPieceColor, placedRotation, placedFlipped);
-                if (placedShape == null) continue;
-                for (int py = 0; py < placedShape.length; py++) {
-                    for (int px = 0; px < placedShape[0].length; px++) {
-                        if (placedShape[py][px]) {
-                            int boardX = placedX + px;
-                            int boardY = placedY + py;
-                            if (boardX >= 0 && boardX < 20 && boardY >= 0 && boardY < 20) {
-                                boardOccupied[boardY][boardX] = true;
-                            }
-                        }
-                    }
-                }
-            }
-            // Get the shape of the piece to be placed
-            boolean[][] newPieceShape = getPieceShape(pieceId, pieceColor, rotation, flipped);
-            if (newPieceShape == null) {
-                System.out.println("ERROR: Could not get shape for piece " + pieceId + " of color " + pieceColor);
+            if (board.overlaps(pieceMask)) {
+                System.out.println("ERROR: Overlap detected for piece " + pieceId + " at (" + x + "," + y + ")");
                 return false;
             }
-            // Check for overlap
-            for (int py = 0; py < newPieceShape.length; py++) {
-                for (int px = 0; px < newPieceShape[0].length; px++) {
-                    if (newPieceShape[py][px]) {
-                        int boardX = x + px;
-                        int boardY = y + py;
-                        if (boardX < 0 || boardX >= 20 || boardY < 0 || boardY >= 20) {
-                            System.out.println("ERROR: Piece placement out of board bounds at (" + boardX + "," + boardY + ")");
-                            return false;
-                        }
-                        if (boardOccupied[boardY][boardX]) {
-                            System.out.println("ERROR: Overlap detected at (" + boardX + "," + boardY + ")");
-                            return false;
-                        }
-                    }
-                }
-            }
             
             // Record this piece as placed (in memory map)
-            recordPiecePlacement(gameId, pieceId, pieceColor, x, y, rotation, flipped);
+            recordPiecePlacement(gameId, pieceId, pieceColor, x, y, rotation, flipped, orientation, pieceMask);
             
             // **REMOVE THE PIECE FROM THE PLAYER'S AVAILABLE SET**
             boolean removed = currentPlayer.getAvailablePieceIds().remove(pieceId);
@@ -596,14 +597,145 @@ public class GameLogicServiceImpl implements GameLogicService {
         }
     }
     
-    // Simple in-memory storage for placed pieces (in a real implementation, this would be in the database)
-    private static final Map<Long, List<Map<String, Object>>> GAME_PLACED_PIECES = new HashMap<>();
+    @Override
+    @Transactional
+    public MoveResult submitMove(Long gameId, String username, String pieceId, String pieceColor,
+                                 int x, int y, int rotation, boolean flipped) {
+        // The whole aggregate in one query; everything below works on it and on the in-memory board
+        Game game = gameRepository.findWithPlayersById(gameId)
+                .orElseThrow(() -> new EntityNotFoundException("Game not found with id: " + gameId));
+        if (game.getStatus() != GameStatus.PLAYING) {
+            return MoveResult.rejected("Game is not in PLAYING state");
+        }
+
+        GameUser player = game.getCurrentPlayer();
+        if (player == null || player.isBot() || player.getUser() == null
+                || !player.getUser().getUsername().equals(username)) {
+            return MoveResult.rejected("Not your turn");
+        }
+        GameUser.PlayerColor color = player.getColor();
+        if (pieceColor == null || !color.name().equalsIgnoreCase(pieceColor)) {
+            return MoveResult.rejected("Piece color doesn't match player's color");
+        }
+        if (pieceId == null || !player.getAvailablePieceIds().contains(pieceId)) {
+            return MoveResult.rejected("Piece " + pieceId + " is not available");
+        }
+        Orientation orientation = PieceOrientations.get(pieceId, rotation, flipped);
+        if (orientation == null) {
+            return MoveResult.rejected("Unknown piece " + pieceId);
+        }
+        BitBoard pieceMask = toPieceMask(orientation, x, y);
+        if (pieceMask == null) {
+            return MoveResult.rejected("Piece placement out of board bounds");
+        }
+        if (!getBoardState(gameId).isLegalPlacement(color, pieceMask)) {
+            return MoveResult.rejected(getBoardState(gameId).hasPlaced(color)
+                    ? "Piece must touch a piece of the same color by a corner only, without overlapping"
+                    : "First piece must cover the starting corner");
+        }
+
+        String colorName = color.name().toLowerCase();
+        recordPiecePlacement(gameId, pieceId, colorName, x, y, rotation, flipped, orientation, pieceMask);
+        player.getAvailablePieceIds().remove(pieceId);
+        logger.info("Game {}: {} placed piece {} at ({},{})", gameId, displayName(player), pieceId, x, y);
+
+        MoveResult result = MoveResult.placed(pieceId, colorName, x, y, rotation, flipped,
+                MoveCodec.encode(color, Move.of(orientation, x, y)), displayName(player));
+
+        // Advance the turn in Blokus order, skipping the players who cannot move
+        List<GameUser> turnOrder = game.getSortedPlayers();
+        int index = turnOrder.indexOf(player);
+        List<String> skipped = new ArrayList<>();
+        GameUser nextPlayer = null;
+        for (int i = 1; i <= turnOrder.size(); i++) {
+            GameUser candidate = turnOrder.get((index + i) % turnOrder.size());
+            if (canPlayerMove(candidate, gameId)) {
+                nextPlayer = candidate;
+                break;
+            }
+            skipped.add(displayName(candidate));
+        }
+
+        if (nextPlayer != null) {
+            skipped.forEach(result::addSkippedPlayer);
+            startTurn(game, nextPlayer);
+            result.setNextPlayer(nextPlayer.getColor().name().toLowerCase(), displayName(nextPlayer), nextPlayer.isBot());
+            return result;
+        }
+
+        // Nobody can move anymore: finish and score the game
+        game.setStatus(GameStatus.FINISHED);
+        game.setEndedAt(LocalDateTime.now());
+        afterCommit(() -> {
+            moveJournal.markFinished(gameId);
+            turnClock.cancel(gameId);
+        });
+        eventPublisher.publishEvent(new GameEndedEvent(gameId));
+        List<Map<String, Object>> placedPieces = getPlacedPieces(gameId);
+        Map<String, Integer> scores = new HashMap<>();
+        String winnerName = null;
+        int bestScore = Integer.MIN_VALUE;
+        for (GameUser scoredPlayer : turnOrder) {
+            int score = computeScore(scoredPlayer, placedPieces);
+            scoredPlayer.setScore(score);
+            scores.put(displayName(scoredPlayer), score);
+            if (score > bestScore) {
+                bestScore = score;
+                winnerName = displayName(scoredPlayer);
+            }
+        }
+        result.setGameOver(winnerName, scores);
+        return result;
+    }
+
+    // Name shown to clients, e.g. "alice" or "Bot Blue"
+    private String displayName(GameUser player) {
+        if (player.isBot()) {
+            String colorName = player.getColor().name().toLowerCase();
+            return "Bot " + colorName.substring(0, 1).toUpperCase() + colorName.substring(1);
+        }
+        return player.getUser() != null ? player.getUser().getUsername() : "Unknown Player";
+    }
+    
+    // Placed pieces of each game, loaded from the move log the first time a game is accessed
+    // and then kept in memory until it ends; new moves are persisted by the write-behind MoveLogWriter and
+    // the MoveJournal, from which active games are restored at startup
+    private final Map<Long, List<Map<String, Object>>> gamePlacedPieces = new ConcurrentHashMap<>();
+    
+    // Bitboard of each game, built once from the placed pieces and then updated on every placement
+    private final Map<Long, BoardState> gameBoards = new ConcurrentHashMap<>();
+    
+    // Cached "can this color still move" status of each game, invalidated by placements
+    private final Map<Long, MobilityTracker> gameMobility = new ConcurrentHashMap<>();
+    
+    // Territory features of each game for the bots, updated on every placement
+    private final Map<Long, FeatureMaps> gameFeatures = new ConcurrentHashMap<>();
+    
+    /**
+     * Drops the in-memory state of a game once it is over. The placed pieces are kept until the
+     * game's last moves are in the move log, which they are reloaded from if the game is viewed again.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGameEnded(GameEndedEvent event) {
+        Long gameId = event.getGameId();
+        moveLogWriter.whenWritten(gameId, () -> {
+            gameBoards.remove(gameId);
+            gameMobility.remove(gameId);
+            gameFeatures.remove(gameId);
+            gamePlacedPieces.remove(gameId);
+        });
+    }
     
     // Helper method to record a piece placement
     private void recordPiecePlacement(Long gameId, String pieceId, String pieceColor, 
-                                    int x, int y, Integer rotation, Boolean flipped) {
-        // Get or create the list of placed pieces for this game
-        List<Map<String, Object>> placedPieces = GAME_PLACED_PIECES.computeIfAbsent(gameId, k -> new ArrayList<>());
+                                    int x, int y, Integer rotation, Boolean flipped,
+                                    Orientation orientation, BitBoard pieceMask) {
+        // Make sure the board exists before the new piece joins the list it is built from
+        BoardState board = getBoardState(gameId);
+        
+        // Get the list of placed pieces for this game (hydrated from the move log if needed)
+        List<Map<String, Object>> placedPieces = getPlacedPieces(gameId);
+        int ply = placedPieces.size();
         
         // Create a record of the placed piece
         Map<String, Object> placedPiece = new HashMap<>();
@@ -616,114 +748,188 @@ public class GameLogicServiceImpl implements GameLogicService {
         
         // Add to the list of placed pieces
         placedPieces.add(placedPiece);
+        GameUser.PlayerColor color = GameUser.PlayerColor.valueOf(pieceColor.toUpperCase());
+        getMobility(gameId).onPlacement(color, pieceMask);
+        board.place(color, pieceMask);
+        getFeatures(gameId).onPlacement(board, color, pieceMask);
+        // The turn logic reads the board right away; a rolled back move is taken off again
+        onRollback(() -> forgetPlacement(gameId, placedPiece));
+        
+        // Persist asynchronously, the database is not on the move path
+        GameMove move = new GameMove();
+        move.setGameId(gameId);
+        move.setPly(ply);
+        move.setColor(color);
+        move.setPieceId(pieceId);
+        move.setRotation(rotation != null ? rotation : 0);
+        move.setFlipped(flipped != null && flipped);
+        move.setX(x);
+        move.setY(y);
+        move.setPlayedAt(LocalDateTime.now());
+        
+        // Only committed moves are journaled and logged. Journal first: it is fsynced in groups
+        // and is what a restart recovers from
+        int code = Move.of(orientation, x, y);
+        afterCommit(() -> {
+            moveJournal.appendMove(gameId, ply, color, code);
+            moveLogWriter.append(move);
+        });
         
         System.out.println("Recorded piece placement: " + placedPiece);
     }
     
-    // Helper method to get all placed pieces for a game
-    @Override
-    public List<Map<String, Object>> getPlacedPieces(Long gameId) {
-        return GAME_PLACED_PIECES.getOrDefault(gameId, new ArrayList<>());
+    /**
+     * Takes a rolled back placement off the game. The board, mobility and features are rebuilt
+     * from the placed pieces the next time they are needed.
+     */
+    private void forgetPlacement(Long gameId, Map<String, Object> placedPiece) {
+        List<Map<String, Object>> placedPieces = gamePlacedPieces.get(gameId);
+        if (placedPieces != null) {
+            placedPieces.remove(placedPiece);
+        }
+        gameBoards.remove(gameId);
+        gameMobility.remove(gameId);
+        gameFeatures.remove(gameId);
+        logger.warn("Placement of game {} rolled back: {}", gameId, placedPiece);
     }
 
     /**
-     * Helper method to find a player by color
+     * Runs an action once the current transaction has committed, or right away outside of one
      */
-    private GameUser findPlayerByColor(List<GameUser> players, GameUser.PlayerColor color) {
-        for (GameUser player : players) {
-            if (player.getColor() == color) {
-                return player;
-            }
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
-        return null;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     /**
-     * Helper method to check if a piece is covering or touching the corner position
+     * Runs an action if the current transaction rolls back
      */
-    private boolean isCoveringOrTouchingCorner(int pieceX, int pieceY, int cornerX, int cornerY) {
-        System.out.println("CRITICAL DEBUG: Checking if piece at (" + pieceX + "," + pieceY + ") " +
-                          "is covering or touching corner at (" + cornerX + "," + cornerY + ")");
-        
-        String pieceId = null;
-        String pieceColor = null;
-        Integer rotation = null;
-        Boolean flipped = null;
-        
-        // Find this piece in the current game state to get its info
-        try {
-            for (Map<String, Object> placedPiece : currentPiecePlacementInfo) {
-                if (((Number) placedPiece.get("x")).intValue() == pieceX &&
-                    ((Number) placedPiece.get("y")).intValue() == pieceY) {
-                    pieceId = (String) placedPiece.get("pieceId");
-                    pieceColor = (String) placedPiece.get("pieceColor");
-                    rotation = (Integer) placedPiece.get("rotation");
-                    flipped = (Boolean) placedPiece.get("flipped");
-                    break;
+    private static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
                 }
             }
-        } catch (ClassCastException e) {
-            logger.error("Type conversion error for piece data: {}", e.getMessage());
-        } catch (RuntimeException e) {
-            logger.error("Unexpected error getting piece info: {}", e.getMessage());
-        }
-        
-        // If we couldn't find the piece info, try basic check
-        if (pieceId == null) {
-            // Basic check - just check if the piece covers the corner
-            if (pieceX == cornerX && pieceY == cornerY) {
-                System.out.println("Piece directly covers corner at (" + cornerX + "," + cornerY + ")");
-                return true;
+        });
+    }
+    
+    // Helper method to get all placed pieces for a game
+    @Override
+    public List<Map<String, Object>> getPlacedPieces(Long gameId) {
+        return gamePlacedPieces.computeIfAbsent(gameId, this::loadPlacedPieces);
+    }
+
+    /**
+     * Restore the placed pieces of every game left active in the move journal,
+     * so they are available without touching the database
+     */
+    private void restoreFromJournal() {
+        for (Map.Entry<Long, int[]> recovered : moveJournal.recoveredGames().entrySet()) {
+            List<Map<String, Object>> placedPieces = new CopyOnWriteArrayList<>();
+            for (int code : recovered.getValue()) {
+                int move = MoveCodec.move(code);
+                Map<String, Object> placedPiece = new HashMap<>();
+                placedPiece.put("pieceId", String.valueOf(Move.pieceId(move)));
+                placedPiece.put("pieceColor", MoveCodec.color(code).name().toLowerCase());
+                placedPiece.put("x", Move.x(move));
+                placedPiece.put("y", Move.y(move));
+                placedPiece.put("rotation", Move.rotation(move));
+                placedPiece.put("flipped", Move.flipped(move));
+                placedPieces.add(placedPiece);
             }
-            
-            System.out.println("WARNING: Using fallback corner check due to missing piece info");
-            
-            // Simple fallback check for pieces near the corner
-            return Math.abs(pieceX - cornerX) <= 3 && Math.abs(pieceY - cornerY) <= 3;
+            gamePlacedPieces.put(recovered.getKey(), placedPieces);
         }
-        
-        // Get the piece shape
-        boolean[][] shape = null;
-        try {
-            shape = getPieceShape(pieceId, pieceColor, rotation, flipped);
-        } catch (Exception e) {
-            System.out.println("Error getting piece shape: " + e.getMessage());
+    }
+
+    /**
+     * Load the placed pieces of a game from its persisted move log
+     */
+    private List<Map<String, Object>> loadPlacedPieces(Long gameId) {
+        // Copy-on-write: placements are rare, while the list is iterated on every request
+        List<Map<String, Object>> placedPieces = new CopyOnWriteArrayList<>();
+        for (GameMove move : gameMoveRepository.findByGameIdOrderByPly(gameId)) {
+            Map<String, Object> placedPiece = new HashMap<>();
+            placedPiece.put("pieceId", move.getPieceId());
+            placedPiece.put("pieceColor", move.getColor().name().toLowerCase());
+            placedPiece.put("x", move.getX());
+            placedPiece.put("y", move.getY());
+            placedPiece.put("rotation", move.getRotation());
+            placedPiece.put("flipped", move.isFlipped());
+            placedPieces.add(placedPiece);
         }
-        
-        if (shape == null) {
-            // If we can't get the shape, revert to basic check
-            System.out.println("WARNING: Using fallback corner check due to null shape");
-            return Math.abs(pieceX - cornerX) <= 3 && Math.abs(pieceY - cornerY) <= 3;
+        if (!placedPieces.isEmpty()) {
+            logger.info("Loaded {} moves of game {} from the move log", placedPieces.size(), gameId);
         }
-        
-        // Check each cell of the piece
-        for (int r = 0; r < shape.length; r++) {
-            for (int c = 0; c < shape[0].length; c++) {
-                if (shape[r][c]) {
-                    int absX = pieceX + c;
-                    int absY = pieceY + r;
-                    
-                    // If any cell covers the corner, return true
-                    if (absX == cornerX && absY == cornerY) {
-                        System.out.println("Piece cell at (" + absX + "," + absY + ") covers corner");
-                        return true;
-                    }
+        return placedPieces;
+    }
+
+    /**
+     * Get the bitboard of a game, rebuilding it from the placed pieces the first time it is needed
+     */
+    private BoardState getBoardState(Long gameId) {
+        return gameBoards.computeIfAbsent(gameId, id -> {
+            BoardState board = new BoardState();
+            for (Map<String, Object> placed : getPlacedPieces(id)) {
+                String placedPieceColor = (String) placed.get("pieceColor");
+                Orientation placedOrientation = getPieceShape((String) placed.get("pieceId"), placedPieceColor,
+                        (Integer) placed.get("rotation"), (Boolean) placed.get("flipped"));
+                if (placedOrientation == null) continue;
+                BitBoard placedMask = toPieceMask(placedOrientation, (int) placed.get("x"), (int) placed.get("y"));
+                if (placedMask != null) {
+                    board.place(GameUser.PlayerColor.valueOf(placedPieceColor.toUpperCase()), placedMask);
                 }
             }
+            return board;
+        });
+    }
+
+    /**
+     * Get the mobility cache of a game, created on top of its bitboard
+     */
+    private MobilityTracker getMobility(Long gameId) {
+        return gameMobility.computeIfAbsent(gameId, id -> new MobilityTracker(getBoardState(id)));
+    }
+
+    /**
+     * Get the territory features of a game, built from its bitboard the first time they are needed
+     */
+    private FeatureMaps getFeatures(Long gameId) {
+        return gameFeatures.computeIfAbsent(gameId, id -> new FeatureMaps(getBoardState(id)));
+    }
+
+    /**
+     * Project a piece orientation at (x, y) onto a bitboard.
+     * Returns null if any cell of the piece falls outside the board.
+     */
+    private BitBoard toPieceMask(Orientation orientation, int x, int y) {
+        BitBoard mask = new BitBoard();
+        return orientation.fillMask(mask, x, y) ? mask : null;
+    }
+
+    /**
+     * Helper method to find a player by color
+     */
+    private GameUser findPlayerByColor(List<GameUser> players, GameUser.PlayerColor color) {
+        for (GameUser player : players) {
+            if (player.getColor() == color) {
+                return player;
+            }
         }
-        
-        // Additional debug info
-        System.out.println("Piece does NOT cover corner directly, pieceX=" + pieceX + 
-                          ", pieceY=" + pieceY + ", shape width=" + 
-                          shape[0].length +
-                          ", shape height=" + shape.length);
-        
-        System.out.println("Piece does NOT cover corner at (" + cornerX + "," + cornerY + ")");
-        return false;
+        return null;
     }
-    
-    // Store current piece placement info temporarily
-    private final List<Map<String, Object>> currentPiecePlacementInfo = new ArrayList<>();
 
     /**
      * Helper method to debug piece placement information
@@ -740,85 +946,9 @@ public class GameLogicServiceImpl implements GameLogicService {
     /**
      * Validate that a piece placement has proper diagonal touch with pieces of the same color
      */
-    private boolean validateDiagonalTouch(Long gameId, String pieceColor, int x, int y, 
-                                        Integer rotation, Boolean flipped, String pieceId)
-    {
-        // Get all placed pieces of the same color
-        List<Map<String, Object>> allPlacedPieces = getPlacedPieces(gameId);
-        List<Map<String, Object>> sameColorPieces = allPlacedPieces.stream()
-                .filter(piece -> pieceColor.equalsIgnoreCase((String) piece.get("pieceColor")))
-                .collect(Collectors.toList());
-        
-        // Get the shape of the piece being placed
-        boolean[][] pieceShape = getPieceShape(pieceId, pieceColor, rotation, flipped);
-        if (pieceShape == null) {
-            System.out.println("ERROR: Could not determine piece shape for ID " + pieceId);
-            return false;
-        }
-        
-        // Create a board representation to track cells of same-color pieces
-        boolean[][] sameColorBoard = new boolean[20][20];
-        
-        // Mark all cells occupied by same-color pieces
-        for (Map<String, Object> piece : sameColorPieces) {
-            String placedPieceId = (String) piece.get("pieceId");
-            int placedX = (int) piece.get("x");
-            int placedY = (int) piece.get("y");
-            Integer placedRotation = (Integer) piece.get("rotation");
-            Boolean placedFlipped = (Boolean) piece.get("flipped");
-            
-            boolean[][] placedShape = getPieceShape(placedPieceId, pieceColor, placedRotation, placedFlipped);
-            if (placedShape == null) continue;
-            
-            for (int py = 0; py < placedShape.length; py++) {
-                for (int px = 0; px < placedShape[0].length; px++) {
-                    if (placedShape[py][px]) {
-                        int boardX = placedX + px;
-                        int boardY = placedY + py;
-                        if (boardX >= 0 && boardX < 20 && boardY >= 0 && boardY < 20) {
-                            sameColorBoard[boardY][boardX] = true;
-                        }
-                    }
-                }
-            }
-        }
-        
-        // Check for diagonal touch between new piece and existing same-color pieces
-        boolean hasDiagonalTouch = false;
-        boolean hasEdgeTouch = false;
-        
-        for (int py = 0; py < pieceShape.length; py++) {
-            for (int px = 0; px < pieceShape[0].length; px++) {
-                if (pieceShape[py][px]) {
-                    int boardX = x + px;
-                    int boardY = y + py;
-                    
-                    // Check for edge-to-edge touches (invalid)
-                    int[][] edges = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}}; // Up, down, left, right
-                    for (int[] e : edges) {
-                        int ex = boardX + e[0];
-                        int ey = boardY + e[1];
-                        
-                        if (ex >= 0 && ex < 20 && ey >= 0 && ey < 20 && sameColorBoard[ey][ex]) {
-                            hasEdgeTouch = true;
-                            System.out.println("ERROR: Found edge touch at (" + ex + "," + ey + ") with new piece cell at (" + boardX + "," + boardY + ")");
-                        }
-                    }
-                    
-                    // Check all diagonal neighbors
-                    int[][] diagonals = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
-                    for (int[] d : diagonals) {
-                        int dx = boardX + d[0];
-                        int dy = boardY + d[1];
-                        
-                        if (dx >= 0 && dx < 20 && dy >= 0 && dy < 20 && sameColorBoard[dy][dx]) {
-                            hasDiagonalTouch = true;
-                            System.out.println("Found diagonal touch at (" + dx + "," + dy + ") with new piece cell at (" + boardX + "," + boardY + ")");
-                        }
-                    }
-                }
-            }
-        }
+    private boolean validateDiagonalTouch(BoardState board, GameUser.PlayerColor color, BitBoard pieceMask) {
+        boolean hasDiagonalTouch = board.touchesCorner(color, pieceMask);
+        boolean hasEdgeTouch = board.touchesEdge(color, pieceMask);
         
         // A valid move must have at least one diagonal touch and must NOT have any edge touch
         if (!hasDiagonalTouch) {
@@ -831,169 +961,101 @@ public class GameLogicServiceImpl implements GameLogicService {
     }
 
     /**
-     * Get the shape of a piece based on its ID, rotation, and flip status
-     * This is a simplified implementation - in a real game, you'd have a more comprehensive piece library
+     * Get the shape of a piece based on its ID, rotation, and flip status.
+     * Shapes come from the precomputed orientation table, so nothing is allocated here.
      */
-    private boolean[][] getPieceShape(String pieceId, String pieceColor, Integer rotation, Boolean flipped) {
-        try {
-            if (pieceId == null || pieceColor == null) {
-                System.out.println("ERROR in getPieceShape: pieceId or pieceColor is null. pieceId=" + pieceId + ", pieceColor=" + pieceColor);
-                return null;
-            }
-            List<Piece> pieces = PieceFactory.createPieces(pieceColor);
-            if (pieces == null || pieces.isEmpty()) {
-                System.out.println("ERROR in getPieceShape: No pieces created for color '" + pieceColor + "'.");
-                return null;
-            }
-            for (Piece piece : pieces) {
-                if (pieceId.equals(String.valueOf(piece.getId()))) {
-                    boolean[][] originalShape = piece.getShape();
-                    if (originalShape == null) {
-                        System.out.println("ERROR in getPieceShape: originalShape is null for pieceId=" + pieceId);
-                        return null;
-                    }
-                    boolean[][] transformedShape = originalShape;
-                    // Defensive: Ensure rotation is a multiple of 90 and non-null
-                    int safeRotation = (rotation == null) ? 0 : rotation;
-                    if (safeRotation % 90 != 0) {
-                        System.out.println("WARNING in getPieceShape: rotation " + safeRotation + " is not a multiple of 90. Forcing to 0.");
-                        safeRotation = 0;
-                    }
-                    for (int r = 0; r < (safeRotation / 90); r++) {
-                        transformedShape = rotateShape(transformedShape);
-                    }
-                    if (flipped != null && flipped) {
-                        transformedShape = flipShape(transformedShape);
-                    }
-                    return transformedShape;
-                }
-            }
+    private Orientation getPieceShape(String pieceId, String pieceColor, Integer rotation, Boolean flipped) {
+        if (pieceId == null || pieceColor == null) {
+            System.out.println("ERROR in getPieceShape: pieceId or pieceColor is null. pieceId=" + pieceId + ", pieceColor=" + pieceColor);
+            return null;
+        }
+        if (rotation != null && rotation % 90 != 0) {
+            System.out.println("WARNING in getPieceShape: rotation " + rotation + " is not a multiple of 90. Forcing to 0.");
+        }
+        Orientation orientation = PieceOrientations.get(pieceId, rotation, flipped);
+        if (orientation == null) {
             System.out.println("ERROR: Piece ID '" + pieceId + "' not found for color '" + pieceColor + "'.");
-            System.out.println("Available IDs for color '" + pieceColor + "': " + pieces.stream().map(Piece::getId).toList());
-        } catch (Exception e) {
-            System.out.println("ERROR in getPieceShape: " + e.getMessage());
-            logger.error("Exception in getPieceShape for pieceId={}, pieceColor={}: {}", pieceId, pieceColor, e.getMessage(), e);
         }
-        return null;
+        return orientation;
     }
 
     /**
-     * Rotate a shape 90 degrees clockwise
+     * Check if a player can make any legal move with their remaining pieces
      */
-    private boolean[][] rotateShape(boolean[][] shape) {
-        int height = shape.length;
-        int width = shape[0].length;
-        boolean[][] rotated = new boolean[width][height];
-        
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                rotated[x][height - 1 - y] = shape[y][x];
-            }
+    @Override
+    public boolean canPlayerMove(GameUser player, Long gameId) {
+        if (player == null || player.getAvailablePieceIds() == null || player.getAvailablePieceIds().isEmpty()) {
+            return false;
         }
-        
-        return rotated;
+        // Only searches (stopping at the first legal move) if a placement may have changed the answer
+        return getMobility(gameId).canMove(player.getColor(),
+                LegalMoveGenerator.inventoryOf(player.getAvailablePieceIds()));
     }
 
-    /**
-     * Flip a shape horizontally
-     */
-    private boolean[][] flipShape(boolean[][] shape) {
-        int height = shape.length;
-        int width = shape[0].length;
-        boolean[][] flipped = new boolean[height][width];
-        
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                flipped[y][width - 1 - x] = shape[y][x];
-            }
+    @Override
+    public int[] listLegalMoves(Long gameId, GameUser player) {
+        if (player == null) {
+            return new int[0];
         }
-        
-        return flipped;
+        return LegalMoveGenerator.list(getBoardState(gameId), player.getColor(),
+                LegalMoveGenerator.inventoryOf(player.getAvailablePieceIds()));
     }
 
-    /**
-     * Check if a player can make any legal move with their remaining pieces
-     */
     @Override
-    public boolean canPlayerMove(GameUser player, Long gameId) {
-        if (player == null || player.getAvailablePieceIds() == null || player.getAvailablePieceIds().isEmpty()) {
-            return false;
+    public int countLegalMoves(Long gameId, GameUser player) {
+        if (player == null) {
+            return 0;
         }
-        // Build board occupancy
-        List<Map<String, Object>> placedPieces = getPlacedPieces(gameId);
-        boolean[][] boardOccupied = new boolean[20][20];
-        for (Map<String, Object> placed : placedPieces) {
-            String placedPieceId = (String) placed.get("pieceId");
-            String placedPieceColor = (String) placed.get("pieceColor");
-            int placedX = (int) placed.get("x");
-            int placedY = (int) placed.get("y");
-            Integer placedRotation = (Integer) placed.get("rotation");
-            Boolean placedFlipped = (Boolean) placed.get("flipped");
-            boolean[][] placedShape = getPieceShape(placedPieceId, placedPieceColor, placedRotation, placedFlipped);
-            if (placedShape == null) continue;
-            for (int py = 0; py < placedShape.length; py++) {
-                for (int px = 0; px < placedShape[0].length; px++) {
-                    if (placedShape[py][px]) {
-                        int boardX = placedX + px;
-                        int boardY = placedY + py;
-                        if (boardX >= 0 && boardX < 20 && boardY >= 0 && boardY < 20) {
-                            boardOccupied[boardY][boardX] = true;
-                        }
-                    }
-                }
-            }
+        return LegalMoveGenerator.count(getBoardState(gameId), player.getColor(),
+                LegalMoveGenerator.inventoryOf(player.getAvailablePieceIds()));
+    }
+
+    @Override
+    public void forEachLegalMove(Long gameId, GameUser player, IntConsumer consumer) {
+        if (player == null) {
+            return;
         }
-        // Try every piece, every position, every rotation/flip
-        String color = player.getColor().toString().toLowerCase();
-        for (String pieceId : player.getAvailablePieceIds()) {
-            for (int rotation : new int[]{0, 90, 180, 270}) {
-                for (boolean flipped : new boolean[]{false, true}) {
-                    boolean[][] shape = getPieceShape(pieceId, color, rotation, flipped);
-                    if (shape == null) continue;
-                    int height = shape.length;
-                    int width = shape[0].length;
-                    for (int y = 0; y <= 20 - height; y++) {
-                        for (int x = 0; x <= 20 - width; x++) {
-                            // Check for overlap
-                            boolean overlap = false;
-                            for (int py = 0; py < height; py++) {
-                                for (int px = 0; px < width; px++) {
-                                    if (shape[py][px]) {
-                                        int boardX = x + px;
-                                        int boardY = y + py;
-                                        if (boardOccupied[boardY][boardX]) {
-                                            overlap = true;
-                                            break;
-                                        }
-                                    }
-                                }
-                                if (overlap) break;
-                            }
-                            if (overlap) continue;
-                            // First piece: must touch starting corner
-                            List<Map<String, Object>> placedPiecesForCorner = getPlacedPieces(gameId);
-                            boolean hasPlayerPlacedPieces = placedPiecesForCorner.stream().anyMatch(p -> color.equalsIgnoreCase((String)p.get("pieceColor")));
-                            if (!hasPlayerPlacedPieces) {
-                                boolean isValidCorner = false;
-                                switch (player.getColor()) {
-                                    case BLUE -> isValidCorner = isCoveringOrTouchingCorner(x, y, 0, 0);
-                                    case YELLOW -> isValidCorner = isCoveringOrTouchingCorner(x, y, 19, 0);
-                                    case RED -> isValidCorner = isCoveringOrTouchingCorner(x, y, 0, 19);
-                                    case GREEN -> isValidCorner = isCoveringOrTouchingCorner(x, y, 19, 19);
-                                }
-                                if (!isValidCorner) continue;
-                                return true;
-                            } else {
-                                // Subsequent piece: must have diagonal touch, no edge touch
-                                if (validateDiagonalTouch(gameId, color, x, y, rotation, flipped, pieceId)) {
-                                    return true;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        LegalMoveGenerator.forEach(getBoardState(gameId), player.getColor(),
+                LegalMoveGenerator.inventoryOf(player.getAvailablePieceIds()), move -> {
+                    consumer.accept(move);
+                    return true;
+                });
+    }
+
+    @Override
+    public GamePosition getPosition(Long gameId) {
+        // Players are fetched with the game, so this also works outside of a transaction
+        Game game = gameRepository.findWithPlayersById(gameId)
+                .orElseThrow(() -> new EntityNotFoundException("Game not found with id: " + gameId));
+
+        int colors = GameUser.PlayerColor.values().length;
+        int[] inventories = new int[colors];
+        for (GameUser player : game.getPlayers()) {
+            inventories[player.getColor().ordinal()] = LegalMoveGenerator.inventoryOf(player.getAvailablePieceIds());
+        }
+        // Placed pieces are kept in placement order, so the last one of each color wins
+        int[] lastPieces = new int[colors];
+        for (Map<String, Object> placed : getPlacedPieces(gameId)) {
+            GameUser.PlayerColor color = GameUser.PlayerColor.valueOf(((String) placed.get("pieceColor")).toUpperCase());
+            lastPieces[color.ordinal()] = Math.max(0, PieceOrientations.parsePieceId((String) placed.get("pieceId")));
         }
-        return false;
+        GameUser currentPlayer = game.getCurrentPlayer();
+        GameUser.PlayerColor toMove = currentPlayer != null ? currentPlayer.getColor() : GameUser.PlayerColor.BLUE;
+        return new GamePosition(getBoardState(gameId), inventories, lastPieces, toMove);
+    }
+
+    @Override
+    public long getStateHash(Long gameId) {
+        return getBoardState(gameId).getHash();
+    }
+
+    @Override
+    public byte[] encodeBoard(Long gameId) {
+        return BoardCodec.encode(getBoardState(gameId));
+    }
+
+    @Override
+    public FeatureMaps getFeatureMaps(Long gameId) {
+        return getFeatures(gameId).copy();
     }
-}
\ No newline at end of file
+}
@@ -2,20 +2,16 @@ package com.blokus.blokus.service.impl;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.beans.factory.DisposableBean;
 
 import com.blokus.blokus.dto.GameCreateDto;
 import com.blokus.blokus.dto.GameStatisticsDto;
@@ -30,9 +26,13 @@ import com.blokus.blokus.model.PieceFactory;
 import com.blokus.blokus.model.User;
 import com.blokus.blokus.repository.GameRepository;
 import com.blokus.blokus.repository.GameUserRepository;
+import com.blokus.blokus.service.GameEndedEvent;
 import com.blokus.blokus.service.GameLogicService;
 import com.blokus.blokus.service.GameService;
 import com.blokus.blokus.service.GameWebSocketService;
+import com.blokus.blokus.service.TurnTimedOutEvent;
+import com.blokus.blokus.service.session.GameSessionManager;
+import com.blokus.blokus.service.timer.TurnClock;
 
 import jakarta.persistence.EntityNotFoundException;
 
@@ -40,24 +40,31 @@ import jakarta.persistence.EntityNotFoundException;
  * Implémentation du service de gestion des parties
  */
 @Service
-public class GameServiceImpl implements GameService, DisposableBean {
+public class GameServiceImpl implements GameService {
 
     private final GameRepository gameRepository;
     private final GameUserRepository gameUserRepository;
     private final GameLogicService gameLogicService;
     private final GameWebSocketService gameWebSocketService;
-
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    private final Map<Long, ScheduledFuture<?>> gameTimers = new ConcurrentHashMap<>();
+    private final GameSessionManager gameSessionManager;
+    private final TurnClock turnClock;
+    private final ApplicationEventPublisher eventPublisher;
 
     public GameServiceImpl(GameRepository gameRepository,
             GameUserRepository gameUserRepository,
             GameLogicService gameLogicService,
-            GameWebSocketService gameWebSocketService) {
+            GameWebSocketService gameWebSocketService,
+            GameSessionManager gameSessionManager,
+            TurnClock turnClock,
+            ApplicationEventPublisher eventPublisher) {
         this.gameRepository = gameRepository;
         this.gameUserRepository = gameUserRepository;
         this.gameLogicService = gameLogicService;
         this.gameWebSocketService = gameWebSocketService;
+        this.gameSessionManager = gameSessionManager;
+        this.turnClock = turnClock;
+        this.eventPublisher = eventPublisher;
+        turnClock.setExpiryHandler(this::onTurnExpired);
     }
 
     @Override
@@ -454,6 +461,7 @@ public class GameServiceImpl implements GameService, DisposableBean {
         if (players.size() == 1 || players.get(0).getUser().getId().equals(user.getId())) {
             // Supprimer la partie complètement
             gameRepository.delete(game);
+            eventPublisher.publishEvent(new GameEndedEvent(gameId));
             return null;
         } else {
             // Sinon, retirer le joueur de la partie
@@ -543,6 +551,7 @@ public class GameServiceImpl implements GameService, DisposableBean {
         
         // Supprimer la partie
         gameRepository.delete(game);
+        eventPublisher.publishEvent(new GameEndedEvent(gameId));
         return null;
     }
     
@@ -564,7 +573,8 @@ public class GameServiceImpl implements GameService, DisposableBean {
         }
         
         // Delegate actual placement and validation to GameLogicService
-        boolean placed = gameLogicService.placePiece(gameId, userId, pieceId, pieceColor, x, y, rotation, flipped);
+        boolean placed = gameSessionManager.call(gameId,
+                () -> gameLogicService.placePiece(gameId, userId, pieceId, pieceColor, x, y, rotation, flipped));
 
         if (placed) {
             // Re-fetch game to get the absolute latest state after piece placement and potential turn advancement by GameLogicService
@@ -666,36 +676,53 @@ public class GameServiceImpl implements GameService, DisposableBean {
             return;
         }
 
-        cancelTimer(game.getId()); // Cancel any existing timer for this game
-
         System.out.println("Scheduling turn timer for game " + game.getId() + " for player " + game.getCurrentPlayer().getColor() + " for 60 seconds.");
-        ScheduledFuture<?> newTimer = scheduler.schedule(() -> {
-            System.out.println("Timer expired for game " + game.getId() + ". Advancing turn due to timeout.");
-            advanceTurnDueToTimeout(game.getId());
-        }, 60, TimeUnit.SECONDS);
-        gameTimers.put(game.getId(), newTimer);
+        LocalDateTime turnStart = game.getTurnStartTime() != null ? game.getTurnStartTime() : LocalDateTime.now();
+        // Replaces any pending deadline of the game
+        turnClock.schedule(game.getId(), game.getCurrentPlayer().getId(), TurnClock.deadlineOf(turnStart));
+    }
+
+    /**
+     * Rebuilds the turn clocks of all running TIMED games after a restart. Deadlines come from
+     * the persisted turn start times, so turns that expired while the server was down end right away.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void recoverTurnClocks() {
+        List<Game> timedGames = gameRepository.findWithPlayersByStatusAndMode(GameStatus.PLAYING, GameMode.TIMED);
+        int recovered = 0;
+        for (Game game : timedGames) {
+            GameUser currentPlayer = game.getCurrentPlayer();
+            if (currentPlayer == null) {
+                continue;
+            }
+            LocalDateTime turnStart = game.getTurnStartTime() != null ? game.getTurnStartTime() : LocalDateTime.now();
+            turnClock.schedule(game.getId(), currentPlayer.getId(), TurnClock.deadlineOf(turnStart));
+            recovered++;
+        }
+        System.out.println("Recovered turn clocks of " + recovered + " timed games.");
     }
 
     private void cancelTimer(Long gameId) {
-        ScheduledFuture<?> existingTimer = gameTimers.remove(gameId);
-        if (existingTimer != null) {
-            boolean cancelled = existingTimer.cancel(false);
-            System.out.println("Cancelled timer for game " + gameId + ". Success: " + cancelled);
+        if (turnClock.cancel(gameId)) {
+            System.out.println("Cancelled timer for game " + gameId + ".");
         }
     }
 
-    @Override
-    public void destroy() throws Exception {
-        System.out.println("Shutting down GameServiceImpl scheduler.");
-        scheduler.shutdownNow();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                System.err.println("Scheduler did not terminate in the specified time.");
-            }
-        } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
+    /**
+     * Runs in the game's session when a turn deadline passes, and drops the timeout if the turn moved on meanwhile
+     */
+    private void onTurnExpired(Long gameId, Long timedPlayerId) {
+        GameUser currentPlayer = gameLogicService.getCurrentPlayer(gameId);
+        if (currentPlayer == null || !currentPlayer.getId().equals(timedPlayerId)) {
+            System.out.println("Ignoring stale timer for game " + gameId + ".");
+            return;
         }
-        gameTimers.clear();
+        System.out.println("Timer expired for game " + gameId + ". Advancing turn due to timeout.");
+        String playerName = currentPlayer.isBot() ? "Bot " + currentPlayer.getColor().name().toLowerCase()
+                : (currentPlayer.getUser() != null ? currentPlayer.getUser().getUsername() : "Unknown");
+        gameWebSocketService.sendPlayerSkippedUpdate(gameId, playerName + " (timeout)");
+        advanceTurnDueToTimeout(gameId);
     }
 
     @Transactional
@@ -719,9 +746,7 @@ public class GameServiceImpl implements GameService, DisposableBean {
         Game updatedGame = findById(gameId); 
 
         if (updatedGame.getStatus() == GameStatus.PLAYING && nextPlayer != null) {
-            updatedGame.setTurnStartTime(LocalDateTime.now());
-            gameRepository.save(updatedGame); // Save updated turn start time
-            scheduleTurnTimer(updatedGame); // Schedule timer for the new player's turn
+            // nextTurn already started the clock of the new player's turn
             
             // Send a specific WebSocket message for timeout
             // gameWebSocketService.sendGameUpdate(gameId, "TURN_TIMEOUT", previousPlayerName + "'s turn timed out. Now " + nextPlayer.getUser().getUsername() + "'s turn.", Map.of("timedOutPlayer", previousPlayerName, "nextPlayer", nextPlayer.getUser().getUsername()));
@@ -730,6 +755,7 @@ public class GameServiceImpl implements GameService, DisposableBean {
             // However, a more specific message might be better.
             // For now, relying on notifyGameStateChanged for client to refresh timer.
             gameWebSocketService.notifyGameStateChanged(gameId);
+            eventPublisher.publishEvent(new TurnTimedOutEvent(gameId, nextPlayer.isBot()));
             System.out.println("Turn advanced due to timeout for game " + gameId + ". Next player: " + (nextPlayer.isBot() ? "Bot " + nextPlayer.getColor() : nextPlayer.getUser().getUsername()));
         } else if (updatedGame.getStatus() == GameStatus.FINISHED) {
             System.out.println("Game " + gameId + " finished after timeout or no player could move.");
@@ -0,0 +1,448 @@
+package com.blokus.blokus.service.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.MoveCodec;
+
+/**
+ * Crash-safe, append-only binary journal of the moves of active games.
+ * <p>
+ * Records are appended to numbered segment files through a {@link FileChannel} by a single
+ * writer thread, which groups every record queued meanwhile into one write and one fsync
+ * (group commit). Each record carries a CRC32, so a torn tail left by a crash is detected and
+ * cut off on recovery. Every {@code snapshotInterval} records the writer starts a new segment
+ * and writes a compact snapshot of all active games, after which older segments are deleted.
+ * <p>
+ * On startup the latest valid snapshot is loaded and the newer segments are replayed.
+ * Replay is idempotent by ply, so a move present in both is applied once. The recovered
+ * games are exposed by {@link #recoveredGames()} for the game logic to rebuild its state.
+ */
+@Service
+public class MoveJournal implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MoveJournal.class);
+
+    private static final byte RECORD_MOVE = 1;
+    private static final byte RECORD_GAME_END = 2;
+    // length + crc
+    private static final int RECORD_HEADER = 8;
+    // type + gameId + ply + move code
+    private static final int MOVE_PAYLOAD = 1 + 8 + 2 + 4;
+    // type + gameId
+    private static final int GAME_END_PAYLOAD = 1 + 8;
+    private static final int MAX_PAYLOAD = MOVE_PAYLOAD;
+
+    private static final int SNAPSHOT_MAGIC = 0x424C4B53; // "BLKS"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentSize;
+    private final int snapshotInterval;
+
+    // Moves of every active game as MoveCodec codes; only touched by the writer thread after recovery
+    private final Map<Long, GameLog> games = new HashMap<>();
+    private final Map<Long, int[]> recovered;
+    private final BlockingQueue<PendingRecord> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private FileChannel segment;
+    private long segmentSequence;
+    private int recordsSinceSnapshot;
+
+    public MoveJournal(@Value("${blokus.journal.enabled:true}") boolean enabled,
+                       @Value("${blokus.journal.dir:data/journal}") String directory,
+                       @Value("${blokus.journal.segment-size:67108864}") long segmentSize,
+                       @Value("${blokus.journal.snapshot-interval:10000}") int snapshotInterval) throws IOException {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.snapshotInterval = snapshotInterval;
+        if (!enabled) {
+            this.recovered = Collections.emptyMap();
+            this.writer = null;
+            return;
+        }
+
+        Files.createDirectories(this.directory);
+        long started = System.nanoTime();
+        long nextSegment = recover();
+        Map<Long, int[]> recoveredGames = new HashMap<>();
+        games.forEach((gameId, log) -> recoveredGames.put(gameId, log.toArray()));
+        this.recovered = Collections.unmodifiableMap(recoveredGames);
+        logger.info("Move journal recovered {} active games in {} ms",
+                recovered.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        openSegment(nextSegment);
+        this.writer = new Thread(this::run, "move-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Games found in the journal at startup, as {@link MoveCodec} codes in ply order
+     */
+    public Map<Long, int[]> recoveredGames() {
+        return recovered;
+    }
+
+    /**
+     * Appends a move. The returned future completes once the record is on disk.
+     *
+     * @param move Packed {@link com.blokus.blokus.service.engine.Move}
+     */
+    public CompletableFuture<Void> appendMove(long gameId, int ply, PlayerColor color, int move) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(MOVE_PAYLOAD);
+        payload.put(RECORD_MOVE).putLong(gameId).putShort((short) ply).putInt(MoveCodec.encode(color, move));
+        return enqueue(payload);
+    }
+
+    /**
+     * Records that a game is over, so it is left out of recovery and snapshots
+     */
+    public CompletableFuture<Void> markFinished(long gameId) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(GAME_END_PAYLOAD);
+        payload.put(RECORD_GAME_END).putLong(gameId);
+        return enqueue(payload);
+    }
+
+    private CompletableFuture<Void> enqueue(ByteBuffer payload) {
+        PendingRecord record = new PendingRecord(payload.array(), new CompletableFuture<>());
+        pending.add(record);
+        return record.done;
+    }
+
+    // ------------------------------------------------------------------ writer thread
+
+    private void run() {
+        List<PendingRecord> batch = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingRecord first = pending.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch);
+                commit(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes a group of records with a single fsync, then completes their futures
+     */
+    private void commit(List<PendingRecord> batch) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(batch.size() * (RECORD_HEADER + MAX_PAYLOAD));
+            CRC32 crc = new CRC32();
+            for (PendingRecord record : batch) {
+                crc.reset();
+                crc.update(record.payload);
+                buffer.putInt(record.payload.length).putInt((int) crc.getValue()).put(record.payload);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            segment.force(false);
+        } catch (IOException e) {
+            logger.error("Failed to write {} journal records", batch.size(), e);
+            batch.forEach(record -> record.done.completeExceptionally(e));
+            return;
+        }
+
+        for (PendingRecord record : batch) {
+            apply(ByteBuffer.wrap(record.payload));
+            record.done.complete(null);
+        }
+        recordsSinceSnapshot += batch.size();
+
+        try {
+            if (recordsSinceSnapshot >= snapshotInterval) {
+                snapshot();
+            } else if (segment.size() >= segmentSize) {
+                openSegment(segmentSequence + 1);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to roll the move journal", e);
+        }
+    }
+
+    /**
+     * Starts a new segment and writes every active game into a snapshot covering the older ones,
+     * which are then deleted
+     */
+    private void snapshot() throws IOException {
+        long nextSegment = segmentSequence + 1;
+        openSegment(nextSegment);
+
+        int size = 4 + 4 + 8 + 4;
+        for (GameLog log : games.values()) {
+            size += 8 + 2 + log.size * 4;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size + 4);
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(nextSegment).putInt(games.size());
+        for (Map.Entry<Long, GameLog> game : games.entrySet()) {
+            GameLog log = game.getValue();
+            buffer.putLong(game.getKey()).putShort((short) log.size);
+            for (int i = 0; i < log.size; i++) {
+                buffer.putInt(log.entries[i]);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Path target = directory.resolve(fileName(SNAPSHOT_PREFIX, nextSegment, SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        recordsSinceSnapshot = 0;
+
+        // Everything before the new segment is now covered by the snapshot
+        for (Map.Entry<Long, Path> old : listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX).entrySet()) {
+            if (old.getKey() < nextSegment) {
+                Files.deleteIfExists(old.getValue());
+            }
+        }
+        for (Map.Entry<Long, Path> old : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).entrySet()) {
+            if (old.getKey() < nextSegment) {
+                Files.deleteIfExists(old.getValue());
+            }
+        }
+        logger.debug("Move journal snapshot {} written with {} games", nextSegment, games.size());
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        segmentSequence = sequence;
+        segment = FileChannel.open(directory.resolve(fileName(SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // ------------------------------------------------------------------ recovery
+
+    /**
+     * Loads the latest snapshot and replays the newer segments.
+     *
+     * @return The sequence number of the segment to write next
+     */
+    private long recover() throws IOException {
+        long firstSegment = 0;
+        TreeMap<Long, Path> snapshots = listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (Long sequence : snapshots.descendingKeySet()) {
+            if (loadSnapshot(snapshots.get(sequence))) {
+                firstSegment = sequence;
+                break;
+            }
+            logger.warn("Ignoring corrupted journal snapshot {}", snapshots.get(sequence));
+        }
+
+        long nextSegment = firstSegment;
+        for (Map.Entry<Long, Path> segmentFile : listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX).entrySet()) {
+            if (segmentFile.getKey() < firstSegment) {
+                continue;
+            }
+            replaySegment(segmentFile.getValue());
+            nextSegment = segmentFile.getKey() + 1;
+        }
+        return nextSegment;
+    }
+
+    private boolean loadSnapshot(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 24) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.limit() - 4);
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)
+                || buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+            return false;
+        }
+        buffer.getLong(); // first segment not covered, also encoded in the file name
+        int gameCount = buffer.getInt();
+        for (int g = 0; g < gameCount; g++) {
+            long gameId = buffer.getLong();
+            int moveCount = buffer.getShort();
+            GameLog log = new GameLog();
+            for (int i = 0; i < moveCount; i++) {
+                log.add(buffer.getInt());
+            }
+            games.put(gameId, log);
+        }
+        return true;
+    }
+
+    /**
+     * Replays the valid records of a segment, cutting off a torn or corrupted tail
+     */
+    private void replaySegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read the whole segment
+            }
+            buffer.flip();
+            CRC32 crc = new CRC32();
+            int valid = 0;
+            while (buffer.remaining() >= RECORD_HEADER) {
+                int length = buffer.getInt();
+                int expectedCrc = buffer.getInt();
+                if (length <= 0 || length > MAX_PAYLOAD || buffer.remaining() < length) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.array(), buffer.position(), length);
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                apply(payload);
+                valid = buffer.position();
+            }
+            if (valid < channel.size()) {
+                logger.warn("Truncating journal segment {} from {} to {} bytes", file, channel.size(), valid);
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Applies a record to the in-memory game logs. Moves are applied by ply, so replaying
+     * a move that is already known has no effect.
+     */
+    private void apply(ByteBuffer payload) {
+        byte type = payload.get();
+        long gameId = payload.getLong();
+        if (type == RECORD_GAME_END) {
+            games.remove(gameId);
+            return;
+        }
+        if (type != RECORD_MOVE) {
+            logger.warn("Unknown journal record type {}", type);
+            return;
+        }
+        int ply = payload.getShort();
+        int code = payload.getInt();
+        GameLog log = games.computeIfAbsent(gameId, id -> new GameLog());
+        if (ply == log.size) {
+            log.add(code);
+        } else if (ply > log.size) {
+            logger.warn("Gap in the journal of game {}: expected ply {} but got {}", gameId, log.size, ply);
+        }
+    }
+
+    private TreeMap<Long, Path> listFiles(String prefix, String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), file);
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected journal file {}", file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static String fileName(String prefix, long sequence, String suffix) {
+        return String.format("%s%016d%s", prefix, sequence, suffix);
+    }
+
+    /**
+     * Writes what is still queued, then closes the current segment
+     */
+    @Override
+    public void destroy() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        segment.close();
+    }
+
+    private record PendingRecord(byte[] payload, CompletableFuture<Void> done) {
+    }
+
+    /**
+     * Growable list of the move codes of one game
+     */
+    private static final class GameLog {
+        private int[] entries = new int[16];
+        private int size;
+
+        void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(entries, size);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.blokus.blokus.service.session;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Owns the command queue of every game session.
+ * <p>
+ * Every mutation of a game (moves, turn advances, timeouts, AI moves) runs as a command on
+ * the single writer thread of its session, so commands of one game never interleave and need
+ * no locks. Games are sharded over a fixed pool of lanes, one per core by default, so
+ * different games proceed in parallel.
+ */
+@Service
+public class GameSessionManager implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameSessionManager.class);
+
+    private final ShardedExecutor lanes;
+
+    public GameSessionManager(@Value("${blokus.sessions.lanes:0}") int laneCount,
+                              @Value("${blokus.sessions.queue-capacity:10000}") int queueCapacity) {
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ShardedExecutor("game-session", count, queueCapacity);
+        logger.info("Game sessions sharded over {} lanes", count);
+    }
+
+    /**
+     * Runs a command on the session of a game and waits for its result.
+     * A command issued from the session itself runs inline.
+     *
+     * @throws RuntimeException the exception thrown by the command, if any
+     */
+    public <T> T call(Long gameId, Callable<T> command) {
+        if (lanes.isOnLane(gameId)) {
+            try {
+                return command.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Command failed for game " + gameId, e);
+            }
+        }
+        try {
+            return lanes.submit(gameId, command).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a command of game " + gameId, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Command failed for game " + gameId, cause);
+        }
+    }
+
+    /**
+     * Runs a command without result on the session of a game and waits for it
+     */
+    public void run(Long gameId, Runnable command) {
+        call(gameId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Queues a command on the session of a game without waiting for it
+     */
+    public <T> CompletableFuture<T> submit(Long gameId, Callable<T> command) {
+        return lanes.submit(gameId, command);
+    }
+
+    /**
+     * Queues a command on the session of a game, failures are logged
+     */
+    public void execute(Long gameId, Runnable command) {
+        lanes.execute(gameId, command);
+    }
+
+    /**
+     * Checks if the calling thread is the writer of a game's session
+     */
+    public boolean isInSession(Long gameId) {
+        return lanes.isOnLane(gameId);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (!lanes.shutdown(5, TimeUnit.SECONDS)) {
+            logger.warn("Game session lanes did not finish their commands in time");
+        }
+    }
+}
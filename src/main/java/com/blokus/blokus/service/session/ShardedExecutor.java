@@ -0,0 +1,116 @@
+package com.blokus.blokus.service.session;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fixed set of single-threaded lanes. Tasks submitted with the same key always run on the
+ * same lane, one at a time and in submission order, while different keys spread over all
+ * lanes. This gives per-key serialization without locks.
+ */
+public class ShardedExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedExecutor.class);
+
+    private final ThreadPoolExecutor[] lanes;
+    private final Thread[] laneThreads;
+
+    /**
+     * @param name          Prefix of the lane thread names
+     * @param laneCount     Number of lanes, usually the number of cores
+     * @param queueCapacity Maximum number of waiting tasks per lane, further tasks are rejected
+     */
+    public ShardedExecutor(String name, int laneCount, int queueCapacity) {
+        lanes = new ThreadPoolExecutor[laneCount];
+        laneThreads = new Thread[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            int lane = i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, name + "-" + lane);
+                        thread.setDaemon(true);
+                        laneThreads[lane] = thread;
+                        return thread;
+                    });
+            lanes[i].prestartCoreThread();
+        }
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int laneOf(long key) {
+        // Spread consecutive ids (games are numbered sequentially) over the lanes
+        return Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), lanes.length);
+    }
+
+    /**
+     * Checks if the calling thread is the lane thread of a key
+     */
+    public boolean isOnLane(long key) {
+        return Thread.currentThread() == laneThreads[laneOf(key)];
+    }
+
+    /**
+     * Runs a task on the lane of a key. A failing task is logged, so the lane thread
+     * is never replaced.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the lane queue is full
+     */
+    public void execute(long key, Runnable task) {
+        lanes[laneOf(key)].execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Task for key {} failed", key, e);
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the lane of a key and completes the returned future with its result
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the lane queue is full
+     */
+    public <T> CompletableFuture<T> submit(long key, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        execute(key, () -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Number of tasks waiting on the lane of a key
+     */
+    public int queued(long key) {
+        return lanes[laneOf(key)].getQueue().size();
+    }
+
+    /**
+     * Stops accepting tasks and waits for the queued ones to finish
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
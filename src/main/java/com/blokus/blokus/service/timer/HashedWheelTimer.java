@@ -0,0 +1,276 @@
+package com.blokus.blokus.service.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timer based on a hashed timing wheel. Scheduling and cancelling are O(1), and one worker
+ * thread expires timeouts at the granularity of a tick, however many are pending.
+ * <p>
+ * The wheel is an array of buckets. Each tick the worker moves newly scheduled timeouts into
+ * their bucket, unlinks cancelled ones and expires the due timeouts of the current bucket.
+ * Timeouts further away than one turn of the wheel stay in their bucket for several rounds.
+ * Tasks run on the worker thread and must only hand the work off.
+ */
+public class HashedWheelTimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    /**
+     * Task run when a timeout expires
+     */
+    @FunctionalInterface
+    public interface TimerTask {
+        void run(Timeout timeout);
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LagStats lag = new LagStats();
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * @param name      Name of the worker thread
+     * @param tick      Duration of one tick, the expiry granularity
+     * @param unit      Unit of the tick duration
+     * @param wheelSize Number of buckets, rounded up to a power of two
+     */
+    public HashedWheelTimer(String name, long tick, TimeUnit unit, int wheelSize) {
+        if (tick <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        this.tickNanos = unit.toNanos(tick);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::runWorker, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedules a task after a delay. A delay of zero or less expires on the next tick.
+     */
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timer is stopped");
+        }
+        long deadline = System.nanoTime() + Math.max(0, unit.toNanos(delay)) - startTime;
+        Timeout timeout = new Timeout(this, task, deadline);
+        pending.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Number of timeouts neither expired nor cancelled yet
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    public long tickMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    /**
+     * Delay between the deadline of expired timeouts and the moment their task ran
+     */
+    public LagStats lag() {
+        return lag;
+    }
+
+    /**
+     * Stops the worker. Pending timeouts are dropped.
+     *
+     * @return whether the worker stopped within the timeout
+     */
+    public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(Math.max(1, unit.toMillis(timeout)));
+        return !worker.isAlive();
+    }
+
+    private void runWorker() {
+        while (running) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long now;
+            while ((now = System.nanoTime()) < deadline) {
+                LockSupport.parkNanos(this, deadline - now);
+                if (!running) {
+                    return;
+                }
+            }
+            unlinkCancelled();
+            transferScheduled();
+            wheel[(int) (tick & mask)].expire(now - startTime);
+            tick++;
+        }
+    }
+
+    private void transferScheduled() {
+        // Bounded so a burst of schedules cannot starve the expiry of the current bucket
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != Timeout.PENDING) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long now) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.expire()) {
+                        lag.record(now - timeout.deadline);
+                        try {
+                            timeout.task.run(timeout);
+                        } catch (RuntimeException e) {
+                            logger.error("Timer task failed", e);
+                        }
+                    }
+                } else if (timeout.state == Timeout.CANCELLED) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    /**
+     * Handle on a scheduled task
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final TimerTask task;
+        private final long deadline;
+        private volatile int state = PENDING;
+
+        // Owned by the worker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(HashedWheelTimer timer, TimerTask task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task if it has not run yet
+         *
+         * @return false if the timeout already expired or was cancelled
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            timer.pending.decrementAndGet();
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        private boolean expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return false;
+            }
+            timer.pending.decrementAndGet();
+            return true;
+        }
+    }
+}
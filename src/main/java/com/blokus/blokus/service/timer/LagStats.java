@@ -0,0 +1,40 @@
+package com.blokus.blokus.service.timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free count, mean and maximum of timer lags
+ */
+public class LagStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long lagNanos) {
+        long lag = Math.max(0, lagNanos);
+        count.increment();
+        totalNanos.add(lag);
+        maxNanos.accumulateAndGet(lag, Math::max);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double meanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / (double) n / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long maxMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fms max=%dms", count(), meanMillis(), maxMillis());
+    }
+}
@@ -0,0 +1,210 @@
+package com.blokus.blokus.service.timer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.blokus.blokus.service.session.GameSessionManager;
+
+/**
+ * Turn clocks of all TIMED games.
+ * <p>
+ * Each game has at most one pending deadline, held on a {@link HashedWheelTimer}. The wheel
+ * thread only hands an expiry off to the game's session, where the registered
+ * {@link ExpiryHandler} runs, so a slow timeout never delays the timeouts of other games.
+ * If the session's queue is full, the expiry is tried again shortly after, so a turn always
+ * times out in the end. Lags are measured both on the wheel and when the handler starts in
+ * the session.
+ * <p>
+ * Deadlines are absolute instants derived from the persisted {@code Game.turnStartTime}, so the
+ * clocks of running games can be rebuilt after a restart. The server is the only one to
+ * enforce them.
+ */
+@Service
+public class TurnClock implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TurnClock.class);
+
+    /**
+     * Duration of a turn in TIMED mode
+     */
+    public static final Duration TURN_DURATION = Duration.ofSeconds(60);
+
+    // Delay before handing an expiry off again to a session whose queue was full
+    private static final Duration RETRY_DELAY = Duration.ofMillis(100);
+
+    /**
+     * Called in the game's session when a turn deadline passes. The turn may have moved on
+     * meanwhile, so the handler must check that the player is still the current one.
+     */
+    @FunctionalInterface
+    public interface ExpiryHandler {
+        void onTurnExpired(Long gameId, Long playerId);
+    }
+
+    private final GameSessionManager gameSessionManager;
+    private final HashedWheelTimer wheel;
+    private final Map<Long, Deadline> timers = new ConcurrentHashMap<>();
+    private final LagStats sessionLag = new LagStats();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private volatile ExpiryHandler expiryHandler;
+
+    public TurnClock(GameSessionManager gameSessionManager,
+                     @Value("${blokus.turn-clock.tick-ms:10}") long tickMillis,
+                     @Value("${blokus.turn-clock.wheel-size:8192}") int wheelSize,
+                     @Value("${blokus.turn-clock.stats-interval-seconds:60}") long statsIntervalSeconds) {
+        this.gameSessionManager = gameSessionManager;
+        this.wheel = new HashedWheelTimer("turn-clock", tickMillis, TimeUnit.MILLISECONDS, wheelSize);
+        if (statsIntervalSeconds > 0) {
+            scheduleStatsReport(statsIntervalSeconds);
+        }
+    }
+
+    public void setExpiryHandler(ExpiryHandler expiryHandler) {
+        this.expiryHandler = expiryHandler;
+    }
+
+    /**
+     * Deadline of a turn that started at the given time
+     */
+    public static Instant deadlineOf(LocalDateTime turnStartTime) {
+        return turnStartTime.plus(TURN_DURATION).atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Sets the deadline of the current turn of a game, replacing any previous one
+     *
+     * @param playerId Id of the GameUser whose turn ends at the deadline
+     */
+    public void schedule(Long gameId, Long playerId, Instant deadline) {
+        Deadline entry = new Deadline(playerId, deadline);
+        // Registered before it is armed: an overdue deadline may expire right away, and must
+        // then find its entry to remove it
+        Deadline previous = timers.put(gameId, entry);
+        if (previous != null) {
+            previous.cancel();
+        }
+        entry.arm(wheel, t -> expire(gameId, entry), Duration.between(Instant.now(), deadline));
+    }
+
+    /**
+     * Removes the pending deadline of a game, if any
+     *
+     * @return whether a deadline was pending
+     */
+    public boolean cancel(Long gameId) {
+        Deadline entry = timers.remove(gameId);
+        return entry != null && entry.cancel();
+    }
+
+    /**
+     * Pending deadline of a game, read from memory only
+     */
+    public Optional<Instant> deadlineOf(Long gameId) {
+        Deadline entry = timers.get(gameId);
+        return entry != null ? Optional.of(entry.at) : Optional.empty();
+    }
+
+    /**
+     * Number of games with a pending deadline
+     */
+    public int pending() {
+        return timers.size();
+    }
+
+    /**
+     * Lag between deadlines and the wheel noticing them
+     */
+    public LagStats wheelLag() {
+        return wheel.lag();
+    }
+
+    /**
+     * Lag between deadlines and the expiry handler starting in the game's session
+     */
+    public LagStats sessionLag() {
+        return sessionLag;
+    }
+
+    private void expire(Long gameId, Deadline entry) {
+        try {
+            gameSessionManager.execute(gameId, () -> {
+                sessionLag.record(Duration.between(entry.at, Instant.now()).toNanos());
+                expired.increment();
+                ExpiryHandler handler = expiryHandler;
+                if (handler != null) {
+                    handler.onTurnExpired(gameId, entry.playerId);
+                }
+            });
+            timers.remove(gameId, entry);
+        } catch (RejectedExecutionException e) {
+            // The deadline stays pending, so a new turn or a cancel still replaces or stops it
+            retried.increment();
+            logger.warn("Session of game {} is full, turn timeout retried in {} ms", gameId, RETRY_DELAY.toMillis());
+            entry.arm(wheel, t -> expire(gameId, entry), RETRY_DELAY);
+        }
+    }
+
+    private void scheduleStatsReport(long intervalSeconds) {
+        wheel.newTimeout(t -> {
+            if (expired.sum() > 0 || !timers.isEmpty()) {
+                logger.info("Turn clock: pending={} expired={} retried={} wheelLag[{}] sessionLag[{}]",
+                        timers.size(), expired.sum(), retried.sum(), wheel.lag(), sessionLag);
+            }
+            scheduleStatsReport(intervalSeconds);
+        }, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (!wheel.stop(5, TimeUnit.SECONDS)) {
+            logger.warn("Turn clock did not stop in time");
+        }
+        timers.clear();
+    }
+
+    private static final class Deadline {
+
+        private final Long playerId;
+        private final Instant at;
+        // Current timeout on the wheel: the first one, then the retries
+        private HashedWheelTimer.Timeout timeout;
+        private boolean cancelled;
+
+        private Deadline(Long playerId, Instant at) {
+            this.playerId = playerId;
+            this.at = at;
+        }
+
+        /**
+         * Puts the deadline on the wheel, unless it was cancelled meanwhile
+         */
+        private synchronized void arm(HashedWheelTimer wheel, HashedWheelTimer.TimerTask task, Duration delay) {
+            if (!cancelled) {
+                timeout = wheel.newTimeout(task, delay.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * @return whether the deadline had not expired yet
+         */
+        private synchronized boolean cancel() {
+            cancelled = true;
+            return timeout == null || timeout.cancel();
+        }
+    }
+}
@@ -721,6 +721,9 @@ function initializeWebSocket() {
               case "PLAYER_SKIPPED":
                 showMessage(gameUpdate.message);
                 break;
+              case "MOVE_RESULT":
+                handleMoveResult(gameUpdate.data);
+                break;
               default:
                 break;
             }
@@ -854,6 +857,22 @@ function handlePiecePlacement(placementUpdate) {
   hideAllUsedPieces();
 }
 
+/**
+ * Handle the combined result of a move: the placement, the skipped players,
+ * then either the next turn or the end of the game
+ */
+function handleMoveResult(data) {
+  handlePiecePlacement({ data: data.placement });
+  (data.skipped || []).forEach((player) => {
+    showMessage(player + ": No moves available, turn skipped.");
+  });
+  if (data.gameOver) {
+    handleGameOver(data.gameOver);
+  } else if (data.nextTurn) {
+    handleNextTurn({ data: data.nextTurn });
+  }
+}
+
 /**
  * Handle a game over update
  */
@@ -1685,7 +1704,7 @@ function startChronometer() {
       }
     }
 
-    // If timer reaches zero, actively call the server to advance the turn
+    // If timer reaches zero, the server advances the turn on its own
     if (remaining === 0) {
       clearInterval(GameState.timerInterval);
       GameState.timerInterval = null;
@@ -1693,7 +1712,6 @@ function startChronometer() {
       // Notify user that time is up
       showMessage("Time's up! Turn is being advanced...");
 
-      // Actively call the server to advance the turn due to timeout
       handleTimeoutTurn();
     }
   }, 1000);
@@ -1760,56 +1778,17 @@ placePiece = function (x, y) {
 };
 
 /**
- * Handles timer timeout by calling the server API
+ * Handles timer timeout. The server owns the turn clock and announces the next turn
+ * over the WebSocket, so the client only refreshes its state if that update is missed.
  */
 function handleTimeoutTurn() {
   if (!GameState.gameId) return;
 
-  // Get CSRF token if Spring Security is enabled
-  const csrfToken = document
-    .querySelector("meta[name='_csrf']")
-    ?.getAttribute("content");
-  const csrfHeader = document
-    .querySelector("meta[name='_csrf_header']")
-    ?.getAttribute("content");
-
-  // Call the server to advance the turn due to timeout
-  // Check if current player is a bot - avoid timeout calls during bot turns
-  const currentPlayerSpan = document.getElementById("current-player");
-  const isCurrentPlayerBot =
-    currentPlayerSpan &&
-    currentPlayerSpan.textContent.trim().toLowerCase().includes("bot");
-
-  // Only make the timeout call if the current player is not a bot
-  if (!isCurrentPlayerBot) {
-    fetch(`/games/${GameState.gameId}/api/timeout-turn`, {
-      method: "POST",
-      headers: {
-        "X-Requested-With": "XMLHttpRequest",
-        ...(csrfHeader ? { [csrfHeader]: csrfToken } : {}),
-      },
-      credentials: "same-origin",
-    })
-      .then((response) => {
-        if (!response.ok) {
-          throw new Error(`HTTP error! Status: ${response.status}`);
-        }
-        return response.json();
-      })
-      .then((data) => {
-        console.log("Timeout turn processed:", data);
-        // The server should handle the WebSocket notifications
-        // No need to do anything else here
-      })
-      .catch((error) => {
-        console.error("Error advancing turn after timeout:", error);
-        // Fallback to refreshing game state if the API call fails
-        showMessage("Error advancing turn. Refreshing game state...");
-        setTimeout(refreshGameState, 1000);
-      });
-  } else {
-    console.log("Current player is a bot, not sending timeout-turn request");
-    // Just refresh the game state in case the bot is stuck
-    setTimeout(refreshGameState, 1000);
-  }
+  const timedOutPlayer = document.getElementById("current-player")?.textContent;
+  setTimeout(() => {
+    const currentPlayerSpan = document.getElementById("current-player");
+    if (currentPlayerSpan && currentPlayerSpan.textContent === timedOutPlayer) {
+      refreshGameState();
+    }
+  }, 3000);
 }
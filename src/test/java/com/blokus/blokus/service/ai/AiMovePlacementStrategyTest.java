@@ -0,0 +1,74 @@
+package com.blokus.blokus.service.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.FeatureMaps;
+import com.blokus.blokus.service.engine.GamePosition;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.engine.RandomGames;
+
+class AiMovePlacementStrategyTest {
+
+    @Test
+    void topMovesKeepTheBestFirstAndBreakTiesByMove() {
+        AiMovePlacementStrategy.TopMoves top = new AiMovePlacementStrategy.TopMoves();
+        top.offer(10, 1.0);
+        top.offer(7, 3.0);
+        top.offer(2, 0.5);
+        top.offer(5, 3.0);
+        top.offer(9, 2.0);
+        top.offer(1, 1.5);
+
+        assertEquals(3, top.size());
+        assertEquals(5, top.move(0));
+        assertEquals(7, top.move(1));
+        assertEquals(9, top.move(2));
+    }
+
+    @Test
+    void mergedTopMovesDoNotDependOnTheSplit() {
+        int[] moves = {40, 12, 33, 7, 21, 18, 3, 29};
+        double[] scores = {1.0, 4.0, 4.0, 2.5, 0.0, 4.0, 2.5, 3.0};
+        AiMovePlacementStrategy.TopMoves all = new AiMovePlacementStrategy.TopMoves();
+        for (int i = 0; i < moves.length; i++) {
+            all.offer(moves[i], scores[i]);
+        }
+        for (int split = 0; split <= moves.length; split++) {
+            AiMovePlacementStrategy.TopMoves left = new AiMovePlacementStrategy.TopMoves();
+            AiMovePlacementStrategy.TopMoves right = new AiMovePlacementStrategy.TopMoves();
+            for (int i = 0; i < moves.length; i++) {
+                (i < split ? left : right).offer(moves[i], scores[i]);
+            }
+            AiMovePlacementStrategy.TopMoves merged = right.merge(left);
+            assertEquals(all.size(), merged.size());
+            for (int rank = 0; rank < all.size(); rank++) {
+                assertEquals(all.move(rank), merged.move(rank), "rank " + rank + " with split " + split);
+            }
+        }
+    }
+
+    @Test
+    void sameSeedChoosesTheSameMovesWhateverTheThreads() {
+        AiMoveEvaluator evaluator = new AiMoveEvaluator();
+        AiMovePlacementStrategy sequential = new AiMovePlacementStrategy(evaluator, 1, 42);
+        AiMovePlacementStrategy parallel = new AiMovePlacementStrategy(evaluator, 4, 42);
+
+        RandomGames.play(13, position -> {
+            if (position.hasLegalMove() && position.getBoard().hasPlaced(position.toMove())) {
+                int expected = sequential.chooseSubsequentPiece(turn(position));
+                assertEquals(Move.toString(expected), Move.toString(parallel.chooseSubsequentPiece(turn(position))),
+                        "ply " + position.getPly());
+                assertEquals(expected, parallel.chooseSubsequentPiece(turn(position)));
+            }
+        });
+    }
+
+    private static AiTurn turn(GamePosition position) {
+        PlayerColor color = position.toMove();
+        return new AiTurn(1L, 1L, null, color, position.copy(), new FeatureMaps(position.getBoard()), false,
+                new SearchBudget(AiDifficulty.HARD, null));
+    }
+}
@@ -0,0 +1,122 @@
+package com.blokus.blokus.service.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AiSchedulerTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private AiScheduler scheduler;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        scheduler.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void runsOneSearchOfAGameAtATime() throws InterruptedException {
+        scheduler = new AiScheduler("test-ai", 4, 100, 4);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch otherGameStarted = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        AtomicInteger runningOfGame = new AtomicInteger();
+        AtomicInteger maxRunningOfGame = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(1L, true, () -> {
+                maxRunningOfGame.accumulateAndGet(runningOfGame.incrementAndGet(), Math::max);
+                firstStarted.countDown();
+                await(gate);
+                runningOfGame.decrementAndGet();
+                done.countDown();
+            });
+        }
+        assertTrue(firstStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // Idle workers leave the game's other searches queued but serve another game
+        scheduler.submit(2L, true, () -> {
+            otherGameStarted.countDown();
+            done.countDown();
+        });
+        assertTrue(otherGameStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2, scheduler.queueDepth());
+
+        gate.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, maxRunningOfGame.get());
+    }
+
+    @Test
+    void servesOneBotOnlySearchEveryPriorityWeightHumanSearches() throws InterruptedException {
+        scheduler = new AiScheduler("test-ai", 1, 100, 2);
+        CountDownLatch gate = block(0L, false);
+        List<Long> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(6);
+        for (long gameId = 1; gameId <= 4; gameId++) {
+            submit(gameId, true, order, done);
+        }
+        submit(5L, false, order, done);
+        submit(6L, false, order, done);
+
+        gate.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of(1L, 2L, 5L, 3L, 4L, 6L), order);
+        assertEquals(4, scheduler.humanWait().count());
+        assertEquals(3, scheduler.botWait().count());
+    }
+
+    @Test
+    void aWaitingHumanPromotesTheGamesQueuedSearches() throws InterruptedException {
+        scheduler = new AiScheduler("test-ai", 1, 100, 3);
+        CountDownLatch gate = block(0L, false);
+        List<Long> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        submit(1L, false, order, done);
+        submit(2L, false, order, done);
+        // Game 2 was queued behind game 1 as bot-only until its human started waiting
+        submit(2L, true, order, done);
+
+        gate.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of(2L, 2L, 1L), order);
+    }
+
+    /**
+     * Occupies the only worker until the returned gate opens, so the next searches queue up
+     */
+    private CountDownLatch block(Long gameId, boolean humanWaiting) throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit(gameId, humanWaiting, () -> {
+            started.countDown();
+            await(gate);
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        return gate;
+    }
+
+    private void submit(Long gameId, boolean humanWaiting, List<Long> order, CountDownLatch done) {
+        scheduler.submit(gameId, humanWaiting, () -> {
+            order.add(gameId);
+            done.countDown();
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.blokus.blokus.service.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.Test;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.BitBoard;
+import com.blokus.blokus.service.engine.BoardState;
+import com.blokus.blokus.service.engine.FeatureMaps;
+import com.blokus.blokus.service.engine.GamePosition;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.engine.Regions;
+
+/**
+ * BLUE holds the top-left and bottom-right corners. Everything else is RED but two pockets:
+ * one cell next to the top-left corner and two cells next to the bottom-right one.
+ */
+class EndgameSolverTest {
+
+    private static final int MONOMINO = 1;
+    private static final int DOMINO = 2;
+
+    @Test
+    void playsTheDominoFirstToEndWithTheMonomino() {
+        GamePosition position = position(null);
+        assertEquals(2, Regions.of(position.getBoard(), PlayerColor.BLUE).size());
+
+        OptionalInt move = new EndgameSolver(96, 10_000).solve(turn(position, new SearchBudget(AiDifficulty.HARD, null)));
+
+        // The monomino only fits the one-cell pocket, and must be placed last for the bonus
+        assertTrue(move.isPresent());
+        assertEquals(DOMINO, Move.pieceId(move.getAsInt()));
+        BitBoard cells = new BitBoard();
+        Move.fillMask(move.getAsInt(), cells);
+        BitBoard expected = new BitBoard();
+        expected.set(17, 18);
+        expected.set(18, 18);
+        assertEquals(expected, cells);
+    }
+
+    @Test
+    void leavesTheTurnsBudgetToTheFallbackSearch() {
+        GamePosition position = position(null);
+        SearchBudget solved = new SearchBudget(AiDifficulty.EASY, null);
+        assertTrue(new EndgameSolver(96, 10_000).solve(turn(position, solved)).isPresent());
+        assertEquals(0, solved.nodes());
+
+        SearchBudget givenUp = new SearchBudget(AiDifficulty.EASY, null);
+        assertFalse(new EndgameSolver(96, 1).solve(turn(position, givenUp)).isPresent());
+        assertEquals(0, givenUp.nodes());
+        assertTrue(givenUp.tick());
+    }
+
+    @Test
+    void leavesRegionsAnOpponentCanReach() {
+        // YELLOW sits diagonally to the one-cell pocket with a monomino left
+        OptionalInt move = new EndgameSolver(96, 10_000)
+                .solve(turn(position(PlayerColor.YELLOW), new SearchBudget(AiDifficulty.HARD, null)));
+        assertFalse(move.isPresent());
+    }
+
+    @Test
+    void givesUpPastItsLimits() {
+        GamePosition position = position(null);
+        assertFalse(new EndgameSolver(2, 10_000).solve(turn(position, new SearchBudget(AiDifficulty.HARD, null))).isPresent());
+        assertFalse(new EndgameSolver(96, 1).solve(turn(position, new SearchBudget(AiDifficulty.HARD, null))).isPresent());
+
+        SearchBudget cancelled = new SearchBudget(AiDifficulty.HARD, null);
+        cancelled.cancel();
+        assertFalse(new EndgameSolver(96, 10_000).solve(turn(position, cancelled)).isPresent());
+    }
+
+    /**
+     * @param neighbour Color given the cell diagonal to the one-cell pocket and a monomino,
+     *                  or null to leave it RED
+     */
+    private static GamePosition position(PlayerColor neighbour) {
+        BoardState board = new BoardState();
+        BitBoard blue = new BitBoard();
+        blue.set(0, 0);
+        blue.set(19, 19);
+        board.place(PlayerColor.BLUE, blue);
+
+        BitBoard red = new BitBoard();
+        red.invert();
+        red.andNot(blue);
+        for (int[] pocket : new int[][]{{1, 1}, {18, 18}, {17, 18}}) {
+            red.clear(BitBoard.index(pocket[0], pocket[1]));
+        }
+        int[] inventories = new int[PlayerColor.values().length];
+        if (neighbour != null) {
+            red.clear(BitBoard.index(2, 2));
+            BitBoard cell = new BitBoard();
+            cell.set(2, 2);
+            board.place(neighbour, cell);
+            inventories[neighbour.ordinal()] = 1 << MONOMINO;
+        }
+        board.place(PlayerColor.RED, red);
+
+        inventories[PlayerColor.BLUE.ordinal()] = 1 << MONOMINO | 1 << DOMINO;
+        return new GamePosition(board, inventories, new int[inventories.length], PlayerColor.BLUE);
+    }
+
+    private static AiTurn turn(GamePosition position, SearchBudget budget) {
+        return new AiTurn(1L, 1L, null, PlayerColor.BLUE, position, new FeatureMaps(position.getBoard()), false, budget);
+    }
+}
@@ -0,0 +1,103 @@
+package com.blokus.blokus.service.ai;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.GamePosition;
+import com.blokus.blokus.service.engine.Move;
+
+class OpeningBookTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writtenBooksReadBackTheSameMoves() throws Exception {
+        GamePosition position = GamePosition.initial();
+        Map<Long, Integer> moves = new HashMap<>();
+        int[] bookMoves = new int[PlayerColor.values().length];
+        for (int ply = 0; ply < bookMoves.length; ply++) {
+            PlayerColor color = position.toMove();
+            int[] legal = position.listLegalMoves();
+            bookMoves[ply] = legal[legal.length / 2];
+            moves.put(OpeningBook.keyOf(position.getBoard(), color, position.getInventory(color)), bookMoves[ply]);
+            position.make(bookMoves[ply]);
+        }
+        Path file = directory.resolve("book.bin");
+        OpeningBook.write(moves, file);
+
+        OpeningBook mapped = OpeningBook.load(new FileSystemResource(file));
+        OpeningBook read = OpeningBook.of(ByteBuffer.wrap(Files.readAllBytes(file)));
+        OpeningBook fromJar = OpeningBook.load(new ByteArrayResource(Files.readAllBytes(file)));
+        for (OpeningBook book : new OpeningBook[]{mapped, read, fromJar}) {
+            assertEquals(moves.size(), book.size());
+            GamePosition replay = GamePosition.initial();
+            for (int move : bookMoves) {
+                assertEquals(Move.toString(move), Move.toString(book.lookup(replay)));
+                replay.make(move);
+            }
+            // Second moves are not in the book
+            assertEquals(Move.PASS, book.lookup(replay));
+        }
+    }
+
+    @Test
+    void bookMovesDoNotDependOnTheOpponents() throws Exception {
+        GamePosition position = GamePosition.initial();
+        position.make(position.listLegalMoves()[0]);
+        PlayerColor second = position.toMove();
+        int secondMove = position.listLegalMoves()[0];
+        Map<Long, Integer> moves = Map.of(
+                OpeningBook.keyOf(position.getBoard(), second, position.getInventory(second)), secondMove);
+        Path file = directory.resolve("book.bin");
+        OpeningBook.write(moves, file);
+        OpeningBook book = OpeningBook.load(new FileSystemResource(file));
+
+        GamePosition other = GamePosition.initial();
+        int[] firstMoves = other.listLegalMoves();
+        other.make(firstMoves[firstMoves.length - 1]);
+        assertEquals(secondMove, book.lookup(other));
+    }
+
+    @Test
+    void illegalBookMovesAreNotReturned() throws Exception {
+        GamePosition position = GamePosition.initial();
+        // A piece in the middle of the board does not touch the starting corner
+        Map<Long, Integer> moves = Map.of(
+                OpeningBook.keyOf(position.getBoard(), position.toMove(), position.getInventory(position.toMove())),
+                Move.of(0, 10, 10));
+        Path file = directory.resolve("book.bin");
+        OpeningBook.write(moves, file);
+
+        assertEquals(Move.PASS, OpeningBook.load(new FileSystemResource(file)).lookup(position));
+    }
+
+    @Test
+    void unreadableBooksAreRejected() throws Exception {
+        Path file = directory.resolve("book.bin");
+        OpeningBook.write(Map.of(1L, Move.of(0, 0, 0)), file);
+        byte[] data = Files.readAllBytes(file);
+
+        byte[] otherVersion = data.clone();
+        otherVersion[7] = (byte) (OpeningBook.VERSION + 1);
+        assertThrows(IllegalArgumentException.class, () -> OpeningBook.of(ByteBuffer.wrap(otherVersion)));
+        byte[] truncated = new byte[data.length - OpeningBook.SLOT_BYTES];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        assertThrows(IllegalArgumentException.class, () -> OpeningBook.of(ByteBuffer.wrap(truncated)));
+
+        assertEquals(0, OpeningBook.load(new ByteArrayResource(truncated)).size());
+        assertEquals(0, OpeningBook.load(new FileSystemResource(directory.resolve("missing.bin"))).size());
+    }
+}
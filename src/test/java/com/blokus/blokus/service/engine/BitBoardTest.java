@@ -0,0 +1,75 @@
+package com.blokus.blokus.service.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BitBoardTest {
+
+    private static final int[][] EDGES = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] CORNERS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    @Test
+    void edgeNeighboursNeverWrapAroundTheBoard() {
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            BitBoard source = new BitBoard();
+            source.set(cell);
+            BitBoard neighbours = new BitBoard();
+            neighbours.orEdgeNeighboursOf(source);
+            assertEquals(expected(cell, EDGES), neighbours, "edge neighbours of cell " + cell);
+        }
+    }
+
+    @Test
+    void cornerNeighboursNeverWrapAroundTheBoard() {
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            BitBoard source = new BitBoard();
+            source.set(cell);
+            BitBoard neighbours = new BitBoard();
+            neighbours.orCornerNeighboursOf(source);
+            assertEquals(expected(cell, CORNERS), neighbours, "corner neighbours of cell " + cell);
+        }
+    }
+
+    @Test
+    void shiftsCrossWordBoundaries() {
+        // Cells 63 and 64 are the last bit of a word and the first of the next one
+        BitBoard source = new BitBoard();
+        source.set(63);
+        BitBoard neighbours = new BitBoard();
+        neighbours.orEdgeNeighboursOf(source);
+        assertTrue(neighbours.get(64));
+        assertTrue(neighbours.get(63 + BitBoard.SIZE));
+
+        source.clear();
+        source.set(64);
+        neighbours.clear();
+        neighbours.orEdgeNeighboursOf(source);
+        assertTrue(neighbours.get(63));
+        assertTrue(neighbours.get(64 - BitBoard.SIZE));
+    }
+
+    @Test
+    void invertStaysOnTheBoard() {
+        BitBoard board = new BitBoard();
+        board.invert();
+        assertEquals(BitBoard.CELLS, board.cardinality());
+        assertFalse(board.isEmpty());
+        board.invert();
+        assertTrue(board.isEmpty());
+    }
+
+    private static BitBoard expected(int cell, int[][] directions) {
+        int x = cell % BitBoard.SIZE;
+        int y = cell / BitBoard.SIZE;
+        BitBoard expected = new BitBoard();
+        for (int[] direction : directions) {
+            if (BitBoard.isOnBoard(x + direction[0], y + direction[1])) {
+                expected.set(x + direction[0], y + direction[1]);
+            }
+        }
+        return expected;
+    }
+}
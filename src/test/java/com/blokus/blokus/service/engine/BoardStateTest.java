@@ -0,0 +1,65 @@
+package com.blokus.blokus.service.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+class BoardStateTest {
+
+    @Test
+    void startingCornersAreTheFirstAnchors() {
+        BoardState board = new BoardState();
+        for (PlayerColor color : PlayerColor.values()) {
+            BitBoard anchors = board.getAnchors(color);
+            assertEquals(1, anchors.cardinality());
+            assertTrue(anchors.get(BoardState.startingCorner(color)));
+        }
+    }
+
+    @Test
+    void anchorsMatchTheBoardThroughRandomGames() {
+        for (int game = 0; game < 20; game++) {
+            long seed = game;
+            RandomGames.play(seed, position -> {
+                for (PlayerColor color : PlayerColor.values()) {
+                    assertEquals(anchorsOf(position.getBoard(), color), position.getBoard().getAnchors(color),
+                            color + " anchors at ply " + position.getPly() + " of game " + seed);
+                }
+            });
+        }
+    }
+
+    /**
+     * Anchors from the definition: empty cells touching the color by a corner and not by an
+     * edge, or its starting corner while it has no piece
+     */
+    private static BitBoard anchorsOf(BoardState board, PlayerColor color) {
+        BitBoard layer = board.getLayer(color);
+        BitBoard anchors = new BitBoard();
+        if (layer.isEmpty()) {
+            int corner = BoardState.startingCorner(color);
+            if (!board.getOccupied().get(corner)) {
+                anchors.set(corner);
+            }
+            return anchors;
+        }
+        for (int y = 0; y < BitBoard.SIZE; y++) {
+            for (int x = 0; x < BitBoard.SIZE; x++) {
+                if (!board.isOccupied(x, y) && !has(layer, x + 1, y) && !has(layer, x - 1, y)
+                        && !has(layer, x, y + 1) && !has(layer, x, y - 1)
+                        && (has(layer, x + 1, y + 1) || has(layer, x + 1, y - 1)
+                                || has(layer, x - 1, y + 1) || has(layer, x - 1, y - 1))) {
+                    anchors.set(x, y);
+                }
+            }
+        }
+        return anchors;
+    }
+
+    private static boolean has(BitBoard layer, int x, int y) {
+        return BitBoard.isOnBoard(x, y) && layer.get(x, y);
+    }
+}
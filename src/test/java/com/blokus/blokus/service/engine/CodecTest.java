@@ -0,0 +1,67 @@
+package com.blokus.blokus.service.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+class CodecTest {
+
+    @Test
+    void movesRoundTrip() {
+        for (PlayerColor color : PlayerColor.values()) {
+            for (int id = 0; id < PieceOrientations.uniqueCount(); id++) {
+                for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                    int move = Move.of(id, cell % BitBoard.SIZE, cell / BitBoard.SIZE);
+                    int code = MoveCodec.encode(color, move);
+                    assertEquals(MoveCodec.VERSION, MoveCodec.version(code));
+                    assertEquals(color, MoveCodec.color(code));
+                    assertEquals(move, MoveCodec.move(code));
+                }
+            }
+            int pass = MoveCodec.encode(color, Move.PASS);
+            assertEquals(color, MoveCodec.color(pass));
+            assertEquals(Move.PASS, MoveCodec.move(pass));
+        }
+    }
+
+    @Test
+    void movesOfAnotherVersionAreRejected() {
+        int code = MoveCodec.encode(PlayerColor.RED, Move.of(0, 3, 4));
+        int otherVersion = code + (1 << 28);
+        assertThrows(IllegalArgumentException.class, () -> MoveCodec.move(otherVersion));
+        assertThrows(IllegalArgumentException.class, () -> MoveCodec.color(otherVersion));
+    }
+
+    @Test
+    void boardsRoundTripThroughRandomGames() {
+        RandomGames.play(9, position ->
+                assertSameBoard(position.getBoard(), BoardCodec.decode(BoardCodec.encode(position.getBoard()))));
+    }
+
+    @Test
+    void truncatedOrUnknownBoardsAreRejected() {
+        GamePosition position = GamePosition.initial();
+        position.make(position.listLegalMoves()[0]);
+        byte[] data = BoardCodec.encode(position.getBoard());
+
+        assertThrows(IllegalArgumentException.class, () -> BoardCodec.decode(Arrays.copyOf(data, data.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> BoardCodec.decode(new byte[3]));
+        byte[] otherVersion = data.clone();
+        otherVersion[0] = BoardCodec.VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> BoardCodec.decode(otherVersion));
+    }
+
+    private static void assertSameBoard(BoardState expected, BoardState actual) {
+        assertEquals(expected.getOccupied(), actual.getOccupied());
+        for (PlayerColor color : PlayerColor.values()) {
+            assertEquals(expected.getLayer(color), actual.getLayer(color));
+            assertEquals(expected.getAnchors(color), actual.getAnchors(color));
+        }
+        assertEquals(expected.getHash(), actual.getHash());
+    }
+}
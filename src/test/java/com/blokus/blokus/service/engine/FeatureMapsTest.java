@@ -0,0 +1,69 @@
+package com.blokus.blokus.service.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+class FeatureMapsTest {
+
+    @Test
+    void incrementalUpdatesMatchAFreshBuildThroughRandomGames() {
+        for (int game = 0; game < 20; game++) {
+            long seed = game;
+            FeatureMaps[] incremental = new FeatureMaps[1];
+            BoardState[] previous = new BoardState[1];
+            RandomGames.play(seed, position -> {
+                BoardState board = position.getBoard();
+                if (incremental[0] == null) {
+                    incremental[0] = new FeatureMaps(board);
+                } else {
+                    for (PlayerColor color : PlayerColor.values()) {
+                        BitBoard placed = new BitBoard(board.getLayer(color));
+                        placed.andNot(previous[0].getLayer(color));
+                        if (!placed.isEmpty()) {
+                            incremental[0].onPlacement(board, color, placed);
+                        }
+                    }
+                }
+                previous[0] = new BoardState(board);
+                assertSameFeatures(new FeatureMaps(board), incremental[0],
+                        "ply " + position.getPly() + " of game " + seed);
+            });
+        }
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        GamePosition position = GamePosition.initial();
+        FeatureMaps features = new FeatureMaps(position.getBoard());
+        FeatureMaps copy = features.copy();
+
+        int move = position.listLegalMoves()[0];
+        BitBoard mask = new BitBoard();
+        Move.fillMask(move, mask);
+        position.make(move);
+        features.onPlacement(position.getBoard(), PlayerColor.BLUE, mask);
+
+        assertSameFeatures(new FeatureMaps(GamePosition.initial().getBoard()), copy, "copy");
+        assertSameFeatures(new FeatureMaps(position.getBoard()), features, "original");
+    }
+
+    private static void assertSameFeatures(FeatureMaps expected, FeatureMaps actual, String where) {
+        for (PlayerColor color : PlayerColor.values()) {
+            String message = color + " at " + where;
+            assertEquals(expected.anchorCount(color), actual.anchorCount(color), message);
+            for (int steps = 0; steps < FeatureMaps.HORIZON; steps++) {
+                assertEquals(expected.reach(color, steps), actual.reach(color, steps), message + ", reach " + steps);
+            }
+            assertEquals(expected.free(color), actual.free(color), message + ", free cells");
+            assertEquals(expected.contested(color), actual.contested(color), message + ", contested cells");
+            assertEquals(expected.contestedCount(color), actual.contestedCount(color), message);
+            for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                assertEquals(expected.distance(color, cell), actual.distance(color, cell),
+                        message + ", distance of cell " + cell);
+            }
+        }
+    }
+}
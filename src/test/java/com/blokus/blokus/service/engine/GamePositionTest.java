@@ -0,0 +1,79 @@
+package com.blokus.blokus.service.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+class GamePositionTest {
+
+    @Test
+    void unmakeRestoresEveryPlyOfRandomGames() {
+        for (int game = 0; game < 10; game++) {
+            List<Snapshot> history = new ArrayList<>();
+            GamePosition position = RandomGames.play(game, current -> history.add(new Snapshot(current)));
+            // The last snapshot is the final position itself
+            for (int ply = history.size() - 2; ply >= 0; ply--) {
+                position.unmake();
+                assertEquals(ply, position.getPly());
+                history.get(ply).assertSame(position);
+            }
+        }
+    }
+
+    @Test
+    void scoresFollowTheGameRules() {
+        GamePosition position = GamePosition.initial();
+        assertEquals(-89, position.score(PlayerColor.BLUE));
+        int monomino = position.listLegalMoves()[0];
+        assertEquals(1, Move.pieceId(monomino));
+        position.make(monomino);
+        assertEquals(-88, position.score(PlayerColor.BLUE));
+
+        GamePosition finished = new GamePosition(new BoardState(), new int[4], new int[]{1, 2, 0, 0}, PlayerColor.BLUE);
+        assertEquals(20, finished.score(PlayerColor.BLUE));
+        assertEquals(15, finished.score(PlayerColor.YELLOW));
+        assertTrue(finished.isGameOver());
+    }
+
+    /**
+     * State of a position that make and unmake must restore
+     */
+    private static final class Snapshot {
+
+        private final BoardState board;
+        private final int[] inventories = new int[PlayerColor.values().length];
+        private final int[] squaresLeft = new int[PlayerColor.values().length];
+        private final PlayerColor toMove;
+        private final long hash;
+
+        private Snapshot(GamePosition position) {
+            this.board = new BoardState(position.getBoard());
+            for (PlayerColor color : PlayerColor.values()) {
+                inventories[color.ordinal()] = position.getInventory(color);
+                squaresLeft[color.ordinal()] = position.getSquaresLeft(color);
+            }
+            this.toMove = position.toMove();
+            this.hash = position.getHash();
+        }
+
+        private void assertSame(GamePosition position) {
+            BoardState restored = position.getBoard();
+            assertEquals(board.getOccupied(), restored.getOccupied());
+            for (PlayerColor color : PlayerColor.values()) {
+                assertEquals(board.getLayer(color), restored.getLayer(color));
+                assertEquals(board.getAnchors(color), restored.getAnchors(color));
+                assertEquals(inventories[color.ordinal()], position.getInventory(color));
+                assertEquals(squaresLeft[color.ordinal()], position.getSquaresLeft(color));
+            }
+            assertEquals(board.getHash(), restored.getHash());
+            assertEquals(toMove, position.toMove());
+            assertEquals(hash, position.getHash());
+        }
+    }
+}
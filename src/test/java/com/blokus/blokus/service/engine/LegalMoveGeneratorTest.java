@@ -0,0 +1,98 @@
+package com.blokus.blokus.service.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+class LegalMoveGeneratorTest {
+
+    @Test
+    void generatesEveryPlacementOfTheBruteForceValidator() {
+        for (int game = 0; game < 5; game++) {
+            long seed = game;
+            RandomGames.play(seed, position -> {
+                BoardState board = position.getBoard();
+                PlayerColor color = position.toMove();
+                int inventory = position.getInventory(color);
+                int[] moves = LegalMoveGenerator.list(board, color, inventory);
+
+                Set<List<Object>> generated = new HashSet<>();
+                for (int move : moves) {
+                    BitBoard mask = new BitBoard();
+                    Move.fillMask(move, mask);
+                    assertTrue(generated.add(List.of(Move.pieceId(move), mask)), "duplicate " + Move.toString(move));
+                }
+                assertEquals(bruteForce(board, color, inventory), generated,
+                        color + " at ply " + position.getPly() + " of game " + seed);
+                assertEquals(moves.length, LegalMoveGenerator.count(board, color, inventory));
+                assertEquals(moves.length > 0, LegalMoveGenerator.hasAny(board, color, inventory));
+            });
+        }
+    }
+
+    /**
+     * Placements found the way the game validated moves before the generator: every rotation
+     * and flip of every piece shape at every position, checked cell by cell
+     */
+    private static Set<List<Object>> bruteForce(BoardState board, PlayerColor color, int inventory) {
+        BitBoard layer = board.getLayer(color);
+        boolean first = layer.isEmpty();
+        Set<List<Object>> placements = new HashSet<>();
+        for (int pieceId = 1; pieceId <= PieceOrientations.PIECE_COUNT; pieceId++) {
+            if ((inventory & (1 << pieceId)) == 0) {
+                continue;
+            }
+            for (int rotation = 0; rotation < 360; rotation += 90) {
+                for (boolean flipped : new boolean[]{false, true}) {
+                    boolean[][] shape = PieceOrientations.get(pieceId, rotation, flipped).toShape();
+                    for (int y = 0; y < BitBoard.SIZE; y++) {
+                        for (int x = 0; x < BitBoard.SIZE; x++) {
+                            BitBoard mask = placement(board, layer, first, color, shape, x, y);
+                            if (mask != null) {
+                                placements.add(List.of(pieceId, mask));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return placements;
+    }
+
+    private static BitBoard placement(BoardState board, BitBoard layer, boolean first, PlayerColor color,
+                                      boolean[][] shape, int x, int y) {
+        BitBoard mask = new BitBoard();
+        boolean touchesCorner = false;
+        for (int dy = 0; dy < shape.length; dy++) {
+            for (int dx = 0; dx < shape[dy].length; dx++) {
+                if (!shape[dy][dx]) {
+                    continue;
+                }
+                int cx = x + dx;
+                int cy = y + dy;
+                if (!BitBoard.isOnBoard(cx, cy) || board.isOccupied(cx, cy)
+                        || has(layer, cx + 1, cy) || has(layer, cx - 1, cy)
+                        || has(layer, cx, cy + 1) || has(layer, cx, cy - 1)) {
+                    return null;
+                }
+                touchesCorner |= first
+                        ? BitBoard.index(cx, cy) == BoardState.startingCorner(color)
+                        : has(layer, cx + 1, cy + 1) || has(layer, cx + 1, cy - 1)
+                                || has(layer, cx - 1, cy + 1) || has(layer, cx - 1, cy - 1);
+                mask.set(cx, cy);
+            }
+        }
+        return touchesCorner ? mask : null;
+    }
+
+    private static boolean has(BitBoard layer, int x, int y) {
+        return BitBoard.isOnBoard(x, y) && layer.get(x, y);
+    }
+}
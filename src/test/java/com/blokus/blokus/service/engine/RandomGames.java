@@ -0,0 +1,48 @@
+package com.blokus.blokus.service.engine;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Games of uniformly random legal moves, for tests that check the engine along whole games
+ */
+public final class RandomGames {
+
+    private RandomGames() {
+    }
+
+    /**
+     * Plays a random game to its end, passing when the color to move has no legal move
+     *
+     * @param visitor Called with every position of the game, from the initial one to the final
+     *                one, before the next move is chosen; it must not change the position
+     * @return The final position, whose moves can still be unmade
+     */
+    public static GamePosition play(long seed, Consumer<GamePosition> visitor) {
+        Random random = new Random(seed);
+        GamePosition position = GamePosition.initial();
+        visitor.accept(position);
+        while (!position.isGameOver()) {
+            position.make(randomMove(position, random));
+            visitor.accept(position);
+        }
+        return position;
+    }
+
+    /**
+     * Plays the first random moves of a game
+     */
+    public static GamePosition play(long seed, int plies) {
+        Random random = new Random(seed);
+        GamePosition position = GamePosition.initial();
+        for (int ply = 0; ply < plies && !position.isGameOver(); ply++) {
+            position.make(randomMove(position, random));
+        }
+        return position;
+    }
+
+    private static int randomMove(GamePosition position, Random random) {
+        int[] moves = position.listLegalMoves();
+        return moves.length == 0 ? Move.PASS : moves[random.nextInt(moves.length)];
+    }
+}
@@ -0,0 +1,110 @@
+package com.blokus.blokus.service.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+
+class ZobristTest {
+
+    @Test
+    void incrementalHashMatchesAHashBuiltFromScratch() {
+        for (int game = 0; game < 10; game++) {
+            long seed = game;
+            int[] occupied = {0};
+            RandomGames.play(seed, position -> {
+                // A rebuilt position has no pass behind it, so only positions after a placement match
+                int cells = position.getBoard().getOccupied().cardinality();
+                if (position.getPly() == 0 || cells > occupied[0]) {
+                    assertEquals(rebuild(position).getHash(), position.getHash(),
+                            "hash at ply " + position.getPly() + " of game " + seed);
+                }
+                occupied[0] = cells;
+
+                GamePosition passed = position.copy();
+                passed.make(Move.PASS);
+                assertNotEquals(position.getHash(), passed.getHash(), "a pass changes the hash");
+            });
+        }
+    }
+
+    @Test
+    void transposedMovesReachTheSameHash() {
+        // A few random rounds, then BLUE plays two placements in either order around a round
+        // of the same opponent moves
+        GamePosition start = RandomGames.play(11, 3 * GamePosition.TURN_ORDER.length);
+        int[] blueMoves = start.listLegalMoves();
+        for (int first : blueMoves) {
+            for (int second : blueMoves) {
+                if (Move.pieceId(first) == Move.pieceId(second)) {
+                    continue;
+                }
+                GamePosition line = play(start, first, second);
+                GamePosition transposed = play(start, second, first);
+                if (line != null && transposed != null && sameCells(line, transposed)) {
+                    assertEquals(line.getHash(), transposed.getHash());
+                    assertEquals(rebuild(line).getHash(), line.getHash());
+                    return;
+                }
+            }
+        }
+        throw new AssertionError("No transposition found");
+    }
+
+    /**
+     * Plays {@code first}, the first legal move of each opponent, then {@code second}
+     *
+     * @return The position reached, or null if a move was illegal
+     */
+    private static GamePosition play(GamePosition start, int first, int second) {
+        GamePosition position = start.copy();
+        for (int move : new int[]{first, Move.PASS, Move.PASS, Move.PASS, second}) {
+            int[] moves = position.listLegalMoves();
+            if (move == Move.PASS) {
+                // Opponents play their lowest legal move; lines where it depends on BLUE's
+                // order are not transpositions and are skipped by the caller
+                move = moves.length == 0 ? Move.PASS : moves[0];
+            } else if (!contains(moves, move)) {
+                return null;
+            }
+            position.make(move);
+        }
+        return position;
+    }
+
+    private static boolean sameCells(GamePosition a, GamePosition b) {
+        for (PlayerColor color : PlayerColor.values()) {
+            if (!a.getBoard().getLayer(color).equals(b.getBoard().getLayer(color))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] moves, int move) {
+        for (int candidate : moves) {
+            if (candidate == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the position again from its board layers and inventories, with no history
+     */
+    private static GamePosition rebuild(GamePosition position) {
+        BoardState board = new BoardState();
+        int[] inventories = new int[PlayerColor.values().length];
+        for (PlayerColor color : PlayerColor.values()) {
+            BitBoard layer = position.getBoard().getLayer(color);
+            if (!layer.isEmpty()) {
+                board.place(color, layer);
+            }
+            inventories[color.ordinal()] = position.getInventory(color);
+        }
+        return new GamePosition(board, inventories, new int[inventories.length], position.toMove());
+    }
+}
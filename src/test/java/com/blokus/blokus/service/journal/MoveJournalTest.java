@@ -0,0 +1,115 @@
+package com.blokus.blokus.service.journal;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.blokus.blokus.model.GameUser.PlayerColor;
+import com.blokus.blokus.service.engine.Move;
+import com.blokus.blokus.service.engine.MoveCodec;
+
+class MoveJournalTest {
+
+    private static final long SEGMENT_SIZE = 1 << 20;
+    private static final int SNAPSHOT_INTERVAL = 10_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversActiveGamesAndDropsFinishedOnes() throws Exception {
+        MoveJournal journal = open();
+        journal.appendMove(1, 0, PlayerColor.BLUE, Move.of(0, 0, 0)).join();
+        journal.appendMove(1, 1, PlayerColor.YELLOW, Move.PASS).join();
+        journal.appendMove(2, 0, PlayerColor.BLUE, Move.of(1, 0, 0)).join();
+        journal.markFinished(2).join();
+        journal.destroy();
+
+        journal = open();
+        Map<Long, int[]> recovered = journal.recoveredGames();
+        journal.destroy();
+        assertEquals(1, recovered.size());
+        assertArrayEquals(new int[]{
+            MoveCodec.encode(PlayerColor.BLUE, Move.of(0, 0, 0)),
+            MoveCodec.encode(PlayerColor.YELLOW, Move.PASS)
+        }, recovered.get(1L));
+    }
+
+    @Test
+    void cutsOffATruncatedRecordAndKeepsAppending() throws Exception {
+        MoveJournal journal = open();
+        for (int ply = 0; ply < 3; ply++) {
+            journal.appendMove(7, ply, PlayerColor.BLUE, Move.of(ply, ply, ply)).join();
+        }
+        journal.destroy();
+
+        // A crash in the middle of the last record
+        Path segment = lastSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        journal = open();
+        assertArrayEquals(new int[]{
+            MoveCodec.encode(PlayerColor.BLUE, Move.of(0, 0, 0)),
+            MoveCodec.encode(PlayerColor.BLUE, Move.of(1, 1, 1))
+        }, journal.recoveredGames().get(7L));
+
+        // The torn tail is gone, so the replayed move follows the valid records
+        journal.appendMove(7, 2, PlayerColor.BLUE, Move.of(5, 5, 5)).join();
+        journal.destroy();
+        journal = open();
+        int[] moves = journal.recoveredGames().get(7L);
+        journal.destroy();
+        assertEquals(3, moves.length);
+        assertEquals(Move.of(5, 5, 5), MoveCodec.move(moves[2]));
+    }
+
+    @Test
+    void ignoresACorruptedRecord() throws Exception {
+        MoveJournal journal = open();
+        journal.appendMove(3, 0, PlayerColor.RED, Move.of(2, 0, 19)).join();
+        journal.appendMove(3, 1, PlayerColor.GREEN, Move.of(3, 19, 19)).join();
+        journal.destroy();
+
+        // Flip the last byte of the second record's payload, its CRC no longer matches
+        Path segment = lastSegment();
+        byte[] data = Files.readAllBytes(segment);
+        data[data.length - 1] ^= 0x5A;
+        Files.write(segment, data);
+
+        journal = open();
+        int[] moves = journal.recoveredGames().get(3L);
+        journal.destroy();
+        assertEquals(1, moves.length);
+        assertEquals(PlayerColor.RED, MoveCodec.color(moves[0]));
+    }
+
+    private MoveJournal open() throws IOException {
+        return new MoveJournal(true, directory.toString(), SEGMENT_SIZE, SNAPSHOT_INTERVAL);
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files
+                    .filter(file -> file.getFileName().toString().startsWith("journal-"))
+                    .filter(file -> file.toFile().length() > 0)
+                    .sorted()
+                    .toList();
+            assertFalse(segments.isEmpty());
+            return segments.get(segments.size() - 1);
+        }
+    }
+}